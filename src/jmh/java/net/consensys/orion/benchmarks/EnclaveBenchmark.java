@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.benchmarks;
+
+import net.consensys.orion.enclave.EncryptedPayload;
+import net.consensys.orion.enclave.PrivacyGroupPayload;
+import net.consensys.orion.enclave.sodium.MemoryKeyStore;
+import net.consensys.orion.enclave.sodium.SodiumEnclave;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tuweni.crypto.sodium.Box;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the enclave operations on the send and receive paths: payload encryption (one key wrap per recipient),
+ * decryption by the last recipient and privacy group id generation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnclaveBenchmark {
+
+  @Param({"1024", "16384", "262144", "1048576"})
+  public int payloadSize;
+
+  @Param({"1", "10", "100", "500"})
+  public int recipientCount;
+
+  @Param({"32"})
+  public int parallelKeyWrappingThreshold;
+
+  @Param({"0", "1024"})
+  public int sharedKeyCacheSize;
+
+  private SodiumEnclave enclave;
+  private byte[] plaintext;
+  private byte[] seed;
+  private Box.PublicKey sender;
+  private Box.PublicKey[] recipients;
+  private Box.PublicKey[] recipientsAndSender;
+  private EncryptedPayload encryptedPayload;
+
+  @Setup
+  public void setUp() {
+    final MemoryKeyStore keyStore = new MemoryKeyStore();
+    enclave = new SodiumEnclave(keyStore, parallelKeyWrappingThreshold, sharedKeyCacheSize);
+    sender = keyStore.generateKeyPair();
+    recipients = new Box.PublicKey[recipientCount];
+    for (int i = 0; i < recipientCount; i++) {
+      recipients[i] = keyStore.generateKeyPair();
+    }
+    recipientsAndSender = Arrays.copyOf(recipients, recipientCount + 1);
+    recipientsAndSender[recipientCount] = sender;
+
+    final Random random = new Random(42);
+    plaintext = new byte[payloadSize];
+    random.nextBytes(plaintext);
+    seed = new byte[32];
+    random.nextBytes(seed);
+
+    encryptedPayload = enclave.encrypt(plaintext, sender, recipients, seed);
+  }
+
+  @Benchmark
+  public EncryptedPayload encrypt() {
+    return enclave.encrypt(plaintext, sender, recipients, seed);
+  }
+
+  /** Decrypts as the last recipient, which is the worst case for locating the recipient's encrypted key. */
+  @Benchmark
+  public byte[] decrypt() {
+    return enclave.decrypt(encryptedPayload, recipients[recipientCount - 1]);
+  }
+
+  @Benchmark
+  public byte[] generatePrivacyGroupId() {
+    return enclave.generatePrivacyGroupId(recipientsAndSender, seed, PrivacyGroupPayload.Type.PANTHEON);
+  }
+}
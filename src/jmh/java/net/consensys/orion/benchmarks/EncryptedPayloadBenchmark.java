@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.benchmarks;
+
+import net.consensys.orion.enclave.EncryptedPayload;
+import net.consensys.orion.enclave.sodium.MemoryKeyStore;
+import net.consensys.orion.enclave.sodium.SodiumEnclave;
+import net.consensys.orion.http.server.HttpContentType;
+import net.consensys.orion.utils.Serializer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tuweni.crypto.sodium.Box;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the per-peer work done on an encrypted payload when it is distributed: stripping it down to a single
+ * recipient and (de)serializing it in the CBOR wire format and the JSON format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptedPayloadBenchmark {
+
+  @Param({"1024", "16384", "262144", "1048576"})
+  public int payloadSize;
+
+  @Param({"1", "10", "100", "500"})
+  public int recipientCount;
+
+  private EncryptedPayload encryptedPayload;
+  private List<Box.PublicKey> strippedFor;
+  private byte[] cborBytes;
+  private byte[] jsonBytes;
+
+  @Setup
+  public void setUp() {
+    final MemoryKeyStore keyStore = new MemoryKeyStore();
+    final SodiumEnclave enclave = new SodiumEnclave(keyStore);
+    final Box.PublicKey sender = keyStore.generateKeyPair();
+    final Box.PublicKey[] recipients = new Box.PublicKey[recipientCount];
+    for (int i = 0; i < recipientCount; i++) {
+      recipients[i] = keyStore.generateKeyPair();
+    }
+
+    final Random random = new Random(42);
+    final byte[] plaintext = new byte[payloadSize];
+    random.nextBytes(plaintext);
+    final byte[] seed = new byte[32];
+    random.nextBytes(seed);
+
+    encryptedPayload = enclave.encrypt(plaintext, sender, recipients, seed);
+    strippedFor = Collections.singletonList(recipients[recipientCount - 1]);
+    cborBytes = Serializer.serialize(HttpContentType.CBOR, encryptedPayload);
+    jsonBytes = Serializer.serialize(HttpContentType.JSON, encryptedPayload);
+  }
+
+  @Benchmark
+  public EncryptedPayload stripFor() {
+    return encryptedPayload.stripFor(strippedFor);
+  }
+
+  @Benchmark
+  public byte[] serializeCbor() {
+    return Serializer.serialize(HttpContentType.CBOR, encryptedPayload);
+  }
+
+  @Benchmark
+  public EncryptedPayload deserializeCbor() {
+    return Serializer.deserialize(HttpContentType.CBOR, EncryptedPayload.class, cborBytes);
+  }
+
+  @Benchmark
+  public byte[] serializeJson() {
+    return Serializer.serialize(HttpContentType.JSON, encryptedPayload);
+  }
+
+  @Benchmark
+  public EncryptedPayload deserializeJson() {
+    return Serializer.deserialize(HttpContentType.JSON, EncryptedPayload.class, jsonBytes);
+  }
+}
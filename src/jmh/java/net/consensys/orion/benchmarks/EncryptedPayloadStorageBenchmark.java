@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.benchmarks;
+
+import net.consensys.orion.enclave.EncryptedKey;
+import net.consensys.orion.enclave.EncryptedPayload;
+import net.consensys.orion.storage.EncryptedPayloadStorage;
+import net.consensys.orion.storage.Sha512_256StorageKeyBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.crypto.sodium.Box;
+import org.apache.tuweni.kv.KeyValueStore;
+import org.apache.tuweni.kv.LevelDBKeyValueStore;
+import org.apache.tuweni.kv.MapDBKeyValueStore;
+import org.apache.tuweni.kv.MapKeyValueStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of storing and retrieving encrypted payloads through {@link EncryptedPayloadStorage} for each of the
+ * embedded storage backends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptedPayloadStorageBenchmark {
+
+  private static final int DISTINCT_PAYLOADS = 64;
+
+  @Param({"memory", "leveldb", "mapdb"})
+  public String storage;
+
+  @Param({"1024", "16384", "262144", "1048576"})
+  public int payloadSize;
+
+  private Path storagePath;
+  private KeyValueStore<Bytes, Bytes> store;
+  private EncryptedPayloadStorage payloadStorage;
+  private EncryptedPayload[] payloads;
+  private String[] keys;
+  private int next;
+
+  @Setup
+  public void setUp() throws Exception {
+    storagePath = Files.createTempDirectory("orion-jmh");
+    store = createStore(storage, storagePath);
+    payloadStorage = new EncryptedPayloadStorage(store, new Sha512_256StorageKeyBuilder());
+
+    final Random random = new Random(42);
+    final Box.PublicKey sender = Box.KeyPair.random().publicKey();
+    payloads = new EncryptedPayload[DISTINCT_PAYLOADS];
+    keys = new String[DISTINCT_PAYLOADS];
+    for (int i = 0; i < DISTINCT_PAYLOADS; i++) {
+      final byte[] nonce = new byte[Box.Nonce.length()];
+      random.nextBytes(nonce);
+      final byte[] encryptedKey = new byte[48];
+      random.nextBytes(encryptedKey);
+      final byte[] cipherText = new byte[payloadSize];
+      random.nextBytes(cipherText);
+      final byte[] privacyGroupId = new byte[32];
+      random.nextBytes(privacyGroupId);
+      payloads[i] = new EncryptedPayload(
+          sender,
+          nonce,
+          new EncryptedKey[] {new EncryptedKey(encryptedKey)},
+          cipherText,
+          privacyGroupId);
+      keys[i] = payloadStorage.put(payloads[i]).get();
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    store.close();
+    try (Stream<Path> paths = Files.walk(storagePath)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  @Benchmark
+  public String put() throws Exception {
+    return payloadStorage.put(payloads[nextIndex()]).get();
+  }
+
+  @Benchmark
+  public Optional<EncryptedPayload> get() throws Exception {
+    return payloadStorage.get(keys[nextIndex()]).get();
+  }
+
+  private int nextIndex() {
+    next = (next + 1) % DISTINCT_PAYLOADS;
+    return next;
+  }
+
+  private static KeyValueStore<Bytes, Bytes> createStore(final String storage, final Path storagePath)
+      throws IOException {
+    final Function<Bytes, Bytes> bytesIdentityFn = Function.identity();
+    switch (storage) {
+      case "memory":
+        return MapKeyValueStore.open(new ConcurrentHashMap<>());
+      case "leveldb":
+        return LevelDBKeyValueStore.open(storagePath.resolve("routerdb"));
+      case "mapdb":
+        return MapDBKeyValueStore.open(
+            storagePath.resolve("routerdb"),
+            bytesIdentityFn,
+            bytesIdentityFn,
+            bytesIdentityFn,
+            bytesIdentityFn);
+      default:
+        throw new IllegalArgumentException("unsupported storage mechanism: " + storage);
+    }
+  }
+}
@@ -12,30 +12,35 @@
  */
 package net.consensys.orion.cmd;
 
-import static io.vertx.core.Vertx.vertx;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static net.consensys.orion.http.server.HttpContentType.APPLICATION_OCTET_STREAM;
 import static net.consensys.orion.http.server.HttpContentType.CBOR;
 import static net.consensys.orion.http.server.HttpContentType.JSON;
 import static net.consensys.orion.http.server.HttpContentType.ORION;
 import static net.consensys.orion.http.server.HttpContentType.TEXT;
+import static net.consensys.orion.http.server.vertx.BodyLimitHandler.limitBody;
 import static net.consensys.orion.network.HttpTlsOptionHelpers.createPemTrustOptions;
 import static net.consensys.orion.network.HttpTlsOptionHelpers.createTrustOptions;
+import static net.consensys.orion.network.TcpOptionHelpers.applyServerTcpOptions;
 
 import net.consensys.orion.config.Config;
 import net.consensys.orion.config.ConfigException;
 import net.consensys.orion.enclave.Enclave;
+import net.consensys.orion.enclave.MeasuredEnclave;
 import net.consensys.orion.enclave.EncryptedPayload;
 import net.consensys.orion.enclave.PrivacyGroupPayload;
 import net.consensys.orion.enclave.QueryPrivacyGroupPayload;
 import net.consensys.orion.enclave.sodium.FileKeyStore;
 import net.consensys.orion.enclave.sodium.SodiumEnclave;
 import net.consensys.orion.http.handler.knownnodes.KnownNodesHandler;
+import net.consensys.orion.http.handler.metrics.MetricsHandler;
 import net.consensys.orion.http.handler.partyinfo.PartyInfoHandler;
+import net.consensys.orion.http.handler.peerhealth.PeerHealthHandler;
 import net.consensys.orion.http.handler.privacy.CreatePrivacyGroupHandler;
 import net.consensys.orion.http.handler.privacy.DeletePrivacyGroupHandler;
 import net.consensys.orion.http.handler.privacy.FindPrivacyGroupHandler;
 import net.consensys.orion.http.handler.privacy.RetrievePrivacyGroupHandler;
+import net.consensys.orion.http.handler.push.PushBatchHandler;
 import net.consensys.orion.http.handler.push.PushHandler;
 import net.consensys.orion.http.handler.push.PushPrivacyGroupHandler;
 import net.consensys.orion.http.handler.receive.ReceiveHandler;
@@ -43,13 +48,26 @@ import net.consensys.orion.http.handler.send.SendHandler;
 import net.consensys.orion.http.handler.sendraw.SendRawHandler;
 import net.consensys.orion.http.handler.upcheck.UpcheckHandler;
 import net.consensys.orion.http.handler.version.VersionHandler;
+import net.consensys.orion.http.server.vertx.BlockedRouteHandler;
 import net.consensys.orion.http.server.vertx.HttpErrorHandler;
+import net.consensys.orion.http.server.vertx.HttpServerVerticle;
 import net.consensys.orion.http.server.vertx.OrionLoggerHandler;
+import net.consensys.orion.http.server.vertx.RequestMetricsHandler;
+import net.consensys.orion.metrics.BlockedEventLoopDetector;
+import net.consensys.orion.metrics.EventLoopLagProbe;
+import net.consensys.orion.metrics.MetricsRegistry;
 import net.consensys.orion.network.NetworkDiscovery;
+import net.consensys.orion.network.NodeHttpClient;
+import net.consensys.orion.network.PeerHealth;
 import net.consensys.orion.network.PersistentNetworkNodes;
 import net.consensys.orion.payload.DistributePayloadManager;
+import net.consensys.orion.storage.CachingEncryptedPayloadStorage;
 import net.consensys.orion.storage.EncryptedPayloadStorage;
+import net.consensys.orion.storage.EntityManagerKeyValueUpdater;
+import net.consensys.orion.storage.IndexedStorage;
 import net.consensys.orion.storage.JpaEntityManagerProvider;
+import net.consensys.orion.storage.KeyValueUpdater;
+import net.consensys.orion.storage.MeasuredStorage;
 import net.consensys.orion.storage.PrivacyGroupStorage;
 import net.consensys.orion.storage.QueryPrivacyGroupStorage;
 import net.consensys.orion.storage.Sha512_256StorageKeyBuilder;
@@ -57,12 +75,16 @@ import net.consensys.orion.storage.Storage;
 import net.consensys.orion.storage.StorageKeyBuilder;
 import net.consensys.orion.storage.StorageUtils;
 import net.consensys.orion.storage.Store;
+import net.consensys.orion.storage.StripedKeyValueUpdater;
+import net.consensys.orion.utils.CryptoWorkerPool;
 import net.consensys.orion.utils.TLS;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -71,12 +93,15 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.Security;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Scanner;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -84,16 +109,20 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
 import io.vertx.core.http.ClientAuth;
+import io.vertx.core.http.Http2Settings;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.net.PemKeyCertOptions;
 import io.vertx.ext.web.Router;
-import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.ext.web.handler.LoggerHandler;
 import io.vertx.ext.web.handler.ResponseContentTypeHandler;
 import org.apache.logging.log4j.LogManager;
@@ -112,6 +141,7 @@ import org.apache.tuweni.kv.ProxyKeyValueStore;
 public class Orion {
 
   static final String NAME = "orion";
+  private static final long EVENT_LOOP_LAG_INTERVAL_MS = 1000;
   private static final Logger log = LogManager.getLogger();
 
   static {
@@ -122,13 +152,20 @@ public class Orion {
     Security.addProvider(new org.bouncycastle.jce.provider.BouncyCastleProvider());
   }
 
-  private final Vertx vertx;
-  private final List<JpaEntityManagerProvider> entityManagerFactories = new ArrayList<>();
+  @Nullable
+  private Vertx vertx;
+  private final Map<KeyValueStore<Bytes, Bytes>, JpaEntityManagerProvider> entityManagerFactories =
+      new IdentityHashMap<>();
   private KeyValueStore<Bytes, Bytes> storage;
   private KeyValueStore<Bytes, Bytes> knownNodesStorage;
   private NetworkDiscovery discovery;
-  private HttpServer nodeHTTPServer;
-  private HttpServer clientHTTPServer;
+  private HttpServerVerticle nodeHTTPServer;
+  private HttpServerVerticle clientHTTPServer;
+  private final List<String> serverDeploymentIds = new CopyOnWriteArrayList<>();
+  @Nullable
+  private HttpServer metricsHTTPServer;
+  @Nullable
+  private BlockedEventLoopDetector blockedEventLoopDetector;
 
   public static void main(final String[] args) {
     final Orion orion = new Orion();
@@ -147,23 +184,39 @@ public class Orion {
   }
 
   public static void configureRoutes(
-      final Vertx vertx,
+      final NodeHttpClient nodeHttpClient,
       final PersistentNetworkNodes networkNodes,
+      final PeerHealth peerHealth,
+      final MetricsRegistry metrics,
+      final BlockedEventLoopDetector blockedEventLoopDetector,
       final Enclave enclave,
       final Storage<EncryptedPayload> storage,
       final Storage<PrivacyGroupPayload> privacyGroupStorage,
       final Storage<QueryPrivacyGroupPayload> queryPrivacyGroupStorage,
       final DistributePayloadManager distributePayloadManager,
+      final CryptoWorkerPool cryptoWorkerPool,
       final Router nodeRouter,
       final Router clientRouter,
       final Config config) {
 
     final LoggerHandler loggerHandler = new OrionLoggerHandler();
+    final BlockedRouteHandler blockedRouteHandler = new BlockedRouteHandler(blockedEventLoopDetector);
+
+    // registered first, so requests are timed from the start of their body
+    nodeRouter.route().handler(new RequestMetricsHandler(metrics, "node"));
+    clientRouter.route().handler(new RequestMetricsHandler(metrics, "client"));
 
     //Setup Orion node APIs
-    nodeRouter
-        .route()
-        .handler(BodyHandler.create())
+    // bodies are limited per route ahead of the catch-all route, which skips bodies that were already read
+    final int nodeMaxBodySize = config.nodeMaxBodySize();
+    final int partyInfoMaxBodySize =
+        config.partyInfoMaxBodySize() > 0 ? config.partyInfoMaxBodySize() : nodeMaxBodySize;
+    limitBody(nodeRouter.post("/partyinfo"), metrics, "node", partyInfoMaxBodySize);
+    for (final String path : new String[] {"/push", "/pushBatch", "/pushPrivacyGroup"}) {
+      limitBody(nodeRouter.post(path), metrics, "node", nodeMaxBodySize);
+    }
+    limitBody(nodeRouter.route(), metrics, "node", nodeMaxBodySize)
+        .handler(blockedRouteHandler)
         .handler(loggerHandler)
         .handler(ResponseContentTypeHandler.create())
         .failureHandler(new HttpErrorHandler());
@@ -174,15 +227,21 @@ public class Orion {
         new PartyInfoHandler(networkNodes));
 
     nodeRouter.post("/push").produces(TEXT.httpHeaderValue).consumes(CBOR.httpHeaderValue).handler(
-        new PushHandler(storage));
+        new PushHandler(storage, cryptoWorkerPool));
+
+    nodeRouter.post("/pushBatch").produces(CBOR.httpHeaderValue).consumes(CBOR.httpHeaderValue).handler(
+        new PushBatchHandler(storage, cryptoWorkerPool));
 
     nodeRouter.post("/pushPrivacyGroup").produces(TEXT.httpHeaderValue).consumes(CBOR.httpHeaderValue).handler(
         new PushPrivacyGroupHandler(privacyGroupStorage, queryPrivacyGroupStorage));
 
     //Setup client APIs
-    clientRouter
-        .route()
-        .handler(BodyHandler.create())
+    final int clientMaxBodySize = config.clientMaxBodySize();
+    final int sendMaxBodySize = config.sendMaxBodySize() > 0 ? config.sendMaxBodySize() : clientMaxBodySize;
+    limitBody(clientRouter.post("/send"), metrics, "client", sendMaxBodySize);
+    limitBody(clientRouter.post("/sendraw"), metrics, "client", sendMaxBodySize);
+    limitBody(clientRouter.route(), metrics, "client", clientMaxBodySize)
+        .handler(blockedRouteHandler)
         .handler(loggerHandler)
         .handler(ResponseContentTypeHandler.create())
         .failureHandler(new HttpErrorHandler());
@@ -193,7 +252,7 @@ public class Orion {
     clientRouter.get("/version").produces(TEXT.httpHeaderValue).handler(new VersionHandler());
 
     clientRouter.post("/send").produces(JSON.httpHeaderValue).consumes(JSON.httpHeaderValue).handler(
-        new SendHandler(distributePayloadManager));
+        new SendHandler(distributePayloadManager, cryptoWorkerPool));
 
     /*
       /sendraw was deprecated in 1.6
@@ -205,9 +264,9 @@ public class Orion {
         .handler(new SendRawHandler(distributePayloadManager));
 
     clientRouter.post("/receive").produces(JSON.httpHeaderValue).consumes(JSON.httpHeaderValue).handler(
-        new ReceiveHandler(enclave, storage, JSON));
+        new ReceiveHandler(enclave, storage, cryptoWorkerPool, JSON));
     clientRouter.post("/receive").produces(ORION.httpHeaderValue).consumes(ORION.httpHeaderValue).handler(
-        new ReceiveHandler(enclave, storage, ORION));
+        new ReceiveHandler(enclave, storage, cryptoWorkerPool, ORION));
     /*
       /receiveraw was deprecated in 1.6
      */
@@ -215,10 +274,10 @@ public class Orion {
         .post("/receiveraw")
         .produces(APPLICATION_OCTET_STREAM.httpHeaderValue)
         .consumes(APPLICATION_OCTET_STREAM.httpHeaderValue)
-        .handler(new ReceiveHandler(enclave, storage, APPLICATION_OCTET_STREAM));
+        .handler(new ReceiveHandler(enclave, storage, cryptoWorkerPool, APPLICATION_OCTET_STREAM));
 
     clientRouter.post("/createPrivacyGroup").consumes(JSON.httpHeaderValue).produces(JSON.httpHeaderValue).handler(
-        new CreatePrivacyGroupHandler(privacyGroupStorage, queryPrivacyGroupStorage, networkNodes, vertx, config));
+        new CreatePrivacyGroupHandler(privacyGroupStorage, queryPrivacyGroupStorage, networkNodes, nodeHttpClient));
 
     clientRouter.post("/deletePrivacyGroup").consumes(JSON.httpHeaderValue).produces(JSON.httpHeaderValue).handler(
         new DeletePrivacyGroupHandler(
@@ -226,8 +285,7 @@ public class Orion {
             queryPrivacyGroupStorage,
             networkNodes,
             enclave,
-            vertx,
-            config));
+            nodeHttpClient));
 
     clientRouter.post("/findPrivacyGroup").consumes(JSON.httpHeaderValue).produces(JSON.httpHeaderValue).handler(
         new FindPrivacyGroupHandler(queryPrivacyGroupStorage, privacyGroupStorage));
@@ -236,11 +294,13 @@ public class Orion {
         new RetrievePrivacyGroupHandler(privacyGroupStorage));
 
     clientRouter.get("/knownnodes").produces(JSON.httpHeaderValue).handler(new KnownNodesHandler(networkNodes));
+    clientRouter.get("/peerhealth").produces(JSON.httpHeaderValue).handler(new PeerHealthHandler(peerHealth));
   }
 
-  public Orion() {
-    this(vertx());
-  }
+  /**
+   * Creates a node with its own Vert.x instance, sized from the configuration when the node is run.
+   */
+  public Orion() {}
 
   public Orion(final Vertx vertx) {
     this.vertx = vertx;
@@ -252,23 +312,19 @@ public class Orion {
     if (!isRunning.compareAndSet(true, false)) {
       return;
     }
-    final CompletableFuture<Boolean> publicServerFuture = new CompletableFuture<>();
-    final CompletableFuture<Boolean> privateServerFuture = new CompletableFuture<>();
+    final List<CompletableFuture<Boolean>> stopFutures = new ArrayList<>();
+    for (final String deploymentId : serverDeploymentIds) {
+      final CompletableFuture<Boolean> serverFuture = new CompletableFuture<>();
+      vertx.undeploy(deploymentId, result -> {
+        if (result.succeeded()) {
+          serverFuture.complete(true);
+        } else {
+          serverFuture.completeExceptionally(result.cause());
+        }
+      });
+      stopFutures.add(serverFuture);
+    }
     final CompletableFuture<Boolean> discoveryFuture = new CompletableFuture<>();
-    nodeHTTPServer.close(result -> {
-      if (result.succeeded()) {
-        publicServerFuture.complete(true);
-      } else {
-        publicServerFuture.completeExceptionally(result.cause());
-      }
-    });
-    clientHTTPServer.close(result -> {
-      if (result.succeeded()) {
-        privateServerFuture.complete(true);
-      } else {
-        privateServerFuture.completeExceptionally(result.cause());
-      }
-    });
     try {
       final Future<Void> future = Future.future();
       future.setHandler(result -> {
@@ -283,12 +339,31 @@ public class Orion {
       throw new RuntimeException(e);
     }
 
+    final CompletableFuture<Boolean> metricsServerFuture = new CompletableFuture<>();
+    if (metricsHTTPServer != null) {
+      metricsHTTPServer.close(result -> {
+        if (result.succeeded()) {
+          metricsServerFuture.complete(true);
+        } else {
+          metricsServerFuture.completeExceptionally(result.cause());
+        }
+      });
+    } else {
+      metricsServerFuture.complete(true);
+    }
+
     try {
-      CompletableFuture.allOf(publicServerFuture, privateServerFuture, discoveryFuture).get();
+      stopFutures.add(discoveryFuture);
+      stopFutures.add(metricsServerFuture);
+      CompletableFuture.allOf(stopFutures.toArray(new CompletableFuture<?>[0])).get();
     } catch (final InterruptedException | ExecutionException e) {
       log.error("Error stopping vert.x HTTP servers and discovery", e);
     }
 
+    if (blockedEventLoopDetector != null) {
+      blockedEventLoopDetector.stop();
+    }
+
     final CompletableFuture<Boolean> resultFuture = new CompletableFuture<>();
 
     vertx.close(result -> {
@@ -321,7 +396,7 @@ public class Orion {
       }
     }
 
-    for (JpaEntityManagerProvider provider : entityManagerFactories) {
+    for (JpaEntityManagerProvider provider : entityManagerFactories.values()) {
       provider.close();
     }
   }
@@ -375,6 +450,7 @@ public class Orion {
 
     // create our storage engine
     storage = createStorage(config.storage(), workDir, "routerdb");
+    final KeyValueUpdater storageUpdater = createStorageUpdater(storage);
     knownNodesStorage = createStorage(config.knownNodesStorage(), workDir, "nodedb");
     if (clearKnownNodes) {
       AsyncCompletion completion = knownNodesStorage.clearAsync();
@@ -394,7 +470,14 @@ public class Orion {
     final PersistentNetworkNodes networkNodes =
         new PersistentNetworkNodes(config, keyStore.nodeKeys(), StorageUtils.convertToPubKeyStore(knownNodesStorage));
 
-    final Enclave enclave = new SodiumEnclave(keyStore);
+    final MetricsRegistry metrics = new MetricsRegistry();
+    blockedEventLoopDetector = new BlockedEventLoopDetector(
+        metrics,
+        config.eventLoopBlockThreshold(),
+        config.eventLoopBlockStackInterval());
+    final Enclave enclave = new MeasuredEnclave(
+        new SodiumEnclave(keyStore, config.parallelKeyWrappingThreshold(), config.sharedKeyCacheSize()),
+        metrics);
 
     if ("strict".equals(config.tls())) {
       // verify server TLS cert and key
@@ -419,42 +502,97 @@ public class Orion {
       createSelfSignedCertificateIfMissingAndValidate(tlsServerKey, tlsServerCert, nodeUrl, "Client-to-Orion server");
     }
 
+    if (vertx == null) {
+      vertx = Vertx.vertx(vertxOptions(config));
+      if ("on".equals(config.nativeTransport()) && !vertx.isNativeTransportEnabled()) {
+        log.warn("native transport unavailable, using NIO");
+      }
+    }
+
     // Vertx routers
     final Router nodeRouter = Router.router(vertx).exceptionHandler(log::error);
     final Router clientRouter = Router.router(vertx).exceptionHandler(log::error);
 
     // controller dependencies
     final StorageKeyBuilder keyBuilder = new Sha512_256StorageKeyBuilder();
-    final EncryptedPayloadStorage encryptedStorage = new EncryptedPayloadStorage(storage, keyBuilder);
-    final QueryPrivacyGroupStorage queryPrivacyGroupStorage = new QueryPrivacyGroupStorage(storage, enclave);
-    final PrivacyGroupStorage privacyGroupStorage = new PrivacyGroupStorage(storage, enclave);
+    final String backend = config.storage().split(":", 2)[0].toLowerCase();
+    Storage<EncryptedPayload> encryptedStorage =
+        new MeasuredStorage<>(new EncryptedPayloadStorage(storage, keyBuilder), "payload", backend, metrics);
+    if (config.payloadCacheSize() > 0) {
+      final CachingEncryptedPayloadStorage cachingStorage =
+          new CachingEncryptedPayloadStorage(encryptedStorage, config.payloadCacheSize());
+      registerCacheMetrics(metrics, cachingStorage);
+      encryptedStorage = cachingStorage;
+    }
+    Storage<QueryPrivacyGroupPayload> queryPrivacyGroupStorage = new MeasuredStorage<>(
+        new QueryPrivacyGroupStorage(storage, enclave, storageUpdater),
+        "queryprivacygroup",
+        backend,
+        metrics);
+    Storage<PrivacyGroupPayload> privacyGroupStorage =
+        new MeasuredStorage<>(new PrivacyGroupStorage(storage, enclave), "privacygroup", backend, metrics);
+    // an SQL database may be shared by several nodes, and an index would never see the writes of the others
+    if (!"sql".equals(backend)) {
+      final IndexedStorage<QueryPrivacyGroupPayload> indexedQueryPrivacyGroupStorage =
+          new IndexedStorage<>(queryPrivacyGroupStorage);
+      final IndexedStorage<PrivacyGroupPayload> indexedPrivacyGroupStorage = new IndexedStorage<>(privacyGroupStorage);
+      final Gauge indexedRecords =
+          metrics.gauge("orion_indexed_records", "Records held in memory, by storage", "storage");
+      indexedRecords.setChild(MetricsRegistry.valueOf(indexedQueryPrivacyGroupStorage::size), "queryprivacygroup");
+      indexedRecords.setChild(MetricsRegistry.valueOf(indexedPrivacyGroupStorage::size), "privacygroup");
+      queryPrivacyGroupStorage = indexedQueryPrivacyGroupStorage;
+      privacyGroupStorage = indexedPrivacyGroupStorage;
+    }
+    final CryptoWorkerPool cryptoWorkerPool = new CryptoWorkerPool(vertx, config.cryptoWorkerPoolSize());
+    metrics.gauge("orion_crypto_tasks_pending", "Crypto tasks waiting for a worker thread", cryptoWorkerPool::pending);
+    metrics.gauge("orion_crypto_tasks_in_flight", "Crypto tasks running", cryptoWorkerPool::inFlight);
+    metrics.gauge("orion_known_nodes", "Nodes known to this node", () -> networkNodes.nodeURIs().size());
+    final NodeHttpClient nodeHttpClient = NodeHttpClient.create(vertx, config);
+    final PeerHealth peerHealth = new PeerHealth(config.peerFailureThreshold(), config.peerRetryInterval());
     final DistributePayloadManager distributePayloadManager = new DistributePayloadManager(
         vertx,
         config,
+        nodeHttpClient,
+        peerHealth,
+        metrics,
         enclave,
         encryptedStorage,
         privacyGroupStorage,
         queryPrivacyGroupStorage,
-        networkNodes);
+        networkNodes,
+        storage,
+        storageUpdater,
+        cryptoWorkerPool);
 
     configureRoutes(
-        vertx,
+        nodeHttpClient,
         networkNodes,
+        peerHealth,
+        metrics,
+        blockedEventLoopDetector,
         enclave,
         encryptedStorage,
         privacyGroupStorage,
         queryPrivacyGroupStorage,
         distributePayloadManager,
+        cryptoWorkerPool,
         nodeRouter,
         clientRouter,
         config);
 
     // asynchronously start the vertx http server for public API
-    final CompletableFuture<Boolean> nodeFuture = new CompletableFuture<>();
     final HttpServerOptions options = new HttpServerOptions()
         .setPort(config.nodePort())
         .setHost(config.nodeNetworkInterface())
         .setCompressionSupported(true);
+    applyServerTcpOptions(config, options);
+
+    final boolean http2 = "http2".equals(config.nodeHttpVersion());
+    if (http2) {
+      // h2c is accepted on a plain port, ALPN offers h2 next to HTTP/1.1 when TLS is on
+      options.setInitialSettings(
+          new Http2Settings().setMaxConcurrentStreams(config.nodeHttp2MaxConcurrentStreams()));
+    }
 
     if ("strict".equals(config.tls())) {
       final Path tlsServerCert = config.tlsServerCert();
@@ -463,6 +601,7 @@ public class Orion {
           new PemKeyCertOptions().setKeyPath(tlsServerKey.toString()).setCertPath(tlsServerCert.toString());
 
       options.setSsl(true);
+      options.setUseAlpn(http2);
       options.setClientAuth(ClientAuth.REQUIRED);
       options.setPemKeyCertOptions(pemKeyCertOptions);
 
@@ -474,12 +613,11 @@ public class Orion {
     }
 
     try {
-      nodeHTTPServer =
-          vertx.createHttpServer(options).requestHandler(nodeRouter::accept).exceptionHandler(log::error).listen(
-              completeFutureInHandler(nodeFuture));
-      final CompletableFuture<Boolean> clientFuture = new CompletableFuture<>();
+      final CompletableFuture<HttpServerVerticle> nodeFuture =
+          deployHttpServer(options, nodeRouter, config.nodeServerInstances());
       final HttpServerOptions clientOptions =
           new HttpServerOptions().setPort(config.clientPort()).setHost(config.clientNetworkInterface());
+      applyServerTcpOptions(config, clientOptions);
 
       if ("strict".equals(config.clientConnectionTls())) {
         final Path tlsServerCert = config.clientConnectionTlsServerCert();
@@ -497,14 +635,13 @@ public class Orion {
             config.clientConnectionTlsKnownClients()).ifPresent(clientOptions::setTrustOptions);
       }
 
-      clientHTTPServer = vertx
-          .createHttpServer(clientOptions)
-          .requestHandler(clientRouter::accept)
-          .exceptionHandler(log::error)
-          .listen(completeFutureInHandler(clientFuture));
+      final CompletableFuture<HttpServerVerticle> clientFuture =
+          deployHttpServer(clientOptions, clientRouter, config.clientServerInstances());
 
       // wait for node and client http server to start successfully
       CompletableFuture.allOf(nodeFuture, clientFuture).get();
+      nodeHTTPServer = nodeFuture.get();
+      clientHTTPServer = clientFuture.get();
       // if there is not a node url in the config, then grab the actual port and use it to set the node url.
       if (!config.nodeUrl().isPresent()) {
         URI nodeURI =
@@ -513,7 +650,7 @@ public class Orion {
       }
       final CompletableFuture<Boolean> networkDiscoveryFuture = new CompletableFuture<>();
       // start network discovery of other peers
-      discovery = new NetworkDiscovery(networkNodes, config);
+      discovery = new NetworkDiscovery(networkNodes, config, nodeHttpClient, peerHealth, metrics);
       vertx.deployVerticle(discovery, result -> {
         if (result.succeeded()) {
           networkDiscoveryFuture.complete(true);
@@ -522,6 +659,9 @@ public class Orion {
         }
       });
       CompletableFuture.allOf(networkDiscoveryFuture).get();
+
+      startMetrics(config, metrics);
+      blockedEventLoopDetector.start(vertx);
     } catch (final ExecutionException | URISyntaxException e) {
       throw new OrionStartException("Orion failed to start: " + e.getCause().getMessage(), e.getCause());
     } catch (final InterruptedException e) {
@@ -536,6 +676,103 @@ public class Orion {
     isRunning.set(true);
   }
 
+  private static VertxOptions vertxOptions(final Config config) {
+    final VertxOptions options = new VertxOptions().setPreferNativeTransport("on".equals(config.nativeTransport()));
+    if (config.eventLoopThreads() > 0) {
+      options.setEventLoopPoolSize(config.eventLoopThreads());
+    }
+    if (config.workerThreads() > 0) {
+      options.setWorkerPoolSize(config.workerThreads());
+    }
+    return options;
+  }
+
+  /**
+   * Deploys instances of a server sharing its port, each serving its connections on its own event loop.
+   *
+   * @return the first instance, which reports the port the instances listen on
+   */
+  private CompletableFuture<HttpServerVerticle> deployHttpServer(
+      final HttpServerOptions options,
+      final Router router,
+      final int instances) {
+    final HttpServerOptions serverOptions = new HttpServerOptions(options);
+    if (instances > 1 && serverOptions.getPort() == 0) {
+      // Vert.x only shares the port it is given, not the one picked when binding the first instance
+      serverOptions.setPort(freePort(serverOptions.getHost()));
+    }
+    final List<HttpServerVerticle> servers = new CopyOnWriteArrayList<>();
+    final CompletableFuture<HttpServerVerticle> future = new CompletableFuture<>();
+    vertx.deployVerticle(() -> {
+      final HttpServerVerticle server = new HttpServerVerticle(serverOptions, router::accept);
+      servers.add(server);
+      return server;
+    }, new DeploymentOptions().setInstances(instances), result -> {
+      if (result.succeeded()) {
+        serverDeploymentIds.add(result.result());
+        future.complete(servers.get(0));
+      } else {
+        future.completeExceptionally(result.cause());
+      }
+    });
+    return future;
+  }
+
+  private static int freePort(final String host) {
+    try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getByName(host))) {
+      return socket.getLocalPort();
+    } catch (final IOException e) {
+      throw new OrionStartException("Couldn't find a free port on " + host + ": " + e.getMessage(), e);
+    }
+  }
+
+  private static void registerCacheMetrics(final MetricsRegistry metrics, final CachingEncryptedPayloadStorage cache) {
+    final Counter requests = metrics.counter(
+        "orion_payload_cache_requests_total",
+        "Payload reads served by the cache, by result",
+        "result");
+    requests.setChild(MetricsRegistry.countOf(() -> cache.stats().hitCount()), "hit");
+    requests.setChild(MetricsRegistry.countOf(() -> cache.stats().missCount()), "miss");
+    metrics.counter(
+        "orion_payload_cache_evictions_total",
+        "Payloads evicted from the cache",
+        () -> cache.stats().evictionCount());
+    metrics.gauge("orion_payload_cache_size_bytes", "Approximate size of the cached payloads", cache::size);
+  }
+
+  private void startMetrics(final Config config, final MetricsRegistry metrics)
+      throws ExecutionException, InterruptedException {
+    if (!"on".equals(config.metrics())) {
+      return;
+    }
+
+    // one probe for each event loop
+    final CompletableFuture<Boolean> probesFuture = new CompletableFuture<>();
+    vertx.deployVerticle(
+        () -> new EventLoopLagProbe(metrics, EVENT_LOOP_LAG_INTERVAL_MS),
+        new DeploymentOptions().setInstances(vertxOptions(config).getEventLoopPoolSize()),
+        result -> {
+          if (result.succeeded()) {
+            probesFuture.complete(true);
+          } else {
+            probesFuture.completeExceptionally(result.cause());
+          }
+        });
+
+    final Router metricsRouter = Router.router(vertx).exceptionHandler(log::error);
+    metricsRouter.get("/metrics").handler(new MetricsHandler(metrics));
+    final HttpServerOptions metricsOptions =
+        new HttpServerOptions().setPort(config.metricsPort()).setHost(config.metricsNetworkInterface());
+    final CompletableFuture<Boolean> metricsFuture = new CompletableFuture<>();
+    metricsHTTPServer = vertx
+        .createHttpServer(metricsOptions)
+        .requestHandler(metricsRouter::accept)
+        .exceptionHandler(log::error)
+        .listen(completeFutureInHandler(metricsFuture));
+    CompletableFuture.allOf(probesFuture, metricsFuture).get();
+    log.info("serving metrics on {}:{}", config.metricsNetworkInterface(), metricsHTTPServer.actualPort());
+  }
+
   private static void createSelfSignedCertificateIfMissingAndValidate(
       final Path tlsKey,
       final Path tlsCert,
@@ -566,6 +803,9 @@ public class Orion {
     final Properties properties = new Properties();
     properties.setProperty("http-node-port", String.valueOf(nodePort));
     properties.setProperty("http-client-port", String.valueOf(clientPort));
+    if (metricsHTTPServer != null) {
+      properties.setProperty("http-metrics-port", String.valueOf(metricsHTTPServer.actualPort()));
+    }
 
     log.info("Writing orion.ports file: {}, with contents: {}", portsFile.getAbsolutePath(), properties);
     try (final FileOutputStream fileOutputStream = new FileOutputStream(portsFile)) {
@@ -604,8 +844,7 @@ public class Orion {
       }
     } else if (storage.toLowerCase().startsWith("sql")) {
       final JpaEntityManagerProvider jpaEntityManagerProvider = new JpaEntityManagerProvider(dbName);
-      entityManagerFactories.add(jpaEntityManagerProvider);
-      return ProxyKeyValueStore.open(
+      final KeyValueStore<Bytes, Bytes> sqlStore = ProxyKeyValueStore.open(
           EntityManagerKeyValueStore.open(jpaEntityManagerProvider::createEntityManager, Store.class, Store::getKey),
           Base64::decode,
           Base64::encode,
@@ -616,6 +855,8 @@ public class Orion {
             store.setValue(value.toArrayUnsafe());
             return store;
           });
+      entityManagerFactories.put(sqlStore, jpaEntityManagerProvider);
+      return sqlStore;
     } else if (storage.toLowerCase().equals("memory")) {
       return MapKeyValueStore.open(new ConcurrentHashMap<>());
     } else {
@@ -623,6 +864,16 @@ public class Orion {
     }
   }
 
+  private KeyValueUpdater createStorageUpdater(final KeyValueStore<Bytes, Bytes> store) {
+    final JpaEntityManagerProvider jpaEntityManagerProvider = entityManagerFactories.get(store);
+    if (jpaEntityManagerProvider != null) {
+      // lock rows in the database, in case other nodes share it
+      return new StripedKeyValueUpdater(
+          new EntityManagerKeyValueUpdater(jpaEntityManagerProvider::createEntityManager));
+    }
+    return new StripedKeyValueUpdater(store);
+  }
+
   @SuppressWarnings("unused")
   private void generateKeyPairs(
       final PrintStream out,
@@ -162,6 +162,165 @@ public class Config {
     return getString("clientnetworkinterface");
   }
 
+  /**
+   * Number of instances of the node API server. Instances share the node port, and each serves its connections on
+   * its own event loop.
+   *
+   * <p>
+   * <strong>Default:</strong> 1
+   *
+   * @return the number of node API server instances
+   */
+  public int nodeServerInstances() {
+    return getInteger("nodeserverinstances");
+  }
+
+  /**
+   * Number of instances of the client API server. Instances share the client port, and each serves its connections
+   * on its own event loop.
+   *
+   * <p>
+   * <strong>Default:</strong> 1
+   *
+   * @return the number of client API server instances
+   */
+  public int clientServerInstances() {
+    return getInteger("clientserverinstances");
+  }
+
+  /**
+   * Number of event loop threads, which handle network connections and requests. A value of 0 uses twice the number
+   * of available processors.
+   *
+   * <p>
+   * <strong>Default:</strong> 0
+   *
+   * @return the number of event loop threads
+   */
+  public int eventLoopThreads() {
+    return getInteger("eventloopthreads");
+  }
+
+  /**
+   * Number of worker threads, which run blocking tasks, including crypto work when <code>cryptoworkerpoolsize</code>
+   * is 0. A value of 0 uses the Vert.x default of 20.
+   *
+   * <p>
+   * <strong>Default:</strong> 0
+   *
+   * @return the number of worker threads
+   */
+  public int workerThreads() {
+    return getInteger("workerthreads");
+  }
+
+  /**
+   * Whether the native epoll transport is used for network I/O. Options:
+   *
+   * <ul>
+   * <li><strong>on:</strong> The native transport is used when it can be loaded, which is on Linux only. NIO is used
+   * otherwise.
+   * <li><strong>off:</strong> NIO is always used.
+   * </ul>
+   *
+   * <strong>Default:</strong> "on"
+   *
+   * @return the native transport mode
+   */
+  public String nativeTransport() {
+    return getString("nativetransport").toLowerCase();
+  }
+
+  /**
+   * Whether TCP_NODELAY is set on the connections of the node and client ports and on connections to other nodes, so
+   * small writes are sent without waiting to be coalesced. Options:
+   *
+   * <ul>
+   * <li><strong>on:</strong> Nagle's algorithm is disabled.
+   * <li><strong>off:</strong> Nagle's algorithm is enabled.
+   * </ul>
+   *
+   * <strong>Default:</strong> "on"
+   *
+   * @return the TCP_NODELAY mode
+   */
+  public String tcpNoDelay() {
+    return getString("tcpnodelay").toLowerCase();
+  }
+
+  /**
+   * Whether TCP Fast Open is used on the node and client ports and on connections to other nodes, which saves a round
+   * trip when reconnecting. Only applies with the native transport. Options:
+   *
+   * <ul>
+   * <li><strong>off:</strong> TCP Fast Open is not used.
+   * <li><strong>on:</strong> TCP Fast Open is used.
+   * </ul>
+   *
+   * <strong>Default:</strong> "off"
+   *
+   * @return the TCP Fast Open mode
+   */
+  public String tcpFastOpen() {
+    return getString("tcpfastopen").toLowerCase();
+  }
+
+  /**
+   * Whether SO_REUSEPORT is set on the node and client ports, letting the kernel balance connections over the server
+   * instances. Only applies with the native transport. Options:
+   *
+   * <ul>
+   * <li><strong>off:</strong> SO_REUSEPORT is not set.
+   * <li><strong>on:</strong> SO_REUSEPORT is set.
+   * </ul>
+   *
+   * <strong>Default:</strong> "off"
+   *
+   * @return the SO_REUSEPORT mode
+   */
+  public String tcpReusePort() {
+    return getString("tcpreuseport").toLowerCase();
+  }
+
+  /**
+   * Size in bytes of the socket receive buffers of the node and client ports and of connections to other nodes. A
+   * value of 0 uses the operating system default.
+   *
+   * <p>
+   * <strong>Default:</strong> 0
+   *
+   * @return the size of the socket receive buffers
+   */
+  public int tcpReceiveBufferSize() {
+    return getInteger("tcpreceivebuffersize");
+  }
+
+  /**
+   * Size in bytes of the socket send buffers of the node and client ports and of connections to other nodes. A value
+   * of 0 uses the operating system default.
+   *
+   * <p>
+   * <strong>Default:</strong> 0
+   *
+   * @return the size of the socket send buffers
+   */
+  public int tcpSendBufferSize() {
+    return getInteger("tcpsendbuffersize");
+  }
+
+  /**
+   * Maximum number of pending connections on the node and client ports. A value of 0 uses the Netty default, which
+   * is the operating system limit.
+   *
+   * <p>
+   * <strong>Default:</strong> 0
+   *
+   * @return the accept backlog of the node and client ports
+   */
+  public int tcpAcceptBacklog() {
+    return getInteger("tcpacceptbacklog");
+  }
+
   /**
    * Path to the lib sodium shared library.
    *
@@ -270,6 +429,467 @@ public class Config {
     return Optional.empty();
   }
 
+  /**
+   * Number of recipients above which the payload key is encrypted for each recipient in parallel when sending. Smaller
+   * sends are encrypted serially on the calling thread. A value of 0 disables parallel encryption.
+   *
+   * <p>
+   * <strong>Default:</strong> 32
+   *
+   * @return the recipient count threshold for parallel key encryption
+   */
+  public int parallelKeyWrappingThreshold() {
+    return getInteger("parallelkeywrappingthreshold");
+  }
+
+  /**
+   * Maximum number of precomputed shared keys between local and remote public keys to keep in memory. Shared keys are
+   * reused to encrypt and decrypt payload keys exchanged with the same party, and the least recently used ones are
+   * destroyed when the limit is reached. A value of 0 disables the cache.
+   *
+   * <p>
+   * <strong>Default:</strong> 1024
+   *
+   * @return the maximum number of cached shared keys
+   */
+  public int sharedKeyCacheSize() {
+    return getInteger("sharedkeycachesize");
+  }
+
+  /**
+   * Number of threads dedicated to encrypting, decrypting and serializing payloads off the event loop. A value of 0
+   * runs this work on the shared Vert.x worker pool.
+   *
+   * <p>
+   * <strong>Default:</strong> 0
+   *
+   * @return the number of crypto worker threads
+   */
+  public int cryptoWorkerPoolSize() {
+    return getInteger("cryptoworkerpoolsize");
+  }
+
+  /**
+   * Maximum size in bytes of the request body accepted by the node API, for routes without a limit of their own.
+   * Larger requests are rejected with a 413 status, before their body is read when they declare its length. A value
+   * of 0 accepts bodies of any size.
+   *
+   * <p>
+   * <strong>Default:</strong> 67108864
+   *
+   * @return the maximum node request body size
+   */
+  public int nodeMaxBodySize() {
+    return getInteger("nodemaxbodysize");
+  }
+
+  /**
+   * Maximum size in bytes of the request body accepted by the <code>/partyinfo</code> node API. A value of 0 uses
+   * <code>nodemaxbodysize</code>.
+   *
+   * <p>
+   * <strong>Default:</strong> 8388608
+   *
+   * @return the maximum party info request body size
+   */
+  public int partyInfoMaxBodySize() {
+    return getInteger("partyinfomaxbodysize");
+  }
+
+  /**
+   * Maximum size in bytes of the request body accepted by the client API, for routes without a limit of their own.
+   * Larger requests are rejected with a 413 status, before their body is read when they declare its length. A value
+   * of 0 accepts bodies of any size.
+   *
+   * <p>
+   * <strong>Default:</strong> 67108864
+   *
+   * @return the maximum client request body size
+   */
+  public int clientMaxBodySize() {
+    return getInteger("clientmaxbodysize");
+  }
+
+  /**
+   * Maximum size in bytes of the request body accepted by the <code>/send</code> and <code>/sendraw</code> client
+   * APIs. A value of 0 uses <code>clientmaxbodysize</code>.
+   *
+   * <p>
+   * <strong>Default:</strong> 33554432
+   *
+   * @return the maximum send request body size
+   */
+  public int sendMaxBodySize() {
+    return getInteger("sendmaxbodysize");
+  }
+
+  /**
+   * Time in milliseconds to wait for more payloads to push to the same peer, so they are sent together in a single
+   * <code>/pushBatch</code> request. A value of 0 pushes each payload on its own.
+   *
+   * <p>
+   * <strong>Default:</strong> 0
+   *
+   * @return the push batching window
+   */
+  public int pushBatchWindow() {
+    return getInteger("pushbatchwindow");
+  }
+
+  /**
+   * Maximum number of payloads pushed to a peer in a single batch. A full batch is sent without waiting for the end of
+   * its window.
+   *
+   * <p>
+   * <strong>Default:</strong> 64
+   *
+   * @return the maximum number of payloads per push batch
+   */
+  public int pushBatchMaxItems() {
+    return getInteger("pushbatchmaxitems");
+  }
+
+  /**
+   * Maximum size in bytes of the payloads pushed to a peer in a single batch. A full batch is sent without waiting for
+   * the end of its window.
+   *
+   * <p>
+   * <strong>Default:</strong> 4194304
+   *
+   * @return the maximum size of a push batch
+   */
+  public int pushBatchMaxBytes() {
+    return getInteger("pushbatchmaxbytes");
+  }
+
+  /**
+   * HTTP version used between nodes. Options:
+   *
+   * <ul>
+   * <li><strong>http1:</strong> Nodes talk HTTP/1.1 to each other.
+   * <li><strong>http2:</strong> Outbound requests are multiplexed over HTTP/2, negotiated with ALPN when TLS is on and
+   * with an h2c upgrade otherwise. Peers that only speak HTTP/1.1 are still reached over HTTP/1.1.
+   * </ul>
+   *
+   * <strong>Default:</strong> "http1"
+   *
+   * @return the HTTP version used between nodes
+   */
+  public String nodeHttpVersion() {
+    return getString("nodehttpversion").toLowerCase();
+  }
+
+  /**
+   * Maximum number of concurrent HTTP/2 streams on a node to node connection, both accepted by the node server and
+   * opened by the node client. Only used when nodeHttpVersion is "http2".
+   *
+   * <p>
+   * <strong>Default:</strong> 100
+   *
+   * @return the maximum number of concurrent HTTP/2 streams per connection
+   */
+  public int nodeHttp2MaxConcurrentStreams() {
+    return getInteger("nodehttp2maxconcurrentstreams");
+  }
+
+  /**
+   * Maximum number of connections the node client opens to a single peer. All requests to other nodes share the same
+   * client.
+   *
+   * <p>
+   * <strong>Default:</strong> 5
+   *
+   * @return the maximum number of connections per peer
+   */
+  public int nodeClientMaxPoolSize() {
+    return getInteger("nodeclientmaxpoolsize");
+  }
+
+  /**
+   * Maximum number of requests to a single peer waiting for a connection. Further requests fail until the queue drains.
+   *
+   * <p>
+   * <strong>Default:</strong> 32
+   *
+   * @return the maximum number of requests waiting for a connection to a peer
+   */
+  public int nodeClientMaxWaitQueueSize() {
+    return getInteger("nodeclientmaxwaitqueuesize");
+  }
+
+  /**
+   * Time in seconds an unused connection to a peer is kept open for later requests. A value of 0 closes connections
+   * after each request.
+   *
+   * <p>
+   * <strong>Default:</strong> 60
+   *
+   * @return the keep-alive timeout of connections to peers
+   */
+  public int nodeClientKeepAliveTimeout() {
+    return getInteger("nodeclientkeepalivetimeout");
+  }
+
+  /**
+   * Maximum number of HTTP/1.1 requests pipelined on a connection to a peer. A value of 0 disables pipelining.
+   *
+   * <p>
+   * <strong>Default:</strong> 0
+   *
+   * @return the pipelining limit of connections to peers
+   */
+  public int nodeClientPipeliningLimit() {
+    return getInteger("nodeclientpipelininglimit");
+  }
+
+  /**
+   * Time in milliseconds to wait for a connection to a peer to be established.
+   *
+   * <p>
+   * <strong>Default:</strong> 1500
+   *
+   * @return the connect timeout to peers
+   */
+  public int nodeClientConnectTimeout() {
+    return getInteger("nodeclientconnecttimeout");
+  }
+
+  /**
+   * Time in seconds after which a connection to a peer without any traffic is closed.
+   *
+   * <p>
+   * <strong>Default:</strong> 300
+   *
+   * @return the idle timeout of connections to peers
+   */
+  public int nodeClientIdleTimeout() {
+    return getInteger("nodeclientidletimeout");
+  }
+
+  /**
+   * Time in milliseconds to wait for a peer to respond to a payload or privacy group push. A value of 0 waits
+   * indefinitely.
+   *
+   * <p>
+   * <strong>Default:</strong> 10000
+   *
+   * @return the request timeout to peers
+   */
+  public int nodeClientRequestTimeout() {
+    return getInteger("nodeclientrequesttimeout");
+  }
+
+  /**
+   * Time in milliseconds between the first calls to <code>/partyinfo</code> on a peer. The interval doubles after each
+   * call up to <code>discoverymaxrefreshinterval</code>, and drops back to this value when new nodes are learned.
+   *
+   * <p>
+   * <strong>Default:</strong> 500
+   *
+   * @return the minimum discovery interval
+   */
+  public int discoveryMinRefreshInterval() {
+    return getInteger("discoveryminrefreshinterval");
+  }
+
+  /**
+   * Time in milliseconds between calls to <code>/partyinfo</code> on a peer once the network is stable, or once the
+   * peer has been failing for a while.
+   *
+   * <p>
+   * <strong>Default:</strong> 60000
+   *
+   * @return the maximum discovery interval
+   */
+  public int discoveryMaxRefreshInterval() {
+    return getInteger("discoverymaxrefreshinterval");
+  }
+
+  /**
+   * Percentage by which each discovery interval is randomly lengthened or shortened, so nodes started together do not
+   * call their peers at the same time.
+   *
+   * <p>
+   * <strong>Default:</strong> 20
+   *
+   * @return the discovery interval jitter in percent
+   */
+  public int discoveryJitter() {
+    return getInteger("discoveryjitter");
+  }
+
+  /**
+   * Maximum number of <code>/partyinfo</code> calls in flight at once. Further calls wait for one of them to complete.
+   *
+   * <p>
+   * <strong>Default:</strong> 16
+   *
+   * @return the maximum number of concurrent discovery calls
+   */
+  public int discoveryMaxConcurrentRequests() {
+    return getInteger("discoverymaxconcurrentrequests");
+  }
+
+  /**
+   * Number of consecutive failed requests to a peer after which it is considered unreachable. Payloads sent to an
+   * unreachable peer fail immediately instead of waiting for the connection to time out. A value of 0 always sends
+   * payloads to peers.
+   *
+   * <p>
+   * <strong>Default:</strong> 3
+   *
+   * @return the number of failures after which a peer is unreachable
+   */
+  public int peerFailureThreshold() {
+    return getInteger("peerfailurethreshold");
+  }
+
+  /**
+   * Time in milliseconds after which a request is sent again to an unreachable peer, to find out whether it is back.
+   * Discovery also marks the peer reachable again as soon as it answers <code>/partyinfo</code>.
+   *
+   * <p>
+   * <strong>Default:</strong> 5000
+   *
+   * @return the retry interval for unreachable peers
+   */
+  public int peerRetryInterval() {
+    return getInteger("peerretryinterval");
+  }
+
+  /**
+   * How payloads sent through <code>/send</code> and <code>/sendraw</code> are delivered to peers. Options:
+   *
+   * <ul>
+   * <li><strong>sync:</strong> The payload is pushed to every peer before responding, and the request fails if any
+   * push fails.
+   * <li><strong>async:</strong> The payload is stored locally and queued for each peer before responding. Queued
+   * payloads are pushed in the background, in order for each peer, and are kept across restarts until delivered.
+   * </ul>
+   *
+   * <strong>Default:</strong> "sync"
+   *
+   * @return the delivery mode
+   */
+  public String deliveryMode() {
+    return getString("deliverymode").toLowerCase();
+  }
+
+  /**
+   * Number of times a queued payload is pushed to a peer before it is dropped, when delivering asynchronously.
+   *
+   * <p>
+   * <strong>Default:</strong> 10
+   *
+   * @return the maximum number of delivery attempts
+   */
+  public int deliveryMaxAttempts() {
+    return getInteger("deliverymaxattempts");
+  }
+
+  /**
+   * Time in milliseconds before a failed asynchronous delivery is first retried. The delay doubles after each failure
+   * up to <code>deliverymaxretryinterval</code>.
+   *
+   * <p>
+   * <strong>Default:</strong> 1000
+   *
+   * @return the initial delivery retry interval
+   */
+  public int deliveryRetryInterval() {
+    return getInteger("deliveryretryinterval");
+  }
+
+  /**
+   * Maximum time in milliseconds between retries of a failed asynchronous delivery.
+   *
+   * <p>
+   * <strong>Default:</strong> 60000
+   *
+   * @return the maximum delivery retry interval
+   */
+  public int deliveryMaxRetryInterval() {
+    return getInteger("deliverymaxretryinterval");
+  }
+
+  /**
+   * Whether metrics are served in the Prometheus text format on <code>/metrics</code>, on their own port. Options:
+   *
+   * <ul>
+   * <li><strong>off:</strong> Metrics are not served.
+   * <li><strong>on:</strong> Metrics are served on <code>metricsport</code>.
+   * </ul>
+   *
+   * <strong>Default:</strong> "off"
+   *
+   * @return the metrics mode
+   */
+  public String metrics() {
+    return getString("metrics").toLowerCase();
+  }
+
+  /**
+   * Port to serve metrics on.
+   *
+   * <p>
+   * <strong>Default:</strong> 8890
+   *
+   * @return the port to serve metrics on
+   */
+  public int metricsPort() {
+    return getInteger("metricsport");
+  }
+
+  /**
+   * Network interface to serve metrics on.
+   *
+   * <p>
+   * <strong>Default:</strong> "127.0.0.1"
+   *
+   * @return the network interface to serve metrics on
+   */
+  public String metricsNetworkInterface() {
+    return getString("metricsnetworkinterface");
+  }
+
+  /**
+   * Time in milliseconds a task may run on an event loop before it is reported as blocking it. Blocking tasks are
+   * counted in the metrics by route and call site, and their stacks are logged. A value of 0 disables the detection.
+   *
+   * <p>
+   * <strong>Default:</strong> 200
+   *
+   * @return the event loop blocking threshold
+   */
+  public int eventLoopBlockThreshold() {
+    return getInteger("eventloopblockthreshold");
+  }
+
+  /**
+   * Minimum time in milliseconds between two stacks logged for tasks blocking an event loop at the same call site.
+   *
+   * <p>
+   * <strong>Default:</strong> 60000
+   *
+   * @return the interval between logged stacks of the same call site
+   */
+  public int eventLoopBlockStackInterval() {
+    return getInteger("eventloopblockstackinterval");
+  }
+
+  /**
+   * Maximum size in bytes of the payloads kept in memory for repeated retrieval. Recently stored and retrieved
+   * payloads are served from memory without reading or deserializing them again. A value of 0 disables the cache.
+   *
+   * <p>
+   * <strong>Default:</strong> 33554432
+   *
+   * @return the maximum size of the payload cache
+   */
+  public int payloadCacheSize() {
+    return getInteger("payloadcachesize");
+  }
+
   /**
    * Storage engine used to save payloads and related information. Options:
    *
@@ -280,6 +900,11 @@ public class Config {
    * <li>memory - Contents are cleared when Orion exits</li>
    * </ul>
    *
+   * Privacy groups are kept in memory once read, except with <code>sql</code> storage. An SQL database may be shared
+   * by several nodes, so privacy groups are then read from it every time, and changes made by other nodes are seen at
+   * once.
+   *
+   * <p>
    * <strong>Default:</strong> "leveldb"
    *
    * @return Storage string specifying a storage engine and/or storage path
@@ -592,6 +1217,85 @@ public class Config {
         "Network interface to which the Ethereum client API will bind.",
         null);
 
+    schemaBuilder.addInteger(
+        "nodeserverinstances",
+        1,
+        "Number of instances of the node API server, each serving its connections on its own event loop.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "clientserverinstances",
+        1,
+        "Number of instances of the client API server, each serving its connections on its own event loop.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "eventloopthreads",
+        0,
+        "Number of event loop threads. A value of 0 uses twice the number of available processors.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "workerthreads",
+        0,
+        "Number of worker threads running blocking tasks. A value of 0 uses the Vert.x default of 20.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addString(
+        "nativetransport",
+        "on",
+        "Whether the native epoll transport is used for network I/O. Options:\n"
+            + "\n"
+            + "   - on: The native transport is used when it can be loaded, on Linux only. NIO is used otherwise.\n"
+            + "   - off: NIO is always used.",
+        PropertyValidator.anyOfIgnoreCase("on", "off"));
+
+    schemaBuilder.addString(
+        "tcpnodelay",
+        "on",
+        "Whether TCP_NODELAY is set on the node and client ports and on connections to other nodes. Options:\n"
+            + "\n"
+            + "   - on: Nagle's algorithm is disabled.\n"
+            + "   - off: Nagle's algorithm is enabled.",
+        PropertyValidator.anyOfIgnoreCase("on", "off"));
+
+    schemaBuilder.addString(
+        "tcpfastopen",
+        "off",
+        "Whether TCP Fast Open is used on the node and client ports and on connections to other nodes. "
+            + "Only applies with the native transport. Options:\n"
+            + "\n"
+            + "   - off: TCP Fast Open is not used.\n"
+            + "   - on: TCP Fast Open is used.",
+        PropertyValidator.anyOfIgnoreCase("off", "on"));
+
+    schemaBuilder.addString(
+        "tcpreuseport",
+        "off",
+        "Whether SO_REUSEPORT is set on the node and client ports. Only applies with the native transport. Options:\n"
+            + "\n"
+            + "   - off: SO_REUSEPORT is not set.\n"
+            + "   - on: SO_REUSEPORT is set.",
+        PropertyValidator.anyOfIgnoreCase("off", "on"));
+
+    schemaBuilder.addInteger(
+        "tcpreceivebuffersize",
+        0,
+        "Size in bytes of the socket receive buffers. A value of 0 uses the operating system default.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "tcpsendbuffersize",
+        0,
+        "Size in bytes of the socket send buffers. A value of 0 uses the operating system default.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "tcpacceptbacklog",
+        0,
+        "Maximum number of pending connections on the node and client ports. A value of 0 uses the Netty default.",
+        inRange(0, Integer.MAX_VALUE));
+
     schemaBuilder.addString(
         "workdir",
         Paths.get(System.getProperty("user.dir")).toAbsolutePath().toString(),
@@ -626,6 +1330,233 @@ public class Config {
         "passwords",
         "Path to an optional file containing the passwords needed to unlock the given 'privatekeys'. The file should contain one password per line -- add an empty line if any one key isn't locked.");
 
+    schemaBuilder.addInteger(
+        "parallelkeywrappingthreshold",
+        32,
+        "Number of recipients above which the payload key is encrypted for each recipient in parallel. "
+            + "A value of 0 disables parallel encryption.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "sharedkeycachesize",
+        1024,
+        "Maximum number of precomputed shared keys between local and remote public keys to keep in memory. "
+            + "A value of 0 disables the cache.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "cryptoworkerpoolsize",
+        0,
+        "Number of threads dedicated to encrypting, decrypting and serializing payloads off the event loop. "
+            + "A value of 0 uses the shared Vert.x worker pool.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "sendmaxbodysize",
+        32 * 1024 * 1024,
+        "Maximum size in bytes of the request body accepted by /send and /sendraw. "
+            + "A value of 0 uses clientmaxbodysize.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "nodemaxbodysize",
+        64 * 1024 * 1024,
+        "Maximum size in bytes of the request body accepted by the node API, for routes without a limit of their own. "
+            + "A value of 0 accepts bodies of any size.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "partyinfomaxbodysize",
+        8 * 1024 * 1024,
+        "Maximum size in bytes of the request body accepted by /partyinfo. A value of 0 uses nodemaxbodysize.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "clientmaxbodysize",
+        64 * 1024 * 1024,
+        "Maximum size in bytes of the request body accepted by the client API, for routes without a limit of their "
+            + "own. A value of 0 accepts bodies of any size.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "pushbatchwindow",
+        0,
+        "Time in milliseconds to wait for more payloads to push to the same peer in a single batch. "
+            + "A value of 0 pushes each payload on its own.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "pushbatchmaxitems",
+        64,
+        "Maximum number of payloads pushed to a peer in a single batch.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "pushbatchmaxbytes",
+        4 * 1024 * 1024,
+        "Maximum size in bytes of the payloads pushed to a peer in a single batch.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addString(
+        "nodehttpversion",
+        "http1",
+        "HTTP version used between nodes. Options:\n"
+            + "\n"
+            + "   - http1: Nodes talk HTTP/1.1 to each other.\n"
+            + "   - http2: Outbound requests are multiplexed over HTTP/2, negotiated with ALPN when TLS is on\n"
+            + "       and with an h2c upgrade otherwise. Peers that only speak HTTP/1.1 are still reached\n"
+            + "       over HTTP/1.1.",
+        PropertyValidator.anyOfIgnoreCase("http1", "http2"));
+
+    schemaBuilder.addInteger(
+        "nodehttp2maxconcurrentstreams",
+        100,
+        "Maximum number of concurrent HTTP/2 streams on a node to node connection.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "nodeclientmaxpoolsize",
+        5,
+        "Maximum number of connections the node client opens to a single peer.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "nodeclientmaxwaitqueuesize",
+        32,
+        "Maximum number of requests to a single peer waiting for a connection.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "nodeclientkeepalivetimeout",
+        60,
+        "Time in seconds an unused connection to a peer is kept open for later requests. "
+            + "A value of 0 closes connections after each request.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "nodeclientpipelininglimit",
+        0,
+        "Maximum number of HTTP/1.1 requests pipelined on a connection to a peer. A value of 0 disables pipelining.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "nodeclientconnecttimeout",
+        1500,
+        "Time in milliseconds to wait for a connection to a peer to be established.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "nodeclientidletimeout",
+        300,
+        "Time in seconds after which a connection to a peer without any traffic is closed.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "nodeclientrequesttimeout",
+        10000,
+        "Time in milliseconds to wait for a peer to respond to a payload or privacy group push. "
+            + "A value of 0 waits indefinitely.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "discoveryminrefreshinterval",
+        500,
+        "Time in milliseconds between the first calls to /partyinfo on a peer, "
+            + "and after new nodes are learned.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "discoverymaxrefreshinterval",
+        60000,
+        "Time in milliseconds between calls to /partyinfo on a peer once the network is stable "
+            + "or the peer keeps failing.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "discoveryjitter",
+        20,
+        "Percentage by which each discovery interval is randomly lengthened or shortened.",
+        inRange(0, 100));
+
+    schemaBuilder.addInteger(
+        "discoverymaxconcurrentrequests",
+        16,
+        "Maximum number of /partyinfo calls in flight at once.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "peerfailurethreshold",
+        3,
+        "Number of consecutive failed requests after which payloads sent to a peer fail immediately. "
+            + "A value of 0 always sends payloads to peers.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "peerretryinterval",
+        5000,
+        "Time in milliseconds after which a request is sent again to an unreachable peer.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addString(
+        "deliverymode",
+        "sync",
+        "How payloads are delivered to peers. Options:\n"
+            + "\n"
+            + "   - sync: Payloads are pushed to all peers before /send responds.\n"
+            + "   - async: Payloads are queued for each peer before /send responds, and pushed in the background.",
+        PropertyValidator.anyOfIgnoreCase("sync", "async"));
+
+    schemaBuilder.addInteger(
+        "deliverymaxattempts",
+        10,
+        "Number of times a queued payload is pushed to a peer before it is dropped.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "deliveryretryinterval",
+        1000,
+        "Time in milliseconds before a failed asynchronous delivery is first retried.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "deliverymaxretryinterval",
+        60000,
+        "Maximum time in milliseconds between retries of a failed asynchronous delivery.",
+        inRange(1, Integer.MAX_VALUE));
+
+    schemaBuilder.addString(
+        "metrics",
+        "off",
+        "Whether metrics are served in the Prometheus text format on /metrics. Options:\n"
+            + "\n"
+            + "   - off: Metrics are not served.\n"
+            + "   - on: Metrics are served on metricsport.",
+        PropertyValidator.anyOfIgnoreCase("off", "on"));
+
+    schemaBuilder.addInteger("metricsport", 8890, "Port to serve metrics on.", inRange(0, 65536));
+
+    schemaBuilder.addString("metricsnetworkinterface", "127.0.0.1", "Network interface to serve metrics on.", null);
+
+    schemaBuilder.addInteger(
+        "eventloopblockthreshold",
+        200,
+        "Time in milliseconds a task may run on an event loop before it is reported as blocking it. "
+            + "A value of 0 disables the detection.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "eventloopblockstackinterval",
+        60000,
+        "Minimum time in milliseconds between two stacks logged for the same blocking call site.",
+        inRange(0, Integer.MAX_VALUE));
+
+    schemaBuilder.addInteger(
+        "payloadcachesize",
+        32 * 1024 * 1024,
+        "Maximum size in bytes of the payloads kept in memory for repeated retrieval. "
+            + "A value of 0 disables the cache.",
+        inRange(0, Integer.MAX_VALUE));
+
     schemaBuilder.addString(
         "storage",
         "leveldb",
@@ -889,6 +1820,15 @@ public class Config {
               "The number of keys specified for properties 'publickeys' and 'privatekeys' must be the same"));
     }
 
+    if (config.contains("discoveryminrefreshinterval")
+        && config.contains("discoverymaxrefreshinterval")
+        && config.getInteger("discoverymaxrefreshinterval") < config.getInteger("discoveryminrefreshinterval")) {
+      errors.add(
+          new ConfigurationError(
+              config.inputPositionOf("discoverymaxrefreshinterval"),
+              "Value of property 'discoverymaxrefreshinterval' must not be less than 'discoveryminrefreshinterval'"));
+    }
+
     return errors;
   }
 }
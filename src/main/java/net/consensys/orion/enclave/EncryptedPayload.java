@@ -12,20 +12,22 @@
  */
 package net.consensys.orion.enclave;
 
+import net.consensys.orion.enclave.sodium.serialization.BoxPublicKeyMapKeyDeserializer;
 import net.consensys.orion.enclave.sodium.serialization.PublicKeyDeserializer;
-import net.consensys.orion.enclave.sodium.serialization.PublicKeyMapKeyDeserializer;
+import net.consensys.orion.enclave.sodium.serialization.PublicKeyMapKeySerializer;
 import net.consensys.orion.enclave.sodium.serialization.PublicKeySerializer;
 import net.consensys.orion.exception.OrionErrorCode;
 
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
@@ -56,13 +58,13 @@ public class EncryptedPayload implements Serializable {
       @JsonProperty("encryptedKeys") final EncryptedKey[] encryptedKeys,
       @JsonProperty("cipherText") final byte[] cipherText,
       @JsonProperty("encryptedKeyOwners") @JsonDeserialize(
-          keyUsing = PublicKeyMapKeyDeserializer.class) final Map<Box.PublicKey, Integer> encryptedKeyOwners,
+          keyUsing = BoxPublicKeyMapKeyDeserializer.class) final Map<Box.PublicKey, Integer> encryptedKeyOwners,
       @JsonProperty("privacyGroupId") final byte[] privacyGroupId) {
     this.sender = sender;
     this.nonce = nonce;
     this.encryptedKeys = encryptedKeys;
     this.cipherText = cipherText;
-    this.encryptedKeyOwners = encryptedKeyOwners;
+    this.encryptedKeyOwners = encryptedKeyOwners == null ? Collections.emptyMap() : encryptedKeyOwners;
     this.privacyGroupId = privacyGroupId;
   }
 
@@ -92,22 +94,35 @@ public class EncryptedPayload implements Serializable {
     return privacyGroupId;
   }
 
+  /**
+   * Mapping of recipient public keys to the index of their key in {@link #encryptedKeys()}.
+   *
+   * <p>
+   * Payloads created by older versions do not carry this mapping, in which case it is empty.
+   *
+   * @return the index of each recipient's encrypted key
+   */
+  @JsonProperty("encryptedKeyOwners")
+  @JsonInclude(JsonInclude.Include.NON_EMPTY)
+  @JsonSerialize(keyUsing = PublicKeyMapKeySerializer.class)
+  public Map<Box.PublicKey, Integer> encryptedKeyOwners() {
+    return encryptedKeyOwners;
+  }
+
   public EncryptedPayload stripFor(final List<Box.PublicKey> keys) {
-    final List<EncryptedKey> keepKeys =
-        keys.stream().map(key -> encryptedKeys[encryptedKeyOwners.get(key)]).filter(Objects::nonNull).collect(
-            Collectors.toList());
-
-    if (keepKeys.size() != keys.size()) {
-      throw new EnclaveException(
-          OrionErrorCode.ENCLAVE_NOT_PAYLOAD_OWNER,
-          "can't strip encrypted payload for provided key");
+    final EncryptedKey[] keepKeys = new EncryptedKey[keys.size()];
+    final Map<Box.PublicKey, Integer> keepKeyOwners = new HashMap<>();
+    for (int i = 0; i < keys.size(); i++) {
+      final Integer index = encryptedKeyOwners.get(keys.get(i));
+      if (index == null) {
+        throw new EnclaveException(
+            OrionErrorCode.ENCLAVE_NOT_PAYLOAD_OWNER,
+            "can't strip encrypted payload for provided key");
+      }
+      keepKeys[i] = encryptedKeys[index];
+      keepKeyOwners.put(keys.get(i), i);
     }
-    return new EncryptedPayload(
-        sender,
-        nonce,
-        keepKeys.toArray(new EncryptedKey[keepKeys.size()]),
-        cipherText,
-        privacyGroupId);
+    return new EncryptedPayload(sender, nonce, keepKeys, cipherText, keepKeyOwners, privacyGroupId);
   }
 
   @Override
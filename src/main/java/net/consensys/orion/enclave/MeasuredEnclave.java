@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.enclave;
+
+import net.consensys.orion.metrics.MetricsRegistry;
+
+import io.prometheus.client.Histogram;
+import org.apache.tuweni.crypto.sodium.Box;
+
+/**
+ * Times the encryption and decryption of payloads by another enclave.
+ */
+public class MeasuredEnclave implements Enclave {
+
+  private final Enclave enclave;
+  private final Histogram duration;
+
+  public MeasuredEnclave(final Enclave enclave, final MetricsRegistry metrics) {
+    this.enclave = enclave;
+    this.duration = metrics.histogram(
+        "orion_enclave_operation_duration_seconds",
+        "Time taken by the enclave to encrypt or decrypt a payload, in seconds",
+        "operation");
+  }
+
+  @Override
+  public EncryptedPayload encrypt(
+      final byte[] plaintext,
+      final Box.PublicKey senderKey,
+      final Box.PublicKey[] recipients,
+      final byte[] seed) {
+    final long start = System.nanoTime();
+    try {
+      return enclave.encrypt(plaintext, senderKey, recipients, seed);
+    } finally {
+      duration.labels("encrypt").observe(MetricsRegistry.secondsSince(start));
+    }
+  }
+
+  @Override
+  public byte[] decrypt(final EncryptedPayload ciphertextAndMetadata, final Box.PublicKey identity) {
+    final long start = System.nanoTime();
+    try {
+      return enclave.decrypt(ciphertextAndMetadata, identity);
+    } finally {
+      duration.labels("decrypt").observe(MetricsRegistry.secondsSince(start));
+    }
+  }
+
+  @Override
+  public Box.PublicKey[] alwaysSendTo() {
+    return enclave.alwaysSendTo();
+  }
+
+  @Override
+  public Box.PublicKey[] nodeKeys() {
+    return enclave.nodeKeys();
+  }
+
+  @Override
+  public Box.PublicKey readKey(final String b64) {
+    return enclave.readKey(b64);
+  }
+
+  @Override
+  public byte[] generatePrivacyGroupId(
+      final Box.PublicKey[] recipientsAndSender,
+      final byte[] seed,
+      final PrivacyGroupPayload.Type type) {
+    return enclave.generatePrivacyGroupId(recipientsAndSender, seed, type);
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.enclave.sodium;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.crypto.sodium.Box;
+
+/**
+ * Bounded, least-recently-used cache of precomputed {@link Box} shared keys, keyed by the (local public key, remote
+ * public key) pair.
+ *
+ * <p>
+ * Computing a shared key costs a Curve25519 scalar multiplication, which otherwise has to be redone for every key
+ * wrapped or unwrapped with the same peer. Evicted shared keys are destroyed as soon as no caller is using them.
+ */
+final class SharedKeyCache {
+
+  private final Cache<Bytes, SharedKey> cache;
+
+  /**
+   * @param maximumSize the maximum number of shared keys to hold, or 0 to compute a new shared key on every use.
+   */
+  SharedKeyCache(final long maximumSize) {
+    if (maximumSize > 0) {
+      this.cache = CacheBuilder
+          .newBuilder()
+          .maximumSize(maximumSize)
+          .<Bytes, SharedKey>removalListener(notification -> notification.getValue().evict())
+          .build();
+    } else {
+      this.cache = null;
+    }
+  }
+
+  /**
+   * Apply a function to the precomputed box for a local and remote key pair.
+   *
+   * <p>
+   * The box must not be retained by the function, as it may be destroyed once the function returns.
+   *
+   * @param localPublicKey the public key of the local identity.
+   * @param localSecretKey the secret key of the local identity.
+   * @param remotePublicKey the public key of the remote party.
+   * @param fn the function to apply.
+   * @param <T> the type of the function result.
+   * @return the result of the function.
+   */
+  <T> T apply(
+      final Box.PublicKey localPublicKey,
+      final Box.SecretKey localSecretKey,
+      final Box.PublicKey remotePublicKey,
+      final Function<Box, T> fn) {
+    if (cache == null) {
+      try (Box box = Box.forKeys(remotePublicKey, localSecretKey)) {
+        return fn.apply(box);
+      }
+    }
+
+    final Bytes cacheKey = Bytes.concatenate(localPublicKey.bytes(), remotePublicKey.bytes());
+    while (true) {
+      final SharedKey sharedKey = lookup(cacheKey, localSecretKey, remotePublicKey);
+      // the shared key may have been evicted between the lookup and acquiring it, in which case look it up again
+      if (sharedKey.acquire()) {
+        try {
+          return fn.apply(sharedKey.box);
+        } finally {
+          sharedKey.release();
+        }
+      }
+    }
+  }
+
+  long size() {
+    return cache == null ? 0 : cache.size();
+  }
+
+  /**
+   * Evict all cached shared keys, destroying them once they are no longer in use.
+   */
+  void clear() {
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+  }
+
+  private SharedKey lookup(
+      final Bytes cacheKey,
+      final Box.SecretKey localSecretKey,
+      final Box.PublicKey remotePublicKey) {
+    try {
+      return cache.get(cacheKey, () -> new SharedKey(Box.forKeys(remotePublicKey, localSecretKey)));
+    } catch (final ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static final class SharedKey {
+    private final Box box;
+    private int references;
+    private boolean evicted;
+
+    SharedKey(final Box box) {
+      this.box = box;
+    }
+
+    synchronized boolean acquire() {
+      if (evicted) {
+        return false;
+      }
+      references++;
+      return true;
+    }
+
+    synchronized void release() {
+      references--;
+      if (evicted && references == 0) {
+        box.close();
+      }
+    }
+
+    synchronized void evict() {
+      evicted = true;
+      if (references == 0) {
+        box.close();
+      }
+    }
+  }
+}
@@ -27,7 +27,9 @@ import java.util.Base64;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.crypto.Hash;
@@ -45,11 +47,28 @@ public class SodiumEnclave implements Enclave {
 
   private final Box.PublicKey[] alwaysSendTo;
   private final Box.PublicKey[] nodeKeys;
+  private final int parallelKeyWrappingThreshold;
+  private final SharedKeyCache sharedKeyCache;
 
   public SodiumEnclave(final KeyStore keyStore) {
+    this(keyStore, 0, 0);
+  }
+
+  /**
+   * Create an enclave over the given key store.
+   *
+   * @param keyStore the key store holding the node keys.
+   * @param parallelKeyWrappingThreshold number of recipients above which the payload key is encrypted for each
+   *        recipient in parallel, or 0 to always encrypt serially.
+   * @param sharedKeyCacheSize maximum number of precomputed sender/recipient shared keys to keep, or 0 to compute
+   *        them on every use.
+   */
+  public SodiumEnclave(final KeyStore keyStore, final int parallelKeyWrappingThreshold, final int sharedKeyCacheSize) {
     this.keyStore = keyStore;
     this.alwaysSendTo = keyStore.alwaysSendTo();
     this.nodeKeys = keyStore.nodeKeys();
+    this.parallelKeyWrappingThreshold = parallelKeyWrappingThreshold;
+    this.sharedKeyCache = new SharedKeyCache(sharedKeyCacheSize);
   }
 
   @Override
@@ -68,7 +87,7 @@ public class SodiumEnclave implements Enclave {
     final Box.PublicKey[] recipientsAndSender = addSenderToRecipients(recipients, senderKey);
     final Box.Nonce nonce = Box.Nonce.random();
     final EncryptedKey[] encryptedKeys =
-        encryptPayloadKeyForRecipients(payloadKey, recipientsAndSender, senderSecretKey, nonce);
+        encryptPayloadKeyForRecipients(payloadKey, recipientsAndSender, senderKey, senderSecretKey, nonce);
 
     final byte[] privacyGroupId = generatePrivacyGroupId(recipientsAndSender, seed, PrivacyGroupPayload.Type.PANTHEON);
 
@@ -106,7 +125,7 @@ public class SodiumEnclave implements Enclave {
   @Override
   public byte[] decrypt(final EncryptedPayload ciphertextAndMetadata, final Box.PublicKey identity) {
     final Box.SecretKey secretKey = privateKey(identity);
-    final SecretBox.Key key = decryptPayloadKey(ciphertextAndMetadata, secretKey);
+    final SecretBox.Key key = decryptPayloadKey(ciphertextAndMetadata, identity, secretKey);
     return SecretBox.decrypt(ciphertextAndMetadata.cipherText(), key, ZERO_NONCE);
   }
 
@@ -145,29 +164,51 @@ public class SodiumEnclave implements Enclave {
     return secretKey;
   }
 
-  // Iterate through the encrypted keys to find one that decrypts successfully using our secret key.
-  private SecretBox.Key decryptPayloadKey(final EncryptedPayload ciphertextAndMetadata, final Box.SecretKey secretKey) {
-    SodiumException problem = null;
-
-    // Try each key until we find one that successfully decrypts or we run out of keys
-    for (final EncryptedKey key : ciphertextAndMetadata.encryptedKeys()) {
-      final byte[] clearText;
-      try {
-        final Box.PublicKey senderPublicKey = ciphertextAndMetadata.sender();
-        final Box.Nonce nonce = Box.Nonce.fromBytes(ciphertextAndMetadata.nonce());
-        clearText = Box.decrypt(key.getEncoded(), senderPublicKey, secretKey, nonce);
-      } catch (final SodiumException e) {
-        // The next next key might be the lucky one, so don't propagate just yet
-        problem = e;
-        continue;
-      }
-      if (clearText != null) {
-        return SecretBox.Key.fromBytes(clearText);
+  // Decrypt the encrypted key recorded for our identity, or for payloads without that record, iterate through the
+  // encrypted keys to find one that decrypts successfully using our secret key.
+  private SecretBox.Key decryptPayloadKey(
+      final EncryptedPayload ciphertextAndMetadata,
+      final Box.PublicKey identity,
+      final Box.SecretKey secretKey) {
+    final Box.PublicKey senderPublicKey = ciphertextAndMetadata.sender();
+    final Box.Nonce nonce = Box.Nonce.fromBytes(ciphertextAndMetadata.nonce());
+    final EncryptedKey[] candidateKeys = candidateKeys(ciphertextAndMetadata, identity);
+    return sharedKeyCache.apply(identity, secretKey, senderPublicKey, box -> {
+      SodiumException problem = null;
+
+      // Try each key until we find one that successfully decrypts or we run out of keys
+      for (final EncryptedKey key : candidateKeys) {
+        final byte[] clearText;
+        try {
+          clearText = box.decrypt(key.getEncoded(), nonce);
+        } catch (final SodiumException e) {
+          // The next next key might be the lucky one, so don't propagate just yet
+          problem = e;
+          continue;
+        }
+        if (clearText != null) {
+          return SecretBox.Key.fromBytes(clearText);
+        }
       }
-    }
 
-    // No more keys left to try, finally propagate the issue
-    throw new EnclaveException(OrionErrorCode.ENCLAVE_DECRYPT_WRONG_PRIVATE_KEY, problem);
+      // No more keys left to try, finally propagate the issue
+      throw new EnclaveException(OrionErrorCode.ENCLAVE_DECRYPT_WRONG_PRIVATE_KEY, problem);
+    });
+  }
+
+  private static EncryptedKey[] candidateKeys(
+      final EncryptedPayload ciphertextAndMetadata,
+      final Box.PublicKey identity) {
+    final EncryptedKey[] encryptedKeys = ciphertextAndMetadata.encryptedKeys();
+    final Map<Box.PublicKey, Integer> encryptedKeyOwners = ciphertextAndMetadata.encryptedKeyOwners();
+    if (encryptedKeyOwners.isEmpty()) {
+      return encryptedKeys;
+    }
+    final Integer index = encryptedKeyOwners.get(identity);
+    if (index == null || index < 0 || index >= encryptedKeys.length) {
+      return new EncryptedKey[0];
+    }
+    return new EncryptedKey[] {encryptedKeys[index]};
   }
 
   /** Create mapping between encrypted keys and recipients */
@@ -182,27 +223,38 @@ public class SodiumEnclave implements Enclave {
   private EncryptedKey[] encryptPayloadKeyForRecipients(
       final SecretBox.Key payloadKey,
       final Box.PublicKey[] recipients,
+      final Box.PublicKey senderPublicKey,
       final Box.SecretKey senderSecretKey,
       final Box.Nonce nonce) {
     final byte[] message = payloadKey.bytesArray();
     try {
       final EncryptedKey[] encryptedKeys = new EncryptedKey[recipients.length];
-      for (int i = 0; i < recipients.length; i++) {
-        final Box.PublicKey recipientPublicKey = recipients[i];
-
-        final byte[] encryptedKey;
-        try {
-          encryptedKey = Box.encrypt(message, recipientPublicKey, senderSecretKey, nonce);
-        } catch (final SodiumException e) {
-          throw new EnclaveException(OrionErrorCode.ENCLAVE_ENCRYPT_COMBINE_KEYS, e);
-        }
-
-        encryptedKeys[i] = new EncryptedKey(encryptedKey);
+      IntStream indices = IntStream.range(0, recipients.length);
+      if (parallelKeyWrappingThreshold > 0 && recipients.length > parallelKeyWrappingThreshold) {
+        // each recipient's key is written to its own slot, so the order matches encryptedKeysMapping
+        indices = indices.parallel();
       }
+      indices.forEach(
+          i -> encryptedKeys[i] = encryptPayloadKey(message, recipients[i], senderPublicKey, senderSecretKey, nonce));
       return encryptedKeys;
     } finally {
       // ensure key material is overwritten
       Arrays.fill(message, (byte) 0);
     }
   }
+
+  private EncryptedKey encryptPayloadKey(
+      final byte[] message,
+      final Box.PublicKey recipientPublicKey,
+      final Box.PublicKey senderPublicKey,
+      final Box.SecretKey senderSecretKey,
+      final Box.Nonce nonce) {
+    try {
+      return new EncryptedKey(
+          sharedKeyCache
+              .apply(senderPublicKey, senderSecretKey, recipientPublicKey, box -> box.encrypt(message, nonce)));
+    } catch (final SodiumException e) {
+      throw new EnclaveException(OrionErrorCode.ENCLAVE_ENCRYPT_COMBINE_KEYS, e);
+    }
+  }
 }
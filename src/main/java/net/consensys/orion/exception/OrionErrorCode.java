@@ -26,6 +26,7 @@ public enum OrionErrorCode {
   /** Node communication issues. */
   NODE_MISSING_PEER_URL("NodeMissingPeerUrl"),
   NODE_PUSHING_TO_PEER("NodePushingToPeer"),
+  NODE_PEER_UNREACHABLE("NodePeerUnreachable"),
   NODE_PROPAGATING_TO_ALL_PEERS("NodePropagatingToAllPeers"),
   NO_SENDER_KEY("NoSenderKey"),
   INVALID_PAYLOAD("InvalidPayload"),
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.http.handler.metrics;
+
+import net.consensys.orion.metrics.MetricsRegistry;
+
+import io.prometheus.client.exporter.common.TextFormat;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Serves the metrics of the node in the Prometheus text exposition format.
+ */
+public class MetricsHandler implements Handler<RoutingContext> {
+
+  private final MetricsRegistry metrics;
+
+  public MetricsHandler(final MetricsRegistry metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void handle(final RoutingContext routingContext) {
+    routingContext.response().putHeader("Content-Type", TextFormat.CONTENT_TYPE_004).end(metrics.scrape());
+  }
+}
@@ -13,10 +13,14 @@
 package net.consensys.orion.http.handler.partyinfo;
 
 import net.consensys.orion.http.server.HttpContentType;
+import net.consensys.orion.network.NetworkNodes;
+import net.consensys.orion.network.PartyInfoVersion;
 import net.consensys.orion.network.PersistentNetworkNodes;
 import net.consensys.orion.network.ReadOnlyNetworkNodes;
 import net.consensys.orion.utils.Serializer;
 
+import java.util.Optional;
+
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.web.RoutingContext;
@@ -36,10 +40,23 @@ public class PartyInfoHandler implements Handler<RoutingContext> {
   public void handle(final RoutingContext routingContext) {
     final ReadOnlyNetworkNodes callerPeers =
         Serializer.deserialize(HttpContentType.CBOR, ReadOnlyNetworkNodes.class, routingContext.getBody().getBytes());
-    final Buffer toReturn = Buffer.buffer(Serializer.serialize(HttpContentType.CBOR, networkNodes));
-    routingContext.response().end(toReturn);
 
-    // merge callerPeers into our peers
+    // callers that tell us which version of our party info they know only get the entries added since
+    final PartyInfoVersion currentVersion = networkNodes.version();
+    final Optional<PartyInfoVersion> knownVersion =
+        PartyInfoVersion.parse(routingContext.request().getHeader(PartyInfoVersion.KNOWN_VERSION_HEADER));
+    final boolean full = knownVersion.map(known -> known.epoch() != currentVersion.epoch()).orElse(true);
+    final NetworkNodes response = full ? networkNodes
+        : new ReadOnlyNetworkNodes(networkNodes.uri(), networkNodes.changesSince(knownVersion.get().version()));
+
+    final Buffer toReturn = Buffer.buffer(Serializer.serialize(HttpContentType.CBOR, response));
+    routingContext
+        .response()
+        .putHeader(PartyInfoVersion.VERSION_HEADER, currentVersion.toString())
+        .putHeader(PartyInfoVersion.FULL_HEADER, String.valueOf(full))
+        .end(toReturn);
+
+    // merge callerPeers into our peers, network discovery is told of the nodes added and passes them on
     networkNodes.merge(callerPeers);
   }
 }
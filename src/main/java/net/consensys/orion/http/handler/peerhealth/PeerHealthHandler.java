@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.http.handler.peerhealth;
+
+import net.consensys.orion.http.server.HttpContentType;
+import net.consensys.orion.network.PeerHealth;
+import net.consensys.orion.utils.Serializer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Lists the peers requests were sent to, and whether they can currently be reached.
+ */
+public class PeerHealthHandler implements Handler<RoutingContext> {
+
+  private final PeerHealth peerHealth;
+
+  public PeerHealthHandler(final PeerHealth peerHealth) {
+    this.peerHealth = peerHealth;
+  }
+
+  @Override
+  public void handle(final RoutingContext routingContext) {
+    final List<PeerHealthStatus> peers = new ArrayList<>();
+    peerHealth.status().forEach((uri, status) -> peers.add(new PeerHealthStatus(uri, status)));
+    peers.sort(Comparator.comparing(PeerHealthStatus::getNodeURI));
+
+    final Buffer bufferResponse = Buffer.buffer(Serializer.serialize(HttpContentType.JSON, peers));
+
+    routingContext.response().end(bufferResponse);
+  }
+}
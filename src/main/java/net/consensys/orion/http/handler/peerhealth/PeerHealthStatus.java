@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.http.handler.peerhealth;
+
+import net.consensys.orion.network.PeerHealth;
+
+import java.net.URI;
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Objects;
+
+class PeerHealthStatus {
+
+  private final String nodeURI;
+  private final String state;
+  private final int consecutiveFailures;
+  private final String lastSuccess;
+  private final String lastFailure;
+
+  PeerHealthStatus(final URI nodeURI, final PeerHealth.Status status) {
+    this.nodeURI = nodeURI.toString();
+    this.state = status.state().name();
+    this.consecutiveFailures = status.consecutiveFailures();
+    this.lastSuccess = toString(status.lastSuccess());
+    this.lastFailure = toString(status.lastFailure());
+  }
+
+  @JsonCreator
+  PeerHealthStatus(
+      @JsonProperty("nodeUrl") final String nodeURI,
+      @JsonProperty("state") final String state,
+      @JsonProperty("consecutiveFailures") final int consecutiveFailures,
+      @JsonProperty("lastSuccess") final String lastSuccess,
+      @JsonProperty("lastFailure") final String lastFailure) {
+    this.nodeURI = nodeURI;
+    this.state = state;
+    this.consecutiveFailures = consecutiveFailures;
+    this.lastSuccess = lastSuccess;
+    this.lastFailure = lastFailure;
+  }
+
+  private static String toString(final Instant instant) {
+    return instant == null ? null : instant.toString();
+  }
+
+  @JsonProperty("nodeUrl")
+  String getNodeURI() {
+    return nodeURI;
+  }
+
+  @JsonProperty("state")
+  String getState() {
+    return state;
+  }
+
+  @JsonProperty("consecutiveFailures")
+  int getConsecutiveFailures() {
+    return consecutiveFailures;
+  }
+
+  @JsonProperty("lastSuccess")
+  String getLastSuccess() {
+    return lastSuccess;
+  }
+
+  @JsonProperty("lastFailure")
+  String getLastFailure() {
+    return lastFailure;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final PeerHealthStatus that = (PeerHealthStatus) o;
+    return consecutiveFailures == that.consecutiveFailures
+        && Objects.equal(nodeURI, that.nodeURI)
+        && Objects.equal(state, that.state)
+        && Objects.equal(lastSuccess, that.lastSuccess)
+        && Objects.equal(lastFailure, that.lastFailure);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(nodeURI, state, consecutiveFailures, lastSuccess, lastFailure);
+  }
+}
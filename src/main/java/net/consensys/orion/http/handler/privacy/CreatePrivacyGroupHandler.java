@@ -14,13 +14,12 @@ package net.consensys.orion.http.handler.privacy;
 
 import static net.consensys.orion.http.server.HttpContentType.JSON;
 
-import net.consensys.orion.config.Config;
 import net.consensys.orion.enclave.PrivacyGroupPayload;
 import net.consensys.orion.enclave.QueryPrivacyGroupPayload;
 import net.consensys.orion.exception.OrionErrorCode;
 import net.consensys.orion.exception.OrionException;
 import net.consensys.orion.http.server.HttpContentType;
-import net.consensys.orion.network.NodeHttpClientBuilder;
+import net.consensys.orion.network.NodeHttpClient;
 import net.consensys.orion.network.PersistentNetworkNodes;
 import net.consensys.orion.storage.Storage;
 import net.consensys.orion.utils.Serializer;
@@ -33,9 +32,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import io.vertx.core.Handler;
-import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.http.HttpClient;
 import io.vertx.ext.web.RoutingContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -51,18 +48,17 @@ public class CreatePrivacyGroupHandler implements Handler<RoutingContext> {
   private final Storage<PrivacyGroupPayload> privacyGroupStorage;
   private final Storage<QueryPrivacyGroupPayload> queryPrivacyGroupStorage;
   private final PersistentNetworkNodes networkNodes;
-  private final HttpClient httpClient;
+  private final NodeHttpClient httpClient;
 
   public CreatePrivacyGroupHandler(
       final Storage<PrivacyGroupPayload> privacyGroupStorage,
       final Storage<QueryPrivacyGroupPayload> queryPrivacyGroupStorage,
       final PersistentNetworkNodes networkNodes,
-      final Vertx vertx,
-      final Config config) {
+      final NodeHttpClient httpClient) {
     this.privacyGroupStorage = privacyGroupStorage;
     this.queryPrivacyGroupStorage = queryPrivacyGroupStorage;
     this.networkNodes = networkNodes;
-    this.httpClient = NodeHttpClientBuilder.build(vertx, config, 1500);
+    this.httpClient = httpClient;
   }
 
   @Override
@@ -127,7 +123,7 @@ public class CreatePrivacyGroupHandler implements Handler<RoutingContext> {
 
       // execute request
       httpClient
-          .post(recipientURL.getPort(), recipientURL.getHost(), "/pushPrivacyGroup")
+          .post(recipientURL, "/pushPrivacyGroup")
           .putHeader("Content-Type", "application/cbor")
           .handler(response -> response.bodyHandler(responseBody -> {
             log.info("URL {} responded with {}", recipientURL.toString(), response.statusCode());
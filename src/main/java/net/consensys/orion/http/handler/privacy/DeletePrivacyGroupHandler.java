@@ -14,14 +14,13 @@ package net.consensys.orion.http.handler.privacy;
 
 import static net.consensys.orion.http.server.HttpContentType.JSON;
 
-import net.consensys.orion.config.Config;
 import net.consensys.orion.enclave.Enclave;
 import net.consensys.orion.enclave.PrivacyGroupPayload;
 import net.consensys.orion.enclave.QueryPrivacyGroupPayload;
 import net.consensys.orion.exception.OrionErrorCode;
 import net.consensys.orion.exception.OrionException;
 import net.consensys.orion.http.server.HttpContentType;
-import net.consensys.orion.network.NodeHttpClientBuilder;
+import net.consensys.orion.network.NodeHttpClient;
 import net.consensys.orion.network.PersistentNetworkNodes;
 import net.consensys.orion.storage.Storage;
 import net.consensys.orion.utils.Serializer;
@@ -33,9 +32,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import io.vertx.core.Handler;
-import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.http.HttpClient;
 import io.vertx.ext.web.RoutingContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -52,20 +49,19 @@ public class DeletePrivacyGroupHandler implements Handler<RoutingContext> {
   private final Storage<QueryPrivacyGroupPayload> queryPrivacyGroupStorage;
   private final PersistentNetworkNodes networkNodes;
   private final Enclave enclave;
-  private final HttpClient httpClient;
+  private final NodeHttpClient httpClient;
 
   public DeletePrivacyGroupHandler(
       final Storage<PrivacyGroupPayload> privacyGroupStorage,
       final Storage<QueryPrivacyGroupPayload> queryPrivacyGroupStorage,
       final PersistentNetworkNodes networkNodes,
       final Enclave enclave,
-      final Vertx vertx,
-      final Config config) {
+      final NodeHttpClient httpClient) {
     this.privacyGroupStorage = privacyGroupStorage;
     this.queryPrivacyGroupStorage = queryPrivacyGroupStorage;
     this.networkNodes = networkNodes;
     this.enclave = enclave;
-    this.httpClient = NodeHttpClientBuilder.build(vertx, config, 1500);
+    this.httpClient = httpClient;
   }
 
   @Override
@@ -81,10 +77,16 @@ public class DeletePrivacyGroupHandler implements Handler<RoutingContext> {
         routingContext
             .fail(new OrionException(OrionErrorCode.ENCLAVE_UNABLE_DELETE_PRIVACY_GROUP, "couldn't delete group"));
       } else {
-        final PrivacyGroupPayload privacyGroupPayload = result.get();
+        final PrivacyGroupPayload storedPayload = result.get();
 
-        // set state to deleted and propagate and store it
-        privacyGroupPayload.setState(PrivacyGroupPayload.State.DELETED);
+        // copy with state set to deleted, then propagate and store it
+        final PrivacyGroupPayload privacyGroupPayload = new PrivacyGroupPayload(
+            storedPayload.addresses(),
+            storedPayload.name(),
+            storedPayload.description(),
+            PrivacyGroupPayload.State.DELETED,
+            storedPayload.type(),
+            storedPayload.randomSeed());
 
         final List<Box.PublicKey> addressListToForward = Arrays
             .stream(privacyGroupPayload.addresses())
@@ -113,7 +115,7 @@ public class DeletePrivacyGroupHandler implements Handler<RoutingContext> {
 
           // execute request
           httpClient
-              .post(recipientURL.getPort(), recipientURL.getHost(), "/pushPrivacyGroup")
+              .post(recipientURL, "/pushPrivacyGroup")
               .putHeader("Content-Type", "application/cbor")
               .handler(response -> response.bodyHandler(responseBody -> {
                 log.info("{} with URL {} responded with {}", pKey, recipientURL.toString(), response.statusCode());
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.http.handler.push;
+
+import net.consensys.orion.enclave.EncryptedPayload;
+import net.consensys.orion.http.server.HttpContentType;
+import net.consensys.orion.storage.Storage;
+import net.consensys.orion.utils.CryptoWorkerPool;
+import net.consensys.orion.utils.Serializer;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.RoutingContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.tuweni.concurrent.AsyncResult;
+
+/** used to push several payloads to a node at once, responding with the digest of each payload in order. */
+public class PushBatchHandler implements Handler<RoutingContext> {
+  private static final Logger log = LogManager.getLogger();
+  private final Storage<EncryptedPayload> storage;
+  private final CryptoWorkerPool cryptoWorkerPool;
+
+  public PushBatchHandler(final Storage<EncryptedPayload> storage, final CryptoWorkerPool cryptoWorkerPool) {
+    this.storage = storage;
+    this.cryptoWorkerPool = cryptoWorkerPool;
+  }
+
+  @Override
+  public void handle(final RoutingContext routingContext) {
+    final Buffer body = routingContext.getBody();
+
+    cryptoWorkerPool
+        .execute(() -> Serializer.deserialize(HttpContentType.CBOR, EncryptedPayload[].class, body.getBytes()))
+        .setHandler(result -> {
+          if (result.failed()) {
+            routingContext.fail(result.cause());
+            return;
+          }
+          AsyncResult
+              .combine(Arrays.stream(result.result()).map(storage::put).collect(Collectors.toList()))
+              .thenAccept(digests -> {
+                log.debug("stored {} payloads", digests.size());
+                routingContext.response().end(Buffer.buffer(Serializer.serialize(HttpContentType.CBOR, digests)));
+              })
+              .exceptionally(e -> routingContext.fail(e));
+        });
+  }
+}
@@ -15,9 +15,11 @@ package net.consensys.orion.http.handler.push;
 import net.consensys.orion.enclave.EncryptedPayload;
 import net.consensys.orion.http.server.HttpContentType;
 import net.consensys.orion.storage.Storage;
+import net.consensys.orion.utils.CryptoWorkerPool;
 import net.consensys.orion.utils.Serializer;
 
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.web.RoutingContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -26,20 +28,28 @@ import org.apache.logging.log4j.Logger;
 public class PushHandler implements Handler<RoutingContext> {
   private static final Logger log = LogManager.getLogger();
   private final Storage<EncryptedPayload> storage;
+  private final CryptoWorkerPool cryptoWorkerPool;
 
-  public PushHandler(final Storage<EncryptedPayload> storage) {
+  public PushHandler(final Storage<EncryptedPayload> storage, final CryptoWorkerPool cryptoWorkerPool) {
     this.storage = storage;
+    this.cryptoWorkerPool = cryptoWorkerPool;
   }
 
   @Override
   public void handle(final RoutingContext routingContext) {
-    final EncryptedPayload pushRequest =
-        Serializer.deserialize(HttpContentType.CBOR, EncryptedPayload.class, routingContext.getBody().getBytes());
-
-    storage.put(pushRequest).thenAccept((digest) -> {
-      log.debug("stored payload. resulting digest: {}", digest);
-      routingContext.response().end(digest);
-    }).exceptionally(e -> routingContext.fail(e));
+    final Buffer body = routingContext.getBody();
 
+    cryptoWorkerPool
+        .execute(() -> Serializer.deserialize(HttpContentType.CBOR, EncryptedPayload.class, body.getBytes()))
+        .setHandler(result -> {
+          if (result.failed()) {
+            routingContext.fail(result.cause());
+            return;
+          }
+          storage.put(result.result()).thenAccept((digest) -> {
+            log.debug("stored payload. resulting digest: {}", digest);
+            routingContext.response().end(digest);
+          }).exceptionally(e -> routingContext.fail(e));
+        });
   }
 }
@@ -24,13 +24,16 @@ import net.consensys.orion.exception.OrionErrorCode;
 import net.consensys.orion.exception.OrionException;
 import net.consensys.orion.http.server.HttpContentType;
 import net.consensys.orion.storage.Storage;
+import net.consensys.orion.utils.CryptoWorkerPool;
 import net.consensys.orion.utils.Serializer;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
@@ -44,14 +47,17 @@ public class ReceiveHandler implements Handler<RoutingContext> {
   private static final Logger log = LogManager.getLogger();
   private final Enclave enclave;
   private final Storage<EncryptedPayload> storage;
+  private final CryptoWorkerPool cryptoWorkerPool;
   private final HttpContentType contentType;
 
   public ReceiveHandler(
       final Enclave enclave,
       final Storage<EncryptedPayload> storage,
+      final CryptoWorkerPool cryptoWorkerPool,
       final HttpContentType contentType) {
     this.enclave = enclave;
     this.storage = storage;
+    this.cryptoWorkerPool = cryptoWorkerPool;
     this.contentType = contentType;
   }
 
@@ -82,25 +88,27 @@ public class ReceiveHandler implements Handler<RoutingContext> {
       }
 
       final EncryptedPayload encryptedPayload = encryptedPayloadOptional.get();
-      final Optional<byte[]> decryptPayload = decryptPayload(recipients, encryptedPayload);
-      decryptPayload.ifPresentOrElse(
-          payload -> sendResponse(
-              routingContext,
-              encryptedPayload.privacyGroupId(),
-              payload,
-              encryptedPayload.sender().bytesArray()),
-          () -> {
-            log.info("unable to decrypt payload");
-            routingContext.fail(404, new OrionException(OrionErrorCode.ENCLAVE_KEYS_CANNOT_DECRYPT_PAYLOAD));
+      cryptoWorkerPool
+          .execute(
+              () -> decryptPayload(recipients, encryptedPayload).map(
+                  payload -> buildResponse(
+                      encryptedPayload.privacyGroupId(),
+                      payload,
+                      encryptedPayload.sender().bytesArray())))
+          .setHandler(result -> {
+            if (result.failed()) {
+              routingContext.fail(result.cause());
+              return;
+            }
+            result.result().ifPresentOrElse(response -> routingContext.response().end(response), () -> {
+              log.info("unable to decrypt payload");
+              routingContext.fail(404, new OrionException(OrionErrorCode.ENCLAVE_KEYS_CANNOT_DECRYPT_PAYLOAD));
+            });
           });
     });
   }
 
-  private void sendResponse(
-      final RoutingContext routingContext,
-      final byte[] privacyGroupId,
-      final byte[] decryptedPayload,
-      final byte[] sender) {
+  private Buffer buildResponse(final byte[] privacyGroupId, final byte[] decryptedPayload, final byte[] sender) {
     // configureRoutes a ReceiveResponse
     final Buffer toReturn;
     final ReceiveResponse receiveResponse = new ReceiveResponse(decryptedPayload, privacyGroupId, sender);
@@ -115,13 +123,17 @@ public class ReceiveHandler implements Handler<RoutingContext> {
     } else {
       toReturn = Buffer.buffer(decryptedPayload);
     }
-    routingContext.response().end(toReturn);
+    return toReturn;
   }
 
   private Optional<byte[]> decryptPayload(
       final List<Box.PublicKey> recipients,
       final EncryptedPayload encryptedPayload) {
-    for (final Box.PublicKey recipient : recipients) {
+    // only try the recipients the payload records an encrypted key for, when it has that record
+    final Map<Box.PublicKey, Integer> encryptedKeyOwners = encryptedPayload.encryptedKeyOwners();
+    final List<Box.PublicKey> candidates = encryptedKeyOwners.isEmpty() ? recipients
+        : recipients.stream().filter(encryptedKeyOwners::containsKey).collect(Collectors.toList());
+    for (final Box.PublicKey recipient : candidates) {
       try {
         return Optional.of(enclave.decrypt(encryptedPayload, recipient));
       } catch (final EnclaveException e) {
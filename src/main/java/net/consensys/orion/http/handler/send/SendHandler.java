@@ -17,36 +17,46 @@ import static net.consensys.orion.http.server.HttpContentType.JSON;
 import net.consensys.orion.exception.OrionErrorCode;
 import net.consensys.orion.exception.OrionException;
 import net.consensys.orion.payload.DistributePayloadManager;
+import net.consensys.orion.utils.CryptoWorkerPool;
 import net.consensys.orion.utils.Serializer;
 
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.Json;
 import io.vertx.ext.web.RoutingContext;
 
 public class SendHandler implements Handler<RoutingContext> {
 
   private final DistributePayloadManager distributePayloadManager;
+  private final CryptoWorkerPool cryptoWorkerPool;
 
-  public SendHandler(final DistributePayloadManager distributePayloadManager) {
+  public SendHandler(final DistributePayloadManager distributePayloadManager, final CryptoWorkerPool cryptoWorkerPool) {
     this.distributePayloadManager = distributePayloadManager;
+    this.cryptoWorkerPool = cryptoWorkerPool;
   }
 
   @Override
   public void handle(final RoutingContext routingContext) {
-    final SendRequest sendRequest = parseRequest(routingContext);
+    final Buffer body = routingContext.getBody();
 
-    distributePayloadManager.processSendRequest(sendRequest, res -> {
-      if (res.succeeded()) {
-        routingContext.response().end(Json.encodeToBuffer(res.result()));
-      } else {
-        routingContext.fail(res.cause());
+    // decoding the base64 payload scales with its size, so keep it off the event loop
+    cryptoWorkerPool.execute(() -> parseRequest(body)).setHandler(parsed -> {
+      if (parsed.failed()) {
+        routingContext.fail(parsed.cause());
+        return;
       }
+      distributePayloadManager.processSendRequest(parsed.result(), res -> {
+        if (res.succeeded()) {
+          routingContext.response().end(Json.encodeToBuffer(res.result()));
+        } else {
+          routingContext.fail(res.cause());
+        }
+      });
     });
   }
 
-  private SendRequest parseRequest(final RoutingContext routingContext) {
-    final SendRequest sendRequest =
-        Serializer.deserialize(JSON, SendRequest.class, routingContext.getBody().getBytes());
+  private SendRequest parseRequest(final Buffer body) {
+    final SendRequest sendRequest = Serializer.deserialize(JSON, SendRequest.class, body.getBytes());
 
     if (!sendRequest.isValid()) {
       throw new OrionException(OrionErrorCode.INVALID_PAYLOAD);
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.http.server.vertx;
+
+import net.consensys.orion.metrics.BlockedEventLoopDetector;
+
+import java.util.function.Supplier;
+
+import io.vertx.core.Handler;
+import io.vertx.ext.web.Route;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Reports the route served by the handlers that follow to the blocked event loop detector, so a handler blocking its
+ * event loop is attributed to its route.
+ *
+ * <p>
+ * Only the handlers running before control returns to the event loop are covered, so this handler must be registered
+ * after the body handler.
+ */
+public class BlockedRouteHandler implements Handler<RoutingContext> {
+
+  private static final String OTHER_ROUTE = "other";
+
+  private final BlockedEventLoopDetector detector;
+
+  public BlockedRouteHandler(final BlockedEventLoopDetector detector) {
+    this.detector = detector;
+  }
+
+  @Override
+  public void handle(final RoutingContext routingContext) {
+    final Supplier<String> previous = detector.enter(() -> {
+      final Route route = routingContext.currentRoute();
+      return route != null && route.getPath() != null ? route.getPath() : OTHER_ROUTE;
+    });
+    try {
+      routingContext.next();
+    } finally {
+      detector.exit(previous);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.http.server.vertx;
+
+import net.consensys.orion.metrics.MetricsRegistry;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.prometheus.client.Counter;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.Route;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
+
+/**
+ * Rejects requests whose body is over the limit of their route with a 413 status, before reading the body when the
+ * request declares its <code>Content-Length</code>.
+ *
+ * <p>
+ * Bodies streamed without a length are read by a body handler bounded by the same limit, which rejects them once they
+ * reach it. Both kinds of rejections are counted by API and route, along with the bytes rejected: the declared length,
+ * or the limit for streamed bodies.
+ */
+public class BodyLimitHandler implements Handler<RoutingContext> {
+
+  private static final String OTHER_ROUTE = "other";
+  private static final String REJECTED = BodyLimitHandler.class.getName() + ".rejected";
+
+  private final String api;
+  private final long limit;
+  private final Counter rejectedRequests;
+  private final Counter rejectedBytes;
+
+  /**
+   * @param metrics the registry to record the rejections in.
+   * @param api the name of the API served by the route, such as "node" or "client".
+   * @param limit the maximum size in bytes of the request bodies.
+   */
+  public BodyLimitHandler(final MetricsRegistry metrics, final String api, final long limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+    this.api = api;
+    this.limit = limit;
+    this.rejectedRequests = metrics.counter(
+        "orion_http_rejected_requests_total",
+        "HTTP requests rejected because their body was over the limit of their route, by API and route",
+        "api",
+        "route");
+    this.rejectedBytes = metrics.counter(
+        "orion_http_rejected_body_bytes_total",
+        "Bytes in the bodies of the rejected HTTP requests, by API and route",
+        "api",
+        "route");
+  }
+
+  /**
+   * Registers the handlers reading the bodies of the requests of a route, up to a limit.
+   *
+   * @param route the route to register the handlers on.
+   * @param metrics the registry to record the rejections in.
+   * @param api the name of the API served by the route, such as "node" or "client".
+   * @param limit the maximum size in bytes of the request bodies, or 0 to read bodies of any size.
+   * @return the route.
+   */
+  public static Route limitBody(final Route route, final MetricsRegistry metrics, final String api, final long limit) {
+    if (limit <= 0) {
+      return route.handler(BodyHandler.create());
+    }
+    final BodyLimitHandler bodyLimitHandler = new BodyLimitHandler(metrics, api, limit);
+    return route
+        .handler(bodyLimitHandler)
+        .handler(BodyHandler.create().setBodyLimit(limit))
+        .failureHandler(bodyLimitHandler::handleFailure);
+  }
+
+  @Override
+  public void handle(final RoutingContext routingContext) {
+    // the body was already read by the handlers of a more specific route
+    if (routingContext.getBody() != null) {
+      routingContext.next();
+      return;
+    }
+    final String contentLength = routingContext.request().getHeader(HttpHeaders.CONTENT_LENGTH);
+    if (contentLength != null) {
+      final long length;
+      try {
+        length = Long.parseLong(contentLength);
+      } catch (final NumberFormatException e) {
+        routingContext.fail(HttpResponseStatus.BAD_REQUEST.code());
+        return;
+      }
+      if (length > limit) {
+        routingContext.put(REJECTED, Boolean.TRUE);
+        record(routingContext, length);
+        routingContext.fail(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE.code());
+        return;
+      }
+    }
+    routingContext.next();
+  }
+
+  void handleFailure(final RoutingContext failureContext) {
+    if (failureContext.statusCode() == HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE.code()
+        && failureContext.get(REJECTED) == null) {
+      failureContext.put(REJECTED, Boolean.TRUE);
+      record(failureContext, limit);
+    }
+    failureContext.next();
+  }
+
+  private void record(final RoutingContext routingContext, final long bytes) {
+    final Route route = routingContext.currentRoute();
+    final String path = route != null && route.getPath() != null ? route.getPath() : OTHER_ROUTE;
+    rejectedRequests.labels(api, path).inc();
+    rejectedBytes.labels(api, path).inc(bytes);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.http.server.vertx;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Serves HTTP requests on the event loop of the verticle.
+ *
+ * <p>
+ * Deploying several instances listening on the same host and port spreads the connections over as many event loops,
+ * as Vert.x shares the port between them.
+ */
+public class HttpServerVerticle extends AbstractVerticle {
+  private static final Logger log = LogManager.getLogger();
+
+  private final HttpServerOptions options;
+  private final Handler<HttpServerRequest> requestHandler;
+  private HttpServer server;
+
+  /**
+   * @param options the options of the server.
+   * @param requestHandler the handler of the requests, shared by all instances.
+   */
+  public HttpServerVerticle(final HttpServerOptions options, final Handler<HttpServerRequest> requestHandler) {
+    this.options = options;
+    this.requestHandler = requestHandler;
+  }
+
+  @Override
+  public void start(final Future<Void> startFuture) {
+    server = vertx.createHttpServer(options).requestHandler(requestHandler).exceptionHandler(log::error).listen(
+        result -> {
+          if (result.succeeded()) {
+            startFuture.complete();
+          } else {
+            startFuture.fail(result.cause());
+          }
+        });
+  }
+
+  @Override
+  public void stop(final Future<Void> stopFuture) {
+    server.close(stopFuture);
+  }
+
+  /**
+   * @return the port the server listens on.
+   */
+  public int actualPort() {
+    return server.actualPort();
+  }
+}
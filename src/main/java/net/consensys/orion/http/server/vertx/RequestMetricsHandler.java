@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.http.server.vertx;
+
+import net.consensys.orion.metrics.MetricsRegistry;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.Route;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Counts and times the requests served by a router, and tracks how many are in flight.
+ *
+ * <p>
+ * Requests are labelled with the path of the route that answered them, so requests to unknown paths share a single
+ * label, and requests with a method outside the standard HTTP methods share the method "OTHER". Requests whose
+ * connection closed before a response was sent have the status "closed".
+ */
+public class RequestMetricsHandler implements Handler<RoutingContext> {
+
+  private static final String OTHER_ROUTE = "other";
+
+  private final String api;
+  private final Counter requests;
+  private final Histogram duration;
+  private final Gauge.Child inFlight;
+
+  /**
+   * @param metrics the registry to record the requests in.
+   * @param api the name of the API served by the router, such as "node" or "client".
+   */
+  public RequestMetricsHandler(final MetricsRegistry metrics, final String api) {
+    this.api = api;
+    this.requests = metrics.counter(
+        "orion_http_requests_total",
+        "HTTP requests served, by API, route, method and status",
+        "api",
+        "route",
+        "method",
+        "status");
+    this.duration = metrics.histogram(
+        "orion_http_request_duration_seconds",
+        "Time from receiving an HTTP request to sending the end of its response, in seconds",
+        "api",
+        "route",
+        "method");
+    this.inFlight = metrics.gauge("orion_http_requests_in_flight", "HTTP requests being served", "api").labels(api);
+  }
+
+  @Override
+  public void handle(final RoutingContext routingContext) {
+    final long start = System.nanoTime();
+    final String method = routingContext.request().method().name();
+    final HttpServerResponse response = routingContext.response();
+    final AtomicBoolean done = new AtomicBoolean(false);
+    inFlight.inc();
+    // called once the response is sent, or when the connection closes before it is
+    response.endHandler(v -> {
+      if (done.compareAndSet(false, true)) {
+        inFlight.dec();
+        final Route route = routingContext.currentRoute();
+        final String path = route != null && route.getPath() != null ? route.getPath() : OTHER_ROUTE;
+        final String status = response.ended() ? Integer.toString(response.getStatusCode()) : "closed";
+        requests.labels(api, path, method, status).inc();
+        duration.labels(api, path, method).observe(MetricsRegistry.secondsSince(start));
+      }
+    });
+    routingContext.next();
+  }
+}
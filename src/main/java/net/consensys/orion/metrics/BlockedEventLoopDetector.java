@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.VertxThread;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Watches the event loops for tasks running longer than a threshold, and records the route being served and the call
+ * site that blocked the loop.
+ *
+ * <p>
+ * A task blocking a loop is counted once it exceeds the threshold, and its duration is recorded once it ends, as seen
+ * by the periodic checks. The call site is the innermost Orion frame of the stack of the loop. The full stack is logged
+ * at most once per call site and sampling interval.
+ *
+ * <p>
+ * Handlers report the route they serve with {@link #enter(Supplier)} and {@link #exit(Supplier)}.
+ *
+ * <p>
+ * The start time of the task running on a loop is read with {@link VertxThread#startTime()}, which is internal to
+ * Vert.x and may change in any release. Setting the threshold to 0 turns the detector off entirely. Vert.x's own
+ * blocked thread checker reads it the same way: it is a plain field set by the loop, so a check may see a value one
+ * task late, which only delays a report to the next check. BlockedEventLoopDetectorTest pins the behavior relied on.
+ */
+public final class BlockedEventLoopDetector {
+  private static final Logger log = LogManager.getLogger();
+
+  private static final String ORION_PACKAGE = "net.consensys.orion.";
+  private static final String NO_ROUTE = "none";
+  private static final long MIN_CHECK_INTERVAL_MS = 10;
+
+  private final long thresholdNanos;
+  private final long checkIntervalMs;
+  private final long stackSampleIntervalNanos;
+  private final Counter blocked;
+  private final Histogram blockedDuration;
+  private final Map<Thread, Supplier<String>> activeRoutes = new ConcurrentHashMap<>();
+  private final Map<VertxThread, Block> blocks = new ConcurrentHashMap<>();
+  private final Map<String, Long> lastStackLogged = new ConcurrentHashMap<>();
+  @Nullable
+  private ScheduledExecutorService checker;
+
+  /**
+   * @param metrics the registry to record blocked loops in.
+   * @param thresholdMs how long in milliseconds a task may run on an event loop before it is reported, or 0 to disable
+   *        the detector.
+   * @param stackSampleIntervalMs the minimum time in milliseconds between two stacks logged for the same call site.
+   */
+  public BlockedEventLoopDetector(
+      final MetricsRegistry metrics,
+      final long thresholdMs,
+      final long stackSampleIntervalMs) {
+    this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+    this.checkIntervalMs = Math.max(MIN_CHECK_INTERVAL_MS, thresholdMs / 2);
+    this.stackSampleIntervalNanos = TimeUnit.MILLISECONDS.toNanos(stackSampleIntervalMs);
+    this.blocked = metrics.counter(
+        "orion_event_loop_blocked_total",
+        "Tasks that ran on an event loop for longer than the threshold, by route and call site",
+        "route",
+        "site");
+    this.blockedDuration = metrics.histogram(
+        "orion_event_loop_blocked_duration_seconds",
+        "Time event loops were blocked by tasks exceeding the threshold, by route and call site, in seconds",
+        "route",
+        "site");
+  }
+
+  /**
+   * Start watching the event loops of a Vert.x instance.
+   *
+   * @param vertx the Vert.x instance.
+   */
+  public synchronized void start(final Vertx vertx) {
+    if (thresholdNanos <= 0 || checker != null) {
+      return;
+    }
+    for (final EventExecutor executor : vertx.nettyEventLoopGroup()) {
+      executor.execute(() -> {
+        final Thread thread = Thread.currentThread();
+        if (thread instanceof VertxThread) {
+          blocks.put((VertxThread) thread, new Block());
+        }
+      });
+    }
+    checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "orion-blocked-event-loop-detector");
+      thread.setDaemon(true);
+      return thread;
+    });
+    checker.scheduleAtFixedRate(this::check, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop watching the event loops.
+   */
+  public synchronized void stop() {
+    if (checker != null) {
+      checker.shutdownNow();
+      checker = null;
+    }
+  }
+
+  /**
+   * Report that the current thread starts serving a route.
+   *
+   * @param route supplies the route served, read when the thread is found blocked.
+   * @return the route the thread was serving before, to pass to {@link #exit(Supplier)}.
+   */
+  @Nullable
+  public Supplier<String> enter(final Supplier<String> route) {
+    if (thresholdNanos <= 0) {
+      return null;
+    }
+    return activeRoutes.put(Thread.currentThread(), route);
+  }
+
+  /**
+   * Report that the current thread is done serving the route it entered last.
+   *
+   * @param previous the route returned by the matching call to {@link #enter(Supplier)}.
+   */
+  public void exit(@Nullable final Supplier<String> previous) {
+    if (thresholdNanos <= 0) {
+      return;
+    }
+    if (previous == null) {
+      activeRoutes.remove(Thread.currentThread());
+    } else {
+      activeRoutes.put(Thread.currentThread(), previous);
+    }
+  }
+
+  private void check() {
+    final long now = System.nanoTime();
+    blocks.forEach((thread, block) -> {
+      // internal Vert.x API, see the class documentation
+      final long start = thread.startTime();
+      if (block.start != 0 && block.start != start) {
+        // the blocking task ended since the last check
+        blockedDuration.labels(block.labels).observe(
+            (block.lastSeen - block.start) / (double) TimeUnit.SECONDS.toNanos(1));
+        block.start = 0;
+      }
+      if (start == 0 || block.start == start || now - start < thresholdNanos) {
+        if (block.start != 0) {
+          block.lastSeen = now;
+        }
+        return;
+      }
+
+      block.start = start;
+      block.lastSeen = now;
+      final StackTraceElement[] stack = thread.getStackTrace();
+      final Supplier<String> route = activeRoutes.get(thread);
+      final String routeName = route != null ? route.get() : NO_ROUTE;
+      final String site = callSite(stack);
+      block.labels = new String[] {routeName, site};
+      blocked.labels(routeName, site).inc();
+
+      final Long lastLogged = lastStackLogged.get(site);
+      if (lastLogged == null || now - lastLogged >= stackSampleIntervalNanos) {
+        lastStackLogged.put(site, now);
+        final Exception trace = new Exception("event loop blocked at " + site);
+        trace.setStackTrace(stack);
+        log.warn(
+            "{} blocked for {} ms serving {} at {}",
+            thread.getName(),
+            TimeUnit.NANOSECONDS.toMillis(now - start),
+            routeName,
+            site,
+            trace);
+      }
+    });
+  }
+
+  static String callSite(final StackTraceElement[] stack) {
+    for (final StackTraceElement frame : stack) {
+      final String className = frame.getClassName();
+      if (className.startsWith(ORION_PACKAGE) && !className.equals(BlockedEventLoopDetector.class.getName())) {
+        return frame.getClassName() + "." + frame.getMethodName();
+      }
+    }
+    return stack.length > 0 ? stack[0].getClassName() + "." + stack[0].getMethodName() : "unknown";
+  }
+
+  private static final class Block {
+    // start time of the task reported as blocking, or 0
+    private long start;
+    private long lastSeen;
+    private String[] labels;
+  }
+}
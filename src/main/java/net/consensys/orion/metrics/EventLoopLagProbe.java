@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import io.vertx.core.AbstractVerticle;
+
+/**
+ * Measures how late timers fire on an event loop, which is how long tasks wait behind whatever is blocking the loop.
+ *
+ * <p>
+ * Deploy as many instances as there are event loops to measure each of them, as Vert.x spreads instances of a verticle
+ * over its event loops.
+ */
+public final class EventLoopLagProbe extends AbstractVerticle {
+
+  private final long intervalMs;
+  private final Histogram lag;
+  private final Gauge currentLag;
+  private long timerId;
+
+  /**
+   * @param metrics the registry to record the lag in.
+   * @param intervalMs the interval in milliseconds between measurements.
+   */
+  public EventLoopLagProbe(final MetricsRegistry metrics, final long intervalMs) {
+    this.intervalMs = intervalMs;
+    this.lag = metrics.histogram(
+        "orion_event_loop_lag_seconds",
+        "Time timers fired late on an event loop, in seconds",
+        "loop");
+    this.currentLag = metrics.gauge(
+        "orion_event_loop_current_lag_seconds",
+        "Time the last timer fired late on an event loop, in seconds",
+        "loop");
+  }
+
+  @Override
+  public void start() {
+    final String loop = Thread.currentThread().getName();
+    schedule(loop);
+  }
+
+  @Override
+  public void stop() {
+    vertx.cancelTimer(timerId);
+  }
+
+  private void schedule(final String loop) {
+    final long expected = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervalMs);
+    timerId = vertx.setTimer(intervalMs, id -> {
+      final double lastLag = Math.max(0, System.nanoTime() - expected) / (double) TimeUnit.SECONDS.toNanos(1);
+      lag.labels(loop).observe(lastLag);
+      currentLag.labels(loop).set(lastLag);
+      schedule(loop);
+    });
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import io.prometheus.client.exporter.common.TextFormat;
+
+/**
+ * Holds the metrics of an Orion node in a Prometheus collector registry, and renders them in the Prometheus text
+ * exposition format.
+ *
+ * <p>
+ * Registering a metric under a name that is already registered returns the existing metric, so components created
+ * more than once share their metrics.
+ */
+public final class MetricsRegistry {
+
+  /**
+   * Upper bounds in seconds of the buckets of latency histograms.
+   */
+  public static final double[] LATENCY_BUCKETS =
+      new double[] {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+  private final CollectorRegistry registry = new CollectorRegistry();
+  private final Map<String, Registered> metrics = new HashMap<>();
+
+  /**
+   * Register a counter.
+   *
+   * @param name the name of the counter, conventionally ending in <code>_total</code>.
+   * @param help the description of the counter.
+   * @param labelNames the names of the labels of the counter.
+   * @return the counter.
+   */
+  public Counter counter(final String name, final String help, final String... labelNames) {
+    return register(Counter.class, name, labelNames, () -> Counter.build(name, help).labelNames(labelNames).create());
+  }
+
+  /**
+   * Register a counter without labels, reporting the count of a supplier.
+   *
+   * @param name the name of the counter, conventionally ending in <code>_total</code>.
+   * @param help the description of the counter.
+   * @param count the supplier of the count, called from the thread collecting the metrics.
+   */
+  public void counter(final String name, final String help, final LongSupplier count) {
+    counter(name, help).setChild(countOf(count));
+  }
+
+  /**
+   * Register a gauge.
+   *
+   * @param name the name of the gauge.
+   * @param help the description of the gauge.
+   * @param labelNames the names of the labels of the gauge.
+   * @return the gauge.
+   */
+  public Gauge gauge(final String name, final String help, final String... labelNames) {
+    return register(Gauge.class, name, labelNames, () -> Gauge.build(name, help).labelNames(labelNames).create());
+  }
+
+  /**
+   * Register a gauge without labels, reporting the value of a supplier.
+   *
+   * @param name the name of the gauge.
+   * @param help the description of the gauge.
+   * @param value the supplier of the value, called from the thread collecting the metrics.
+   */
+  public void gauge(final String name, final String help, final DoubleSupplier value) {
+    gauge(name, help).setChild(valueOf(value));
+  }
+
+  /**
+   * Register a histogram of durations in seconds.
+   *
+   * @param name the name of the histogram, conventionally ending in <code>_seconds</code>.
+   * @param help the description of the histogram.
+   * @param labelNames the names of the labels of the histogram.
+   * @return the histogram.
+   */
+  public Histogram histogram(final String name, final String help, final String... labelNames) {
+    return histogram(name, help, LATENCY_BUCKETS, labelNames);
+  }
+
+  /**
+   * Register a histogram.
+   *
+   * @param name the name of the histogram.
+   * @param help the description of the histogram.
+   * @param buckets the upper bounds of the buckets, in increasing order.
+   * @param labelNames the names of the labels of the histogram.
+   * @return the histogram.
+   */
+  public Histogram histogram(
+      final String name,
+      final String help,
+      final double[] buckets,
+      final String... labelNames) {
+    return register(
+        Histogram.class,
+        name,
+        labelNames,
+        () -> Histogram.build(name, help).buckets(buckets).labelNames(labelNames).create());
+  }
+
+  /**
+   * @return the Prometheus registry holding the metrics.
+   */
+  public CollectorRegistry collectorRegistry() {
+    return registry;
+  }
+
+  /**
+   * @return all metrics in the Prometheus text exposition format.
+   */
+  public String scrape() {
+    final StringWriter out = new StringWriter();
+    try {
+      TextFormat.write004(out, registry.metricFamilySamples());
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toString();
+  }
+
+  /**
+   * A counter child reporting the count of a supplier, for counts kept by another component such as a cache.
+   *
+   * @param count the supplier of the count, called from the thread collecting the metrics. It must never decrease.
+   * @return the child, to set on a counter with {@link Counter#setChild(Object, String...)}.
+   */
+  public static Counter.Child countOf(final LongSupplier count) {
+    return new Counter.Child() {
+      @Override
+      public double get() {
+        return count.getAsLong();
+      }
+    };
+  }
+
+  /**
+   * A gauge child reporting the value of a supplier.
+   *
+   * @param value the supplier of the value, called from the thread collecting the metrics.
+   * @return the child, to set on a gauge with {@link Gauge#setChild(Object, String...)}.
+   */
+  public static Gauge.Child valueOf(final DoubleSupplier value) {
+    return new Gauge.Child() {
+      @Override
+      public double get() {
+        return value.getAsDouble();
+      }
+    };
+  }
+
+  /**
+   * @param startNanos an instant, as returned by {@link System#nanoTime()}.
+   * @return the time in seconds elapsed since the instant, to observe in a histogram.
+   */
+  public static double secondsSince(final long startNanos) {
+    return (System.nanoTime() - startNanos) / Collector.NANOSECONDS_PER_SECOND;
+  }
+
+  private <M extends Collector> M register(
+      final Class<M> type,
+      final String name,
+      final String[] labelNames,
+      final Supplier<M> factory) {
+    final Registered registered;
+    synchronized (metrics) {
+      registered = metrics.computeIfAbsent(
+          name,
+          n -> new Registered(factory.get().register(registry), Arrays.asList(labelNames)));
+    }
+    if (!type.isInstance(registered.collector) || !registered.labelNames.equals(Arrays.asList(labelNames))) {
+      throw new IllegalArgumentException("Metric " + name + " is already registered with another type or labels");
+    }
+    return type.cast(registered.collector);
+  }
+
+  private static final class Registered {
+    private final Collector collector;
+    private final List<String> labelNames;
+
+    Registered(final Collector collector, final List<String> labelNames) {
+      this.collector = collector;
+      this.labelNames = labelNames;
+    }
+  }
+}
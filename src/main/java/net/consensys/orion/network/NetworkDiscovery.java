@@ -15,19 +15,25 @@ package net.consensys.orion.network;
 import static net.consensys.orion.http.server.HttpContentType.CBOR;
 
 import net.consensys.orion.config.Config;
+import net.consensys.orion.metrics.MetricsRegistry;
 import net.consensys.orion.utils.Serializer;
 
 import java.net.URI;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import io.prometheus.client.Histogram;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Context;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -35,53 +41,115 @@ public class NetworkDiscovery extends AbstractVerticle {
   private static final Logger log = LogManager.getLogger();
 
   private static final int HTTP_CLIENT_TIMEOUT_MS = 1500;
-  private static final long REFRESH_DELAY_MS = 500;
-  private static final long MAX_REFRESH_DELAY_MS = 60000;
-
-  private Optional<HttpClient> httpClient = Optional.empty();
 
+  private final NodeHttpClient httpClient;
+  private final PeerHealth peerHealth;
+  private final Histogram roundDuration;
   private final PersistentNetworkNodes nodes;
   private final Map<URI, Discoverer> discoverers;
   private final Config config;
-  private final long refreshDelayMs;
+  private final long minRefreshDelayMs;
+  private final long maxRefreshDelayMs;
+  private final double jitter;
+  private final int maxConcurrentRequests;
   private final int clientTimeoutMs;
+  // discoverers waiting for one of the in-flight /partyinfo calls to complete
+  private final Deque<Discoverer> waitingDiscoverers = new ArrayDeque<>();
+  private int inFlightRequests = 0;
+  private Runnable nodesAdded;
+  private boolean stopped;
 
   public NetworkDiscovery(
       final PersistentNetworkNodes nodes,
       final Config config,
+      final NodeHttpClient httpClient,
+      final PeerHealth peerHealth,
+      final MetricsRegistry metrics,
       final long refreshDelayMs,
       final int clientTimeoutMs) {
+    this.httpClient = httpClient;
+    this.peerHealth = peerHealth;
+    this.roundDuration = metrics.histogram(
+        "orion_discovery_round_duration_seconds",
+        "Time taken to exchange party info with a peer, by result, in seconds",
+        "result");
+    metrics.gauge(
+        "orion_discovery_in_flight_requests",
+        "Party info exchanges in progress",
+        () -> inFlightRequests);
     this.nodes = nodes;
     this.discoverers = new HashMap<>();
     this.config = config;
-    this.refreshDelayMs = refreshDelayMs;
+    this.minRefreshDelayMs = refreshDelayMs;
+    this.maxRefreshDelayMs = Math.max(refreshDelayMs, config.discoveryMaxRefreshInterval());
+    this.jitter = config.discoveryJitter() / 100.0;
+    this.maxConcurrentRequests = config.discoveryMaxConcurrentRequests();
     this.clientTimeoutMs = clientTimeoutMs;
   }
 
-  public NetworkDiscovery(final PersistentNetworkNodes nodes, final Config config) {
-    this(nodes, config, REFRESH_DELAY_MS, HTTP_CLIENT_TIMEOUT_MS);
+  public NetworkDiscovery(
+      final PersistentNetworkNodes nodes,
+      final Config config,
+      final NodeHttpClient httpClient,
+      final long refreshDelayMs,
+      final int clientTimeoutMs) {
+    this(
+        nodes,
+        config,
+        httpClient,
+        new PeerHealth(config.peerFailureThreshold(), config.peerRetryInterval()),
+        new MetricsRegistry(),
+        refreshDelayMs,
+        clientTimeoutMs);
+  }
+
+  public NetworkDiscovery(
+      final PersistentNetworkNodes nodes,
+      final Config config,
+      final NodeHttpClient httpClient,
+      final PeerHealth peerHealth,
+      final MetricsRegistry metrics) {
+    this(
+        nodes,
+        config,
+        httpClient,
+        peerHealth,
+        metrics,
+        config.discoveryMinRefreshInterval(),
+        HTTP_CLIENT_TIMEOUT_MS);
+  }
+
+  public NetworkDiscovery(final PersistentNetworkNodes nodes, final Config config, final NodeHttpClient httpClient) {
+    this(nodes, config, httpClient, config.discoveryMinRefreshInterval(), HTTP_CLIENT_TIMEOUT_MS);
   }
 
   @Override
   public void start() {
-    this.httpClient = Optional.of(NodeHttpClientBuilder.build(vertx, config, clientTimeoutMs));
+    // nodes can also be learned from peers calling our /partyinfo, from another event loop
+    final Context context = vertx.getOrCreateContext();
+    nodesAdded = () -> context.runOnContext(v -> {
+      if (!stopped) {
+        updateDiscoverers();
+        expediteDiscoverers();
+      }
+    });
+    nodes.addListener(nodesAdded);
     updateDiscoverers();
   }
 
   @Override
   public void stop() {
+    stopped = true;
+    nodes.removeListener(nodesAdded);
+    waitingDiscoverers.clear();
     for (final Discoverer discoverer : discoverers.values()) {
       discoverer.cancel();
     }
-    httpClient.ifPresent(client -> {
-      client.close();
-      httpClient = Optional.empty();
-    });
   }
 
   /**
    * Should be called from the same vertx event loop either when NetworkDiscovery is deployed (via start() method) or
-   * when a merge occurs in one of the Discoverer (same event loop)
+   * when nodes are added to the network nodes
    */
   private void updateDiscoverers() {
     log.trace("Updating discoverers");
@@ -96,13 +164,36 @@ public class NetworkDiscovery extends AbstractVerticle {
 
   }
 
+  /**
+   * Calls /partyinfo soon on every healthy peer, so nodes we just learned about are passed on quickly. Peers that are
+   * failing keep backing off.
+   */
+  private void expediteDiscoverers() {
+    for (final Discoverer discoverer : discoverers.values()) {
+      discoverer.expedite();
+    }
+  }
+
+  private void requestCompleted() {
+    inFlightRequests--;
+    final Discoverer next = waitingDiscoverers.poll();
+    if (next != null) {
+      next.requestPartyInfo();
+    }
+  }
+
+  private long jittered(final long delay) {
+    final double factor = 1.0 + jitter * (2.0 * ThreadLocalRandom.current().nextDouble() - 1.0);
+    return Math.max(1, (long) (delay * factor));
+  }
+
   public Map<URI, Discoverer> discoverers() {
     return new HashMap<>(discoverers);
   }
 
   private Discoverer createDiscoverer(URI uri) {
     log.trace("New discoverer for {}", uri);
-    final Discoverer d = new Discoverer(uri, refreshDelayMs, uri.equals(nodes.uri()));
+    final Discoverer d = new Discoverer(uri, uri.equals(nodes.uri()));
     d.engageNextTimerTick();
     return d;
   }
@@ -112,19 +203,27 @@ public class NetworkDiscovery extends AbstractVerticle {
    *
    * <p>
    * Its job is to call /partyInfo periodically on a specified URL and merge results if needed in NetworkDiscovery state
+   *
+   * <p>
+   * The delay between calls doubles up to the maximum refresh delay, and each peer backs off on its own while it keeps
+   * failing. Whether the peer answered is recorded in the peer health.
    */
   class Discoverer implements Handler<Long> {
     private final URI nodeUrl;
     long currentRefreshDelay;
     Instant lastUpdate = Instant.MIN;
     long attempts = 0;
+    long consecutiveFailures = 0;
     private long timerId;
     private final boolean self;
     private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    // version of the peer's party info we last merged, and the version of ours it last received
+    private PartyInfoVersion peerVersion;
+    private long sentVersion = 0;
 
-    Discoverer(final URI nodeUrl, final long refreshDelayMs, final boolean self) {
+    Discoverer(final URI nodeUrl, final boolean self) {
       this.nodeUrl = nodeUrl;
-      this.currentRefreshDelay = refreshDelayMs;
+      this.currentRefreshDelay = minRefreshDelayMs;
       this.self = self;
     }
 
@@ -136,46 +235,117 @@ public class NetworkDiscovery extends AbstractVerticle {
       if (self) {
         log.trace("updating discoverers (local discovery)");
         updateDiscoverers();
-        engageNextTimerTick();
+        succeeded();
       } else {
-        log.trace("calling /partyinfo on {}", nodeUrl);
-        attempts++;
-
-        httpClient
-            .orElseThrow(IllegalStateException::new)
-            .post(nodeUrl.getPort(), nodeUrl.getHost(), "/partyinfo", resp -> {
-              if (resp.statusCode() == 200) {
-                lastUpdate = Instant.now();
-                resp.bodyHandler(respBody -> {
-                  // deserialize response
-                  ReadOnlyNetworkNodes partyInfoResponse =
-                      Serializer.deserialize(CBOR, ReadOnlyNetworkNodes.class, respBody.getBytes());
-                  if (nodes.merge(partyInfoResponse)) {
-                    log.info("merged new nodes from {} discoverer", nodeUrl);
-                  }
-                  NetworkDiscovery.this.updateDiscoverers();
-                });
+        requestPartyInfo();
+      }
+    }
+
+    void requestPartyInfo() {
+      if (inFlightRequests >= maxConcurrentRequests) {
+        log.trace("delaying /partyinfo on {} until another call completes", nodeUrl);
+        waitingDiscoverers.add(this);
+        return;
+      }
+      inFlightRequests++;
+      final long start = System.nanoTime();
+      final AtomicBoolean completed = new AtomicBoolean(false);
+      log.trace("calling /partyinfo on {}", nodeUrl);
+      attempts++;
+
+      // only send the entries added since the peer last received our party info
+      final long requestSince = sentVersion;
+      final long requestVersion = nodes.version().version();
+      final ReadOnlyNetworkNodes request = new ReadOnlyNetworkNodes(nodes.uri(), nodes.changesSince(requestSince));
+
+      final HttpClientRequest partyInfoRequest = httpClient
+          .post(nodeUrl, "/partyinfo", clientTimeoutMs)
+          .handler(resp -> {
+            peerHealth.recordSuccess(nodeUrl);
+            final boolean success = resp.statusCode() == 200;
+            if (success) {
+              lastUpdate = Instant.now();
+              final Optional<PartyInfoVersion> responseVersion =
+                  PartyInfoVersion.parse(resp.getHeader(PartyInfoVersion.VERSION_HEADER));
+              final boolean full = Boolean.parseBoolean(resp.getHeader(PartyInfoVersion.FULL_HEADER));
+              resp.bodyHandler(respBody -> {
+                // deserialize response
+                ReadOnlyNetworkNodes partyInfoResponse =
+                    Serializer.deserialize(CBOR, ReadOnlyNetworkNodes.class, respBody.getBytes());
+                final boolean merged = nodes.merge(partyInfoResponse);
+                if (merged) {
+                  log.info("merged new nodes from {} discoverer", nodeUrl);
+                }
+                if (responseVersion.isPresent()) {
+                  // a full response to a partial request means the peer restarted, and may have lost what we sent
+                  sentVersion = full && requestSince != 0 ? 0 : requestVersion;
+                  peerVersion = responseVersion.get();
+                } else {
+                  // the peer does not version its party info, keep exchanging full party info with it
+                  sentVersion = 0;
+                  peerVersion = null;
+                }
+                NetworkDiscovery.this.updateDiscoverers();
+              });
+            } else {
+              log.debug("Response code: {}", resp.statusCode());
+            }
+            if (completed.compareAndSet(false, true)) {
+              roundDuration.labels(success ? "success" : "failure").observe(MetricsRegistry.secondsSince(start));
+              if (success) {
+                succeeded();
               } else {
-                log.debug("Response code: {}", resp.statusCode());
+                failed();
               }
-              engageNextTimerTick();
-            })
-            .exceptionHandler(ex -> {
-              log.error("calling partyInfo on {} failed {}", nodeUrl, ex.getMessage());
-              engageNextTimerTick();
-            })
-            .putHeader("Content-Type", "application/cbor")
-            .setTimeout(clientTimeoutMs)
-            .end(Buffer.buffer(Serializer.serialize(CBOR, nodes)));
+              requestCompleted();
+            }
+          })
+          .exceptionHandler(ex -> {
+            log.error("calling partyInfo on {} failed {}", nodeUrl, ex.getMessage());
+            // a timed out request fails again once its connection is closed, only count the first failure
+            if (completed.compareAndSet(false, true)) {
+              peerHealth.recordFailure(nodeUrl);
+              roundDuration.labels("failure").observe(MetricsRegistry.secondsSince(start));
+              failed();
+              requestCompleted();
+            }
+          })
+          .putHeader("Content-Type", "application/cbor");
+      if (peerVersion != null) {
+        partyInfoRequest.putHeader(PartyInfoVersion.KNOWN_VERSION_HEADER, peerVersion.toString());
+      }
+      partyInfoRequest.end(Buffer.buffer(Serializer.serialize(CBOR, request)));
+    }
+
+    private void succeeded() {
+      if (consecutiveFailures > 0) {
+        // the peer is back, exchange party info with it again soon
+        consecutiveFailures = 0;
+        currentRefreshDelay = minRefreshDelayMs;
+      } else {
+        currentRefreshDelay = Math.min(currentRefreshDelay * 2, maxRefreshDelayMs);
       }
+      engageNextTimerTick();
+    }
+
+    private void failed() {
+      consecutiveFailures++;
+      currentRefreshDelay = Math.min(currentRefreshDelay * 2, maxRefreshDelayMs);
+      engageNextTimerTick();
     }
 
     void engageNextTimerTick() {
       if (scheduled.compareAndSet(false, true)) {
-        currentRefreshDelay = (long) ((double) currentRefreshDelay * 2.0);
-        currentRefreshDelay = Math.min(currentRefreshDelay, MAX_REFRESH_DELAY_MS);
-        this.timerId = vertx.setTimer(currentRefreshDelay, this);
+        this.timerId = vertx.setTimer(jittered(currentRefreshDelay), this);
+      }
+    }
+
+    void expedite() {
+      if (self || consecutiveFailures > 0 || !scheduled.get() || !vertx.cancelTimer(timerId)) {
+        return;
       }
+      currentRefreshDelay = minRefreshDelayMs;
+      this.timerId = vertx.setTimer(1 + ThreadLocalRandom.current().nextLong(minRefreshDelayMs), this);
     }
 
     @Override
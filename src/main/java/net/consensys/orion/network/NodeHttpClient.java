@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.network;
+
+import net.consensys.orion.config.Config;
+
+import java.net.URI;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+
+/**
+ * The client used for all requests to other nodes, so connections and TLS sessions to a peer are reused whichever
+ * component talks to it.
+ */
+public final class NodeHttpClient {
+
+  private final HttpClient httpClient;
+  private final long requestTimeoutMs;
+
+  /**
+   * Creates the node client described by the configuration.
+   *
+   * @param vertx the Vert.x instance.
+   * @param config the Orion configuration.
+   * @return the node client.
+   */
+  public static NodeHttpClient create(final Vertx vertx, final Config config) {
+    return new NodeHttpClient(NodeHttpClientBuilder.build(vertx, config), config.nodeClientRequestTimeout());
+  }
+
+  /**
+   * @param httpClient the underlying HTTP client.
+   * @param requestTimeoutMs the time in milliseconds after which a request without a response fails, or 0 to wait
+   *        indefinitely.
+   */
+  public NodeHttpClient(final HttpClient httpClient, final long requestTimeoutMs) {
+    this.httpClient = httpClient;
+    this.requestTimeoutMs = requestTimeoutMs;
+  }
+
+  /**
+   * Creates a POST request to a node, using the configured request timeout.
+   *
+   * @param url the URL of the node.
+   * @param path the path of the request.
+   * @return the request, ready to be ended.
+   */
+  public HttpClientRequest post(final URI url, final String path) {
+    return post(url, path, requestTimeoutMs);
+  }
+
+  /**
+   * Creates a POST request to a node.
+   *
+   * @param url the URL of the node.
+   * @param path the path of the request.
+   * @param timeoutMs the time in milliseconds after which the request fails without a response, or 0 to wait
+   *        indefinitely.
+   * @return the request, ready to be ended.
+   */
+  public HttpClientRequest post(final URI url, final String path, final long timeoutMs) {
+    final HttpClientRequest request = httpClient.post(url.getPort(), url.getHost(), path);
+    if (timeoutMs > 0) {
+      request.setTimeout(timeoutMs);
+    }
+    return request;
+  }
+
+  public void close() {
+    httpClient.close();
+  }
+}
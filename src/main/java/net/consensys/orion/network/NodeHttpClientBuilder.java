@@ -19,20 +19,43 @@ import java.nio.file.Path;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.core.net.PemKeyCertOptions;
 import io.vertx.core.net.PemTrustOptions;
 import org.apache.tuweni.net.tls.VertxTrustOptions;
 
 public class NodeHttpClientBuilder {
 
-  private static final int MAX_WAIT_QUEUE_SIZE = 32;
-
   private NodeHttpClientBuilder() {}
 
-  public static HttpClient build(final Vertx vertx, final Config config, final int clientTimeoutMs) {
-    final HttpClientOptions options =
-        new HttpClientOptions().setConnectTimeout(clientTimeoutMs).setIdleTimeout(clientTimeoutMs).setMaxWaitQueueSize(
-            MAX_WAIT_QUEUE_SIZE);
+  public static HttpClient build(final Vertx vertx, final Config config) {
+    final HttpClientOptions options = new HttpClientOptions()
+        .setConnectTimeout(config.nodeClientConnectTimeout())
+        .setIdleTimeout(config.nodeClientIdleTimeout())
+        .setMaxPoolSize(config.nodeClientMaxPoolSize())
+        .setHttp2MaxPoolSize(config.nodeClientMaxPoolSize())
+        .setMaxWaitQueueSize(config.nodeClientMaxWaitQueueSize());
+
+    TcpOptionHelpers.applyClientTcpOptions(config, options);
+
+    final int keepAliveTimeout = config.nodeClientKeepAliveTimeout();
+    if (keepAliveTimeout > 0) {
+      options.setKeepAliveTimeout(keepAliveTimeout).setHttp2KeepAliveTimeout(keepAliveTimeout);
+    } else {
+      options.setKeepAlive(false);
+    }
+
+    final int pipeliningLimit = config.nodeClientPipeliningLimit();
+    if (pipeliningLimit > 0) {
+      options.setPipelining(true).setPipeliningLimit(pipeliningLimit);
+    }
+
+    final boolean http2 = "http2".equals(config.nodeHttpVersion());
+    if (http2) {
+      // HTTP/1.1 is still used with peers that don't accept the ALPN negotiation or the h2c upgrade
+      options.setProtocolVersion(HttpVersion.HTTP_2).setHttp2ClearTextUpgrade(true).setHttp2MultiplexingLimit(
+          config.nodeHttp2MaxConcurrentStreams());
+    }
 
     if ("strict".equals(config.tls())) {
       final Path workDir = config.workDir();
@@ -43,6 +66,7 @@ public class NodeHttpClientBuilder {
           new PemKeyCertOptions().setKeyPath(tlsClientKey.toString()).setCertPath(tlsClientCert.toString());
 
       options.setSsl(true);
+      options.setUseAlpn(http2);
       options.setPemKeyCertOptions(pemKeyCertOptions);
 
       if (!config.tlsClientChain().isEmpty()) {
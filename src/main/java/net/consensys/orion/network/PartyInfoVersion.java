@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.network;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Version of the party info of a node, exchanged in headers of /partyinfo calls so nodes only send each other the
+ * entries added since they last synced.
+ *
+ * <p>
+ * The epoch identifies one instance of a node's routing table, and changes when the node restarts. The version counts
+ * the entries added to the table within the epoch.
+ */
+public final class PartyInfoVersion {
+
+  /** Request header carrying the version of the called node's party info last received by the caller. */
+  public static final String KNOWN_VERSION_HEADER = "orion-partyinfo-known";
+  /** Response header carrying the version of the called node's party info. */
+  public static final String VERSION_HEADER = "orion-partyinfo-version";
+  /** Response header set to true when the response holds the full party info rather than the changes. */
+  public static final String FULL_HEADER = "orion-partyinfo-full";
+
+  private final long epoch;
+  private final long version;
+
+  public PartyInfoVersion(final long epoch, final long version) {
+    this.epoch = epoch;
+    this.version = version;
+  }
+
+  /**
+   * Parses a version from a header value.
+   *
+   * @param header the header value, may be null
+   * @return the version, or empty if the header is missing or malformed.
+   */
+  public static Optional<PartyInfoVersion> parse(final String header) {
+    if (header == null) {
+      return Optional.empty();
+    }
+    final String[] parts = header.split(":", 2);
+    if (parts.length != 2) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(new PartyInfoVersion(Long.parseLong(parts[0]), Long.parseLong(parts[1])));
+    } catch (final NumberFormatException e) {
+      return Optional.empty();
+    }
+  }
+
+  public long epoch() {
+    return epoch;
+  }
+
+  public long version() {
+    return version;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof PartyInfoVersion)) {
+      return false;
+    }
+    final PartyInfoVersion that = (PartyInfoVersion) o;
+    return epoch == that.epoch && version == that.version;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(epoch, version);
+  }
+
+  @Override
+  public String toString() {
+    return epoch + ":" + version;
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.network;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks whether peers can be reached, from the outcome of the requests sent to them, and stops sending payloads to
+ * peers known to be unreachable.
+ *
+ * <p>
+ * A peer becomes unreachable after a number of consecutive failed requests. Requests to it then fail immediately
+ * instead of waiting for a connection to time out. Once the retry interval has elapsed a single request is let through
+ * to probe the peer, and the peer is reachable again as soon as any request to it succeeds.
+ */
+public final class PeerHealth {
+
+  public enum State {
+    /** Requests are sent to the peer. */
+    REACHABLE,
+    /** Requests to the peer fail immediately. */
+    UNREACHABLE,
+    /** A single request is probing whether the peer is reachable again. */
+    PROBING
+  }
+
+  private final int failureThreshold;
+  private final long retryInterval;
+  private final Clock clock;
+  private final Map<URI, Peer> peers = new ConcurrentHashMap<>();
+
+  /**
+   * @param failureThreshold the number of consecutive failures after which a peer is unreachable, or 0 to always send
+   *        requests to peers.
+   * @param retryInterval the time in milliseconds after which an unreachable peer is probed again.
+   */
+  public PeerHealth(final int failureThreshold, final long retryInterval) {
+    this(failureThreshold, retryInterval, Clock.systemUTC());
+  }
+
+  PeerHealth(final int failureThreshold, final long retryInterval, final Clock clock) {
+    this.failureThreshold = failureThreshold;
+    this.retryInterval = retryInterval;
+    this.clock = clock;
+  }
+
+  /**
+   * Check whether a request may be sent to a peer. When a probe of an unreachable peer is allowed, its outcome must be
+   * recorded with {@link #recordSuccess(URI)} or {@link #recordFailure(URI)}.
+   *
+   * @param peer the URL of the peer.
+   * @return true if the request should be sent, false if it should fail immediately.
+   */
+  public boolean allowRequest(final URI peer) {
+    final Peer state = peers.get(peer);
+    return state == null || state.allowRequest();
+  }
+
+  /**
+   * Record that a peer answered a request.
+   *
+   * @param peer the URL of the peer.
+   */
+  public void recordSuccess(final URI peer) {
+    peers.computeIfAbsent(peer, p -> new Peer()).recordSuccess();
+  }
+
+  /**
+   * Record that a request to a peer failed without an answer.
+   *
+   * @param peer the URL of the peer.
+   */
+  public void recordFailure(final URI peer) {
+    peers.computeIfAbsent(peer, p -> new Peer()).recordFailure();
+  }
+
+  /**
+   * @param peer the URL of the peer.
+   * @return the health of the peer, or null if no request was sent to it yet.
+   */
+  public Status status(final URI peer) {
+    final Peer state = peers.get(peer);
+    return state == null ? null : state.status();
+  }
+
+  /**
+   * @return the health of each peer requests were sent to.
+   */
+  public Map<URI, Status> status() {
+    final Map<URI, Status> status = new HashMap<>();
+    peers.forEach((peer, state) -> status.put(peer, state.status()));
+    return status;
+  }
+
+  /** The health of a peer at a point in time. */
+  public static final class Status {
+    private final State state;
+    private final int consecutiveFailures;
+    private final Instant lastSuccess;
+    private final Instant lastFailure;
+
+    Status(final State state, final int consecutiveFailures, final Instant lastSuccess, final Instant lastFailure) {
+      this.state = state;
+      this.consecutiveFailures = consecutiveFailures;
+      this.lastSuccess = lastSuccess;
+      this.lastFailure = lastFailure;
+    }
+
+    public State state() {
+      return state;
+    }
+
+    public int consecutiveFailures() {
+      return consecutiveFailures;
+    }
+
+    /**
+     * @return when the peer last answered a request, or null if it never did.
+     */
+    public Instant lastSuccess() {
+      return lastSuccess;
+    }
+
+    /**
+     * @return when a request to the peer last failed, or null if none did.
+     */
+    public Instant lastFailure() {
+      return lastFailure;
+    }
+  }
+
+  private final class Peer {
+    private State state = State.REACHABLE;
+    private int consecutiveFailures;
+    private Instant lastSuccess;
+    private Instant lastFailure;
+
+    synchronized boolean allowRequest() {
+      if (state == State.REACHABLE) {
+        return true;
+      }
+      if (state == State.UNREACHABLE && !clock.instant().isBefore(lastFailure.plusMillis(retryInterval))) {
+        state = State.PROBING;
+        return true;
+      }
+      return false;
+    }
+
+    synchronized void recordSuccess() {
+      state = State.REACHABLE;
+      consecutiveFailures = 0;
+      lastSuccess = clock.instant();
+    }
+
+    synchronized void recordFailure() {
+      consecutiveFailures++;
+      lastFailure = clock.instant();
+      if (failureThreshold > 0 && (state == State.PROBING || consecutiveFailures >= failureThreshold)) {
+        state = State.UNREACHABLE;
+      }
+    }
+
+    synchronized Status status() {
+      return new Status(state, consecutiveFailures, lastSuccess, lastFailure);
+    }
+  }
+}
@@ -16,34 +16,54 @@ import net.consensys.orion.config.Config;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.tuweni.bytes.Bytes;
-import org.apache.tuweni.concurrent.AsyncCompletion;
 import org.apache.tuweni.crypto.sodium.Box;
 import org.apache.tuweni.kv.KeyValueStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Network nodes held in memory, and persisted to a key-value store.
+ *
+ * <p>
+ * The in-memory routing table is loaded from the store once, when this is created, and is authoritative from then on.
+ * Changes are written through to the store asynchronously, so looking up or adding nodes never waits on the store.
+ * Changes are also numbered, so peers can be sent only the entries added since they last synced with this node.
+ *
+ * <p>
+ * Listeners are told whenever nodes are added, whether they were learned from a peer we called or from a peer calling
+ * us.
+ */
 public class PersistentNetworkNodes implements NetworkNodes {
   private final static Logger logger = LoggerFactory.getLogger(PersistentNetworkNodes.class);
   private URI uri;
   private final KeyValueStore<Bytes, URI> nodePKs;
+  private final Map<Bytes, URI> routes = new ConcurrentHashMap<>();
+  private final long epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+  private final AtomicLong version = new AtomicLong();
+  private final ConcurrentNavigableMap<Long, Bytes> changes = new ConcurrentSkipListMap<>();
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
 
   public PersistentNetworkNodes(
       final Config config,
       final Box.PublicKey[] publicKeys,
       final KeyValueStore<Bytes, URI> store) {
     nodePKs = store;
+    load();
     config.nodeUrl().ifPresent(nodeURL -> {
       try {
         setNodeUrl(nodeURL.toURI(), publicKeys);
@@ -53,6 +73,21 @@ public class PersistentNetworkNodes implements NetworkNodes {
     });
   }
 
+  private void load() {
+    try {
+      for (final Bytes key : nodePKs.keysAsync().get()) {
+        final URI nodeURI = nodePKs.getAsync(key).get();
+        if (nodeURI != null) {
+          routes.put(key, nodeURI);
+          recordChange(key);
+        }
+      }
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+    logger.debug("Loaded {} known node keys", routes.size());
+  }
+
   /**
    * Set the url of the node we are running on. This is useful to do when we are running using default ports, and the
    * construction of this class will be performed before we have settled on what port Orion will be running on.
@@ -62,10 +97,11 @@ public class PersistentNetworkNodes implements NetworkNodes {
    */
   public void setNodeUrl(final URI uri, final Box.PublicKey[] publicKeys) {
     this.uri = uri;
-    try {
-      AsyncCompletion.allOf(Arrays.stream(publicKeys).map(pk -> nodePKs.putAsync(pk.bytes(), uri))).join();
-    } catch (InterruptedException e) {
-      throw new RuntimeException(e);
+    for (final Box.PublicKey publicKey : publicKeys) {
+      if (!uri.equals(routes.put(publicKey.bytes(), uri))) {
+        recordChange(publicKey.bytes());
+      }
+      persist(publicKey.bytes(), uri);
     }
   }
 
@@ -76,26 +112,73 @@ public class PersistentNetworkNodes implements NetworkNodes {
    */
   public boolean addNode(final Iterable<Map.Entry<Bytes, URI>> nodesPks) {
     logger.trace("addNode called");
-    AtomicBoolean changed = new AtomicBoolean(false);
-    List<AsyncCompletion> completions = new ArrayList<>();
-    nodesPks.forEach(entry -> {
-      Bytes nodePk = entry.getKey();
-      URI nodeURI = entry.getValue();
-      completions.add(nodePKs.getAsync(nodePk).thenCompose(oldNodeURL -> {
-        if (oldNodeURL == null) {
-          AsyncCompletion completion = nodePKs.putAsync(nodePk, nodeURI);
-          changed.set(true);
-          return completion;
-        }
-        return AsyncCompletion.completed();
-      }));
-    });
-    try {
-      AsyncCompletion.allOf(completions).join();
-    } catch (InterruptedException e) {
-      logger.warn("Timeout waiting to store node URL", e);
+    boolean changed = false;
+    for (final Map.Entry<Bytes, URI> entry : nodesPks) {
+      final Bytes nodePk = entry.getKey();
+      final URI nodeURI = entry.getValue();
+      if (routes.putIfAbsent(nodePk, nodeURI) == null) {
+        recordChange(nodePk);
+        persist(nodePk, nodeURI);
+        changed = true;
+      }
+    }
+    if (changed) {
+      for (final Runnable listener : listeners) {
+        listener.run();
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Register a listener called whenever nodes are added, from the thread adding them.
+   *
+   * @param listener the listener.
+   */
+  public void addListener(final Runnable listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * @param listener a listener registered with {@link #addListener(Runnable)}.
+   */
+  public void removeListener(final Runnable listener) {
+    listeners.remove(listener);
+  }
+
+  // the change is recorded before the version moves past it, so readers of a version see all changes up to it
+  private synchronized void recordChange(final Bytes nodePk) {
+    final long next = version.get() + 1;
+    changes.put(next, nodePk);
+    version.set(next);
+  }
+
+  /**
+   * @return the current version of the routing table.
+   */
+  public PartyInfoVersion version() {
+    return new PartyInfoVersion(epoch, version.get());
+  }
+
+  /**
+   * Lists the entries of the routing table added or changed after a version, within the current epoch.
+   *
+   * @param sinceVersion the version to list changes after, 0 for all entries
+   * @return the entries added or changed after the version.
+   */
+  public Map<Bytes, URI> changesSince(final long sinceVersion) {
+    final Map<Bytes, URI> changed = new HashMap<>();
+    for (final Bytes nodePk : changes.tailMap(sinceVersion, false).values()) {
+      final URI nodeURI = routes.get(nodePk);
+      if (nodeURI != null) {
+        changed.put(nodePk, nodeURI);
+      }
     }
-    return changed.get();
+    return changed;
+  }
+
+  private void persist(final Bytes nodePk, final URI nodeURI) {
+    nodePKs.putAsync(nodePk, nodeURI).exceptionally(e -> logger.warn("Error storing URL of node " + nodeURI, e));
   }
 
   @Override
@@ -105,59 +188,17 @@ public class PersistentNetworkNodes implements NetworkNodes {
 
   @Override
   public Collection<URI> nodeURIs() {
-    Set<URI> allURIs = new HashSet<>();
-    for (Map.Entry<Bytes, URI> entry : nodePKs()) {
-      allURIs.add(entry.getValue());
-    }
-    return allURIs;
+    return new HashSet<>(routes.values());
   }
 
   @Override
   public URI uriForRecipient(final Bytes recipient) {
-    try {
-      return nodePKs.getAsync(recipient).get();
-    } catch (InterruptedException e) {
-      logger.warn("Timeout waiting to retrieve URL information", e);
-      return null;
-    }
+    return routes.get(recipient);
   }
 
   @Override
   public Iterable<Map.Entry<Bytes, URI>> nodePKs() {
-    try {
-      Iterator<Bytes> iter = nodePKs.keysAsync().get().iterator();
-      return () -> new Iterator<>() {
-        @Override
-        public boolean hasNext() {
-          return iter.hasNext();
-        }
-
-        @Override
-        public Map.Entry<Bytes, URI> next() {
-          Bytes key = iter.next();
-          return new Map.Entry<>() {
-
-            @Override
-            public Bytes getKey() {
-              return key;
-            }
-
-            @Override
-            public URI getValue() {
-              return uriForRecipient(key);
-            }
-
-            @Override
-            public URI setValue(URI value) {
-              throw new UnsupportedOperationException();
-            }
-          };
-        }
-      };
-    } catch (InterruptedException e) {
-      logger.warn("Timeout waiting to retrieve keys", e);
-      return null;
-    }
+    return Collections.unmodifiableMap(routes).entrySet();
   }
 
   /**
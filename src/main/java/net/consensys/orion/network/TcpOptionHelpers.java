@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.network;
+
+import net.consensys.orion.config.Config;
+
+import io.vertx.core.net.ClientOptionsBase;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.TCPSSLOptions;
+
+/**
+ * Applies the TCP tuning of the configuration to the options of servers and clients.
+ *
+ * <p>
+ * TCP Fast Open and SO_REUSEPORT are only honoured by the native transport, and are ignored with NIO.
+ */
+public class TcpOptionHelpers {
+
+  public static void applyServerTcpOptions(final Config config, final NetServerOptions options) {
+    applyTcpOptions(config, options);
+    options.setReusePort("on".equals(config.tcpReusePort()));
+    if (config.tcpAcceptBacklog() > 0) {
+      options.setAcceptBacklog(config.tcpAcceptBacklog());
+    }
+  }
+
+  public static void applyClientTcpOptions(final Config config, final ClientOptionsBase options) {
+    applyTcpOptions(config, options);
+  }
+
+  private static void applyTcpOptions(final Config config, final TCPSSLOptions options) {
+    options.setTcpNoDelay("on".equals(config.tcpNoDelay()));
+    options.setTcpFastOpen("on".equals(config.tcpFastOpen()));
+    if (config.tcpReceiveBufferSize() > 0) {
+      options.setReceiveBufferSize(config.tcpReceiveBufferSize());
+    }
+    if (config.tcpSendBufferSize() > 0) {
+      options.setSendBufferSize(config.tcpSendBufferSize());
+    }
+  }
+}
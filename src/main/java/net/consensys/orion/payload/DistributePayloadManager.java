@@ -21,11 +21,13 @@ import net.consensys.orion.exception.OrionErrorCode;
 import net.consensys.orion.exception.OrionException;
 import net.consensys.orion.http.handler.send.SendRequest;
 import net.consensys.orion.http.handler.send.SendResponse;
-import net.consensys.orion.http.server.HttpContentType;
-import net.consensys.orion.network.NodeHttpClientBuilder;
+import net.consensys.orion.metrics.MetricsRegistry;
+import net.consensys.orion.network.NodeHttpClient;
+import net.consensys.orion.network.PeerHealth;
 import net.consensys.orion.network.PersistentNetworkNodes;
+import net.consensys.orion.storage.KeyValueUpdater;
 import net.consensys.orion.storage.Storage;
-import net.consensys.orion.utils.Serializer;
+import net.consensys.orion.utils.CryptoWorkerPool;
 
 import java.net.URI;
 import java.util.ArrayList;
@@ -34,25 +36,32 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.http.HttpClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.concurrent.AsyncCompletion;
 import org.apache.tuweni.crypto.sodium.Box;
 import org.apache.tuweni.crypto.sodium.Box.PublicKey;
+import org.apache.tuweni.kv.KeyValueStore;
 import org.jetbrains.annotations.NotNull;
 
 public class DistributePayloadManager {
 
   private static final Logger log = LogManager.getLogger();
+  private static final int KNOWN_LEGACY_GROUPS_SIZE = 65536;
 
   private final Enclave enclave;
   private final Storage<EncryptedPayload> storage;
@@ -60,23 +69,85 @@ public class DistributePayloadManager {
   private final Storage<QueryPrivacyGroupPayload> queryPrivacyGroupStorage;
   private final PersistentNetworkNodes networkNodes;
   private final List<PublicKey> nodeKeys;
-  private final HttpClient httpClient;
+  private final PayloadPusher payloadPusher;
+  // queues payloads for background delivery, null when payloads are pushed before responding
+  @Nullable
+  private final PayloadOutbox payloadOutbox;
+  private final CryptoWorkerPool cryptoWorkerPool;
+  // participant sets whose legacy privacy group is known to be stored
+  private final Cache<Set<String>, String> knownLegacyGroups =
+      CacheBuilder.newBuilder().maximumSize(KNOWN_LEGACY_GROUPS_SIZE).build();
 
   public DistributePayloadManager(
       final Vertx vertx,
       final Config config,
+      final NodeHttpClient nodeHttpClient,
+      final PeerHealth peerHealth,
+      final MetricsRegistry metrics,
       final Enclave enclave,
       final Storage<EncryptedPayload> storage,
       final Storage<PrivacyGroupPayload> privacyGroupStorage,
       final Storage<QueryPrivacyGroupPayload> queryPrivacyGroupStorage,
-      final PersistentNetworkNodes networkNodes) {
+      final PersistentNetworkNodes networkNodes,
+      final KeyValueStore<Bytes, Bytes> outboxStore,
+      final KeyValueUpdater outboxUpdater,
+      final CryptoWorkerPool cryptoWorkerPool) {
+    this(
+        vertx,
+        config,
+        enclave,
+        storage,
+        privacyGroupStorage,
+        queryPrivacyGroupStorage,
+        networkNodes,
+        new PayloadPusher(
+            vertx,
+            nodeHttpClient,
+            peerHealth,
+            metrics,
+            config.pushBatchWindow(),
+            config.pushBatchMaxItems(),
+            config.pushBatchMaxBytes()),
+        outboxStore,
+        outboxUpdater,
+        metrics,
+        cryptoWorkerPool);
+  }
+
+  private DistributePayloadManager(
+      final Vertx vertx,
+      final Config config,
+      final Enclave enclave,
+      final Storage<EncryptedPayload> storage,
+      final Storage<PrivacyGroupPayload> privacyGroupStorage,
+      final Storage<QueryPrivacyGroupPayload> queryPrivacyGroupStorage,
+      final PersistentNetworkNodes networkNodes,
+      final PayloadPusher payloadPusher,
+      final KeyValueStore<Bytes, Bytes> outboxStore,
+      final KeyValueUpdater outboxUpdater,
+      final MetricsRegistry metrics,
+      final CryptoWorkerPool cryptoWorkerPool) {
     this(
         enclave,
         storage,
         privacyGroupStorage,
         queryPrivacyGroupStorage,
         networkNodes,
-        NodeHttpClientBuilder.build(vertx, config, 1500));
+        payloadPusher,
+        "async".equals(config.deliveryMode())
+            ? new PayloadOutbox(
+                vertx,
+                outboxStore,
+                outboxUpdater,
+                payloadPusher,
+                config.deliveryMaxAttempts(),
+                config.deliveryRetryInterval(),
+                config.deliveryMaxRetryInterval())
+            : null,
+        cryptoWorkerPool);
+    if (payloadOutbox != null) {
+      metrics.gauge("orion_outbox_queued_payloads", "Payloads waiting to be delivered to peers", payloadOutbox::queued);
+    }
   }
 
   @VisibleForTesting
@@ -86,15 +157,23 @@ public class DistributePayloadManager {
       final Storage<PrivacyGroupPayload> privacyGroupStorage,
       final Storage<QueryPrivacyGroupPayload> queryPrivacyGroupStorage,
       final PersistentNetworkNodes networkNodes,
-      final HttpClient httpClient) {
+      final PayloadPusher payloadPusher,
+      @Nullable final PayloadOutbox payloadOutbox,
+      final CryptoWorkerPool cryptoWorkerPool) {
     this.enclave = enclave;
     this.storage = storage;
     this.privacyGroupStorage = privacyGroupStorage;
     this.queryPrivacyGroupStorage = queryPrivacyGroupStorage;
     this.networkNodes = networkNodes;
-    this.httpClient = httpClient;
+    this.payloadPusher = payloadPusher;
+    this.payloadOutbox = payloadOutbox;
+    this.cryptoWorkerPool = cryptoWorkerPool;
 
     this.nodeKeys = Arrays.asList(enclave.nodeKeys());
+
+    if (payloadOutbox != null) {
+      payloadOutbox.start().exceptionally(e -> log.error("resuming payload delivery failed", e));
+    }
   }
 
   public void processSendRequest(final SendRequest sendRequest, final Handler<AsyncResult<SendResponse>> handler) {
@@ -142,16 +221,27 @@ public class DistributePayloadManager {
           PrivacyGroupPayload.Type.LEGACY,
           null);
 
-      final String legacyId = privacyGroupStorage.generateDigest(privacyGroupPayload);
-      if (privacyGroupStorage.get(legacyId).get().isPresent()) {
+      // the legacy group id doesn't depend on the order of the participants
+      final Set<String> participants = Set.copyOf(keys);
+      if (knownLegacyGroups.getIfPresent(participants) != null) {
         future.complete(privacyGroupPayload);
-      } else {
+        return future;
+      }
+
+      final String legacyId = privacyGroupStorage.generateDigest(privacyGroupPayload);
+      privacyGroupStorage.get(legacyId).thenAccept(existing -> {
+        if (existing.isPresent()) {
+          knownLegacyGroups.put(participants, legacyId);
+          future.complete(privacyGroupPayload);
+          return;
+        }
         final QueryPrivacyGroupPayload queryPrivacyGroupPayload =
             new QueryPrivacyGroupPayload(keys.toArray(new String[0]), null);
         final String key = queryPrivacyGroupStorage.generateDigest(queryPrivacyGroupPayload);
         privacyGroupStorage.put(privacyGroupPayload).thenApply(result -> {
           queryPrivacyGroupPayload.setPrivacyGroupToAppend(legacyId);
           return queryPrivacyGroupStorage.update(key, queryPrivacyGroupPayload).thenApply((res) -> {
+            knownLegacyGroups.put(participants, legacyId);
             future.complete(privacyGroupPayload);
             return result;
           }).exceptionally(e -> {
@@ -162,7 +252,7 @@ public class DistributePayloadManager {
           future.fail(new OrionException(OrionErrorCode.ENCLAVE_UNABLE_STORE_PRIVACY_GROUP));
           return null;
         });
-      }
+      }).exceptionally(e -> future.tryFail(e));
     } catch (final Exception e) {
       future.fail(e);
     }
@@ -198,80 +288,96 @@ public class DistributePayloadManager {
       final SendRequest sendRequest,
       final PublicKey fromKey,
       final PrivacyGroupPayload privacyGroupPayload) {
-    final Future<String> future = Future.future();
+    // encryption and serialization run on a worker thread, the pushes to peers on the calling context
+    return cryptoWorkerPool
+        .execute(() -> preparePayload(sendRequest, fromKey, privacyGroupPayload))
+        .compose(this::propagatePayload);
+  }
 
-    try {
-      final Optional<String> from = sendRequest.from();
-      final List<PublicKey> toKeys = Arrays
-          .stream(privacyGroupPayload.addresses())
-          .filter(key -> from.isEmpty() || !key.equals(from.get()))
-          .map(enclave::readKey)
-          .collect(Collectors.toList());
-
-      // toKeys = toKeys + [nodeAlwaysSendTo] --> default pub key to always send to
-      toKeys.addAll(Arrays.asList(enclave.alwaysSendTo()));
-      final Box.PublicKey[] arrToKeys = toKeys.toArray(new Box.PublicKey[0]);
-
-      // convert payload from b64 to bytes
-      final byte[] rawPayload = sendRequest.rawPayload();
-
-      // encrypting payload
-      log.debug("encrypting payload from SendRequest object");
-      final EncryptedPayload encryptedPayload =
-          enclave.encrypt(rawPayload, fromKey, arrToKeys, privacyGroupPayload.randomSeed());
-
-      final List<Box.PublicKey> keys =
-          toKeys.stream().filter(pKey -> !nodeKeys.contains(pKey)).collect(Collectors.toList());
-
-      if (keys.stream().anyMatch(pKey -> networkNodes.uriForRecipient(pKey) == null)) {
-        throw new OrionException(OrionErrorCode.NODE_MISSING_PEER_URL, "couldn't find peer URL");
-      }
+  private OutboundPayload preparePayload(
+      final SendRequest sendRequest,
+      final PublicKey fromKey,
+      final PrivacyGroupPayload privacyGroupPayload) {
+    final Optional<String> from = sendRequest.from();
+    final List<PublicKey> toKeys = Arrays
+        .stream(privacyGroupPayload.addresses())
+        .filter(key -> from.isEmpty() || !key.equals(from.get()))
+        .map(enclave::readKey)
+        .collect(Collectors.toList());
+
+    // toKeys = toKeys + [nodeAlwaysSendTo] --> default pub key to always send to
+    toKeys.addAll(Arrays.asList(enclave.alwaysSendTo()));
+    final Box.PublicKey[] arrToKeys = toKeys.toArray(new Box.PublicKey[0]);
+
+    // convert payload from b64 to bytes
+    final byte[] rawPayload = sendRequest.rawPayload();
+
+    // encrypting payload
+    log.debug("encrypting payload from SendRequest object");
+    final EncryptedPayload encryptedPayload =
+        enclave.encrypt(rawPayload, fromKey, arrToKeys, privacyGroupPayload.randomSeed());
+
+    final List<Box.PublicKey> keys =
+        toKeys.stream().filter(pKey -> !nodeKeys.contains(pKey)).collect(Collectors.toList());
+
+    if (keys.stream().anyMatch(pKey -> networkNodes.uriForRecipient(pKey) == null)) {
+      throw new OrionException(OrionErrorCode.NODE_MISSING_PEER_URL, "couldn't find peer URL");
+    }
 
-      final Map<URI, ArrayList<PublicKey>> uriToKeysMap = getUriToKeyListMap(keys);
-
-      log.debug("Generate payload digest");
-      final String digest = storage.generateDigest(encryptedPayload);
-
-      log.debug("propagating payload");
-      @SuppressWarnings("rawtypes")
-      final CompletableFuture[] cfs = uriToKeysMap.keySet().stream().map(url -> {
-
-        CompletableFuture<Boolean> responseFuture = new CompletableFuture<>();
-
-        // serialize payload, stripping non-relevant encryptedKeys, and configureRoutes payload
-        final byte[] payload =
-            Serializer.serialize(HttpContentType.CBOR, encryptedPayload.stripFor(uriToKeysMap.get(url)));
-
-        // execute request
-        httpClient
-            .post(url.getPort(), url.getHost(), "/push")
-            .putHeader("Content-Type", "application/cbor")
-            .handler(response -> response.bodyHandler(responseBody -> {
-              if (response.statusCode() != 200 || !digest.equals(responseBody.toString())) {
-                responseFuture.completeExceptionally(new OrionException(OrionErrorCode.NODE_PROPAGATING_TO_ALL_PEERS));
-              } else {
-                responseFuture.complete(true);
-              }
-            }))
-            .exceptionHandler(
-                ex -> responseFuture.completeExceptionally(new OrionException(OrionErrorCode.NODE_PUSHING_TO_PEER, ex)))
-            .end(Buffer.buffer(payload));
-
-        return responseFuture;
-      }).toArray(CompletableFuture[]::new);
-
-      CompletableFuture.allOf(cfs).whenComplete((all, ex) -> {
-        if (ex != null) {
-          future.fail(new OrionException(OrionErrorCode.NODE_PROPAGATING_TO_ALL_PEERS, ex));
-        }
-        storage.put(encryptedPayload).thenAccept(future::complete).exceptionally(e -> {
-          future.fail(new OrionException(OrionErrorCode.NODE_PROPAGATING_TO_ALL_PEERS, ex));
-        });
-      });
+    final Map<URI, ArrayList<PublicKey>> uriToKeysMap = getUriToKeyListMap(keys);
 
-    } catch (final OrionException e) {
-      future.fail(e);
+    log.debug("Generate payload digest");
+    final String digest = storage.generateDigest(encryptedPayload);
+
+    // serialize payload for each peer, stripping non-relevant encryptedKeys and sharing the cipher text
+    final PeerPayloadEncoder encoder = new PeerPayloadEncoder(encryptedPayload);
+    final Map<URI, Buffer> peerPayloads = new HashMap<>();
+    uriToKeysMap.forEach((url, urlKeys) -> peerPayloads.put(url, encoder.encodeFor(urlKeys)));
+
+    return new OutboundPayload(encryptedPayload, digest, peerPayloads);
+  }
+
+  private Future<String> propagatePayload(final OutboundPayload outboundPayload) {
+    if (payloadOutbox != null) {
+      return queuePayload(outboundPayload);
     }
+    final Future<String> future = Future.future();
+    final String digest = outboundPayload.digest;
+
+    log.debug("propagating payload");
+    @SuppressWarnings("rawtypes")
+    final CompletableFuture[] cfs = outboundPayload.peerPayloads
+        .entrySet()
+        .stream()
+        .map(entry -> payloadPusher.push(entry.getKey(), entry.getValue(), digest))
+        .toArray(CompletableFuture[]::new);
+
+    CompletableFuture.allOf(cfs).whenComplete((all, ex) -> {
+      if (ex != null) {
+        future.fail(new OrionException(OrionErrorCode.NODE_PROPAGATING_TO_ALL_PEERS, ex));
+        return;
+      }
+      storage.put(outboundPayload.encryptedPayload).thenAccept(future::complete).exceptionally(e -> {
+        future.fail(new OrionException(OrionErrorCode.NODE_PROPAGATING_TO_ALL_PEERS, ex));
+      });
+    });
+
+    return future;
+  }
+
+  private Future<String> queuePayload(final OutboundPayload outboundPayload) {
+    final Future<String> future = Future.future();
+    final String digest = outboundPayload.digest;
+
+    // the payload is stored before it is queued, so peers asking for it back once delivered always find it
+    log.debug("queueing payload for delivery");
+    storage.put(outboundPayload.encryptedPayload).then(key -> {
+      final List<AsyncCompletion> additions = new ArrayList<>();
+      outboundPayload.peerPayloads.forEach((url, payload) -> additions.add(payloadOutbox.add(url, payload, digest)));
+      return AsyncCompletion.allOf(additions).thenSupply(() -> key);
+    }).thenAccept(future::complete).exceptionally(e -> {
+      future.fail(new OrionException(OrionErrorCode.NODE_PROPAGATING_TO_ALL_PEERS, e));
+    });
 
     return future;
   }
@@ -300,4 +406,17 @@ public class DistributePayloadManager {
       return nodeKeys.get(0);
     });
   }
+
+  /** An encrypted payload ready to be pushed, with its serialized form for each peer. */
+  private static final class OutboundPayload {
+    private final EncryptedPayload encryptedPayload;
+    private final String digest;
+    private final Map<URI, Buffer> peerPayloads;
+
+    OutboundPayload(final EncryptedPayload encryptedPayload, final String digest, final Map<URI, Buffer> peerPayloads) {
+      this.encryptedPayload = encryptedPayload;
+      this.digest = digest;
+      this.peerPayloads = peerPayloads;
+    }
+  }
 }
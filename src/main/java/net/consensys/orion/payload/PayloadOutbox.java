@@ -0,0 +1,314 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.payload;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import net.consensys.orion.exception.OrionErrorCode;
+import net.consensys.orion.exception.OrionException;
+import net.consensys.orion.storage.KeyValueUpdater;
+import net.consensys.orion.storage.StoredSet;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.concurrent.AsyncCompletion;
+import org.apache.tuweni.concurrent.AsyncResult;
+import org.apache.tuweni.crypto.Hash;
+import org.apache.tuweni.kv.KeyValueStore;
+
+/**
+ * Holds the payloads waiting to be pushed to peers in a key-value store, and pushes them in the background, so they
+ * survive restarts and the sender does not wait for the peers.
+ *
+ * <p>
+ * Each peer has its own queue, pushed one payload at a time in the order the payloads were added. A payload that
+ * fails to be pushed is retried with an exponential backoff, and dropped after a maximum number of attempts. Retries
+ * while the peer is known to be unreachable do not count as attempts.
+ *
+ * <p>
+ * A queue is a sequence of records between a head and a tail counter. Delivered records are overwritten with an empty
+ * value, as the store cannot remove them. Record keys are digests, like those of {@link StoredSet}.
+ */
+final class PayloadOutbox {
+  private static final Logger log = LogManager.getLogger();
+
+  private static final String PEERS_KEY = "outbox";
+  private static final Bytes DELIVERED = Bytes.EMPTY;
+
+  private final Vertx vertx;
+  private final KeyValueStore<Bytes, Bytes> store;
+  private final KeyValueUpdater updater;
+  private final StoredSet peers;
+  private final PayloadPusher payloadPusher;
+  private final int maxAttempts;
+  private final long retryInterval;
+  private final long maxRetryInterval;
+  private final Map<URI, PeerQueue> queues = new ConcurrentHashMap<>();
+
+  /**
+   * @param vertx the Vert.x instance, used to schedule retries.
+   * @param store the store holding the queues.
+   * @param updater the updater used to update records atomically, backed by the same store.
+   * @param payloadPusher the pusher delivering payloads to peers.
+   * @param maxAttempts the number of times a payload is pushed before it is dropped.
+   * @param retryInterval the time in milliseconds before a failed push is first retried.
+   * @param maxRetryInterval the maximum time in milliseconds between retries.
+   */
+  PayloadOutbox(
+      final Vertx vertx,
+      final KeyValueStore<Bytes, Bytes> store,
+      final KeyValueUpdater updater,
+      final PayloadPusher payloadPusher,
+      final int maxAttempts,
+      final long retryInterval,
+      final long maxRetryInterval) {
+    this.vertx = vertx;
+    this.store = store;
+    this.updater = updater;
+    this.peers = new StoredSet(store, updater);
+    this.payloadPusher = payloadPusher;
+    this.maxAttempts = maxAttempts;
+    this.retryInterval = retryInterval;
+    this.maxRetryInterval = maxRetryInterval;
+  }
+
+  /**
+   * Resume pushing the payloads left in the queues.
+   *
+   * @return a completion that is done once delivery resumed for every queue.
+   */
+  AsyncCompletion start() {
+    return peers.get(PEERS_KEY).thenAccept(maybePeers -> maybePeers.ifPresent(peerUrls -> {
+      log.debug("resuming delivery to {} peers", peerUrls.size());
+      peerUrls.forEach(peerUrl -> queue(URI.create(peerUrl)).deliver());
+    }));
+  }
+
+  /**
+   * Add a payload to the queue of a peer.
+   *
+   * @param url the URL of the peer.
+   * @param payload the CBOR encoded payload.
+   * @param digest the digest the peer is expected to store the payload under.
+   * @return a completion that is done once the payload is stored in the queue.
+   */
+  AsyncCompletion add(final URI url, final Buffer payload, final String digest) {
+    return queue(url).append(encode(payload, digest));
+  }
+
+  /**
+   * @param url the URL of the peer.
+   * @return the number of payloads waiting to be pushed to the peer.
+   */
+  AsyncResult<Long> pending(final URI url) {
+    final PeerQueue queue = queue(url);
+    return AsyncResult
+        .combine(Arrays.asList(store.getAsync(queue.headKey), store.getAsync(queue.tailKey)))
+        .thenApply(counters -> toLong(counters.get(1)) - toLong(counters.get(0)));
+  }
+
+  /**
+   * @return the approximate number of payloads waiting to be pushed to any peer.
+   */
+  long queued() {
+    long queued = 0;
+    for (final PeerQueue queue : queues.values()) {
+      queued += queue.queued.get();
+    }
+    return queued;
+  }
+
+  private PeerQueue queue(final URI url) {
+    return queues.computeIfAbsent(url, PeerQueue::new);
+  }
+
+  private long retryDelay(final int attempts) {
+    return Math.min(retryInterval << Math.min(attempts - 1, 30), maxRetryInterval);
+  }
+
+  private static Bytes encode(final Buffer payload, final String digest) {
+    final Bytes digestBytes = Bytes.wrap(digest.getBytes(UTF_8));
+    return Bytes.concatenate(Bytes.ofUnsignedInt(digestBytes.size()), digestBytes, Bytes.wrap(payload.getBytes()));
+  }
+
+  private static long toLong(final Bytes counter) {
+    return counter == null ? 0 : counter.toLong();
+  }
+
+  private static Bytes digest(final String key) {
+    return Hash.sha2_512_256(Bytes.wrap(key.getBytes(UTF_8)));
+  }
+
+  private final class PeerQueue {
+    private final URI url;
+    private final String name;
+    private final Bytes headKey;
+    private final Bytes tailKey;
+    private volatile boolean registered;
+    // the length of the queue when last read, plus the records appended since
+    private final AtomicLong queued = new AtomicLong();
+    // guarded by this
+    private boolean delivering;
+    private boolean wakeUp;
+    private int appending;
+    private int attempts;
+
+    PeerQueue(final URI url) {
+      this.url = url;
+      this.name = PEERS_KEY + ":" + url;
+      this.headKey = digest(name + "#head");
+      this.tailKey = digest(name + "#tail");
+    }
+
+    private Bytes recordKey(final long sequence) {
+      return digest(name + "#" + sequence);
+    }
+
+    AsyncCompletion append(final Bytes record) {
+      synchronized (this) {
+        appending++;
+      }
+      final AsyncCompletion registration =
+          registered ? AsyncCompletion.completed() : peers.add(PEERS_KEY, url.toString()).thenAccept(added -> {
+            registered = true;
+          });
+      return registration
+          .then(() -> updater.update(tailKey, tail -> Bytes.ofUnsignedLong(tail.map(t -> t.toLong()).orElse(0L) + 1)))
+          .thenCompose(tail -> {
+            queued.incrementAndGet();
+            return store.putAsync(recordKey(tail.toLong() - 1), record);
+          })
+          .whenComplete(error -> {
+            synchronized (this) {
+              appending--;
+            }
+            deliver();
+          });
+    }
+
+    void deliver() {
+      synchronized (this) {
+        if (delivering) {
+          wakeUp = true;
+          return;
+        }
+        delivering = true;
+        wakeUp = false;
+      }
+      deliverNext();
+    }
+
+    private void finish() {
+      synchronized (this) {
+        if (!wakeUp) {
+          delivering = false;
+          return;
+        }
+        wakeUp = false;
+      }
+      deliverNext();
+    }
+
+    private void deliverNext() {
+      AsyncResult
+          .combine(Arrays.asList(store.getAsync(headKey), store.getAsync(tailKey)))
+          .thenCompose(counters -> {
+            final long head = toLong(counters.get(0));
+            final long tail = toLong(counters.get(1));
+            queued.set(Math.max(0, tail - head));
+            if (head >= tail) {
+              finish();
+              return AsyncCompletion.completed();
+            }
+            return store.getAsync(recordKey(head)).thenAccept(record -> deliver(head, record));
+          })
+          .exceptionally(e -> {
+            log.error("reading the outbox of {} failed", url, e);
+            retryLater(retryInterval);
+          });
+    }
+
+    private void deliver(final long head, final Bytes record) {
+      if (record == null || record.equals(DELIVERED)) {
+        final boolean lost;
+        synchronized (this) {
+          lost = appending == 0;
+        }
+        if (lost) {
+          // no addition in progress can still write this record, so its write failed
+          log.warn("skipping missing outbox record {} of {}", head, url);
+          advance(head);
+        } else {
+          // the record is being written, its addition wakes us up once it is
+          finish();
+        }
+        return;
+      }
+
+      final int digestLength = record.slice(0, 4).toInt();
+      final String digest = new String(record.slice(4, digestLength).toArrayUnsafe(), UTF_8);
+      final Buffer payload = Buffer.buffer(record.slice(4 + digestLength).toArrayUnsafe());
+      payloadPusher.push(url, payload, digest).whenComplete((result, error) -> {
+        if (error == null) {
+          attempts = 0;
+          advance(head);
+          return;
+        }
+        final Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (cause instanceof OrionException
+            && ((OrionException) cause).code() == OrionErrorCode.NODE_PEER_UNREACHABLE) {
+          log.debug("{} is unreachable, delaying delivery", url);
+          retryLater(retryDelay(Math.max(attempts, 1)));
+          return;
+        }
+        attempts++;
+        if (attempts >= maxAttempts) {
+          log.error("dropping payload {} for {} after {} attempts", digest, url, attempts, cause);
+          attempts = 0;
+          advance(head);
+          return;
+        }
+        log.warn("pushing payload {} to {} failed, retrying: {}", digest, url, cause.getMessage());
+        retryLater(retryDelay(attempts));
+      });
+    }
+
+    private void advance(final long head) {
+      store
+          .putAsync(recordKey(head), DELIVERED)
+          .thenCompose(() -> store.putAsync(headKey, Bytes.ofUnsignedLong(head + 1)))
+          .whenComplete(error -> {
+            if (error != null) {
+              log.error("updating the outbox of {} failed", url, error);
+              retryLater(retryInterval);
+            } else {
+              deliverNext();
+            }
+          });
+    }
+
+    private void retryLater(final long delay) {
+      vertx.setTimer(delay, id -> deliverNext());
+    }
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.payload;
+
+import net.consensys.orion.exception.OrionErrorCode;
+import net.consensys.orion.exception.OrionException;
+import net.consensys.orion.http.server.HttpContentType;
+import net.consensys.orion.metrics.MetricsRegistry;
+import net.consensys.orion.network.NodeHttpClient;
+import net.consensys.orion.network.PeerHealth;
+import net.consensys.orion.utils.Serializer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Pushes encrypted payloads to peers, optionally coalescing the payloads pushed to the same peer within a short window
+ * into a single <code>/pushBatch</code> request.
+ *
+ * <p>
+ * A batch is sent when its window elapses or it reaches its maximum number of payloads or bytes, whichever comes
+ * first. Each payload is acknowledged individually from the digests returned by the peer. Peers that do not know
+ * <code>/pushBatch</code> get their payloads pushed one by one.
+ *
+ * <p>
+ * Pushes to peers known to be unreachable fail immediately, and the outcome of every push is recorded in the peer
+ * health.
+ *
+ * <p>
+ * The time from a push being requested to the peer acknowledging it, including any wait for its batch, is recorded for
+ * each peer.
+ */
+final class PayloadPusher {
+  private static final Logger log = LogManager.getLogger();
+
+  private static final byte[] CBOR_INDEFINITE_ARRAY = new byte[] {(byte) 0x9f};
+  private static final byte[] CBOR_BREAK = new byte[] {(byte) 0xff};
+
+  private final Vertx vertx;
+  private final NodeHttpClient httpClient;
+  private final PeerHealth peerHealth;
+  private final Histogram pushDuration;
+  private final Counter unreachablePushes;
+  private final long batchWindow;
+  private final int batchMaxItems;
+  private final long batchMaxBytes;
+  private final Map<URI, Batch> openBatches = new HashMap<>();
+  private final Set<URI> batchUnsupported = ConcurrentHashMap.newKeySet();
+
+  /**
+   * @param vertx the Vert.x instance, used to schedule batches.
+   * @param httpClient the client used to reach peers.
+   * @param peerHealth the health of the peers.
+   * @param metrics the registry to record push latencies in.
+   * @param batchWindow how long in milliseconds to wait for more payloads to the same peer, or 0 to push each payload
+   *        on its own.
+   * @param batchMaxItems the maximum number of payloads in a batch.
+   * @param batchMaxBytes the maximum size of the payloads in a batch.
+   */
+  PayloadPusher(
+      final Vertx vertx,
+      final NodeHttpClient httpClient,
+      final PeerHealth peerHealth,
+      final MetricsRegistry metrics,
+      final long batchWindow,
+      final int batchMaxItems,
+      final long batchMaxBytes) {
+    this.vertx = vertx;
+    this.httpClient = httpClient;
+    this.peerHealth = peerHealth;
+    this.pushDuration = metrics.histogram(
+        "orion_push_duration_seconds",
+        "Time taken to push a payload to a peer, by peer and result, in seconds",
+        "peer",
+        "result");
+    this.unreachablePushes = metrics
+        .counter("orion_push_unreachable_total", "Pushes failed without trying as the peer is unreachable", "peer");
+    this.batchWindow = batchWindow;
+    this.batchMaxItems = batchMaxItems;
+    this.batchMaxBytes = batchMaxBytes;
+  }
+
+  /**
+   * Push a payload to a peer.
+   *
+   * @param url the URL of the peer.
+   * @param payload the CBOR encoded payload.
+   * @param digest the digest the peer is expected to store the payload under.
+   * @return a future completed once the peer acknowledged the payload.
+   */
+  CompletableFuture<Boolean> push(final URI url, final Buffer payload, final String digest) {
+    final PendingPush pendingPush = new PendingPush(payload, digest);
+    if (!peerHealth.allowRequest(url)) {
+      unreachablePushes.labels(url.toString()).inc();
+      pendingPush.result.completeExceptionally(
+          new OrionException(OrionErrorCode.NODE_PEER_UNREACHABLE, "peer " + url + " is unreachable"));
+      return pendingPush.result;
+    }
+    final long start = System.nanoTime();
+    pendingPush.result.whenComplete((acknowledged, error) -> {
+      pushDuration.labels(url.toString(), error == null ? "success" : "failure").observe(
+          MetricsRegistry.secondsSince(start));
+    });
+    if (batchWindow <= 0 || batchUnsupported.contains(url)) {
+      pushSingle(url, pendingPush);
+      return pendingPush.result;
+    }
+
+    Batch full = null;
+    synchronized (openBatches) {
+      Batch batch = openBatches.get(url);
+      if (batch == null) {
+        final Batch newBatch = new Batch();
+        newBatch.timerId = vertx.setTimer(batchWindow, id -> flush(url, newBatch));
+        openBatches.put(url, newBatch);
+        batch = newBatch;
+      }
+      batch.items.add(pendingPush);
+      batch.bytes += payload.length();
+      if (batch.items.size() >= batchMaxItems || batch.bytes >= batchMaxBytes) {
+        openBatches.remove(url);
+        vertx.cancelTimer(batch.timerId);
+        full = batch;
+      }
+    }
+    if (full != null) {
+      send(url, full.items);
+    }
+    return pendingPush.result;
+  }
+
+  private void flush(final URI url, final Batch batch) {
+    synchronized (openBatches) {
+      if (!openBatches.remove(url, batch)) {
+        // already sent when it filled up
+        return;
+      }
+    }
+    send(url, batch.items);
+  }
+
+  private void send(final URI url, final List<PendingPush> items) {
+    if (items.size() == 1) {
+      pushSingle(url, items.get(0));
+      return;
+    }
+
+    final ByteBuf[] parts = new ByteBuf[items.size() + 2];
+    parts[0] = Unpooled.wrappedBuffer(CBOR_INDEFINITE_ARRAY);
+    for (int i = 0; i < items.size(); i++) {
+      parts[i + 1] = items.get(i).payload.getByteBuf();
+    }
+    parts[parts.length - 1] = Unpooled.wrappedBuffer(CBOR_BREAK);
+
+    // a timed out request fails again once its connection is closed, only the first outcome counts
+    final AtomicBoolean completed = new AtomicBoolean();
+    httpClient
+        .post(url, "/pushBatch")
+        .putHeader("Content-Type", HttpContentType.CBOR.httpHeaderValue)
+        .handler(response -> response.bodyHandler(responseBody -> {
+          if (!completed.compareAndSet(false, true)) {
+            return;
+          }
+          peerHealth.recordSuccess(url);
+          if (response.statusCode() == 404) {
+            log.info("{} does not support batched pushes, pushing payloads individually", url);
+            batchUnsupported.add(url);
+            items.forEach(item -> pushSingle(url, item));
+            return;
+          }
+          final String[] digests;
+          try {
+            digests = response.statusCode() == 200
+                ? Serializer.deserialize(HttpContentType.CBOR, String[].class, responseBody.getBytes())
+                : null;
+          } catch (final OrionException e) {
+            failAll(items, new OrionException(OrionErrorCode.NODE_PROPAGATING_TO_ALL_PEERS, e));
+            return;
+          }
+          if (digests == null || digests.length != items.size()) {
+            failAll(items, new OrionException(OrionErrorCode.NODE_PROPAGATING_TO_ALL_PEERS));
+            return;
+          }
+          for (int i = 0; i < items.size(); i++) {
+            items.get(i).complete(digests[i]);
+          }
+        }))
+        .exceptionHandler(ex -> {
+          if (completed.compareAndSet(false, true)) {
+            peerHealth.recordFailure(url);
+            failAll(items, new OrionException(OrionErrorCode.NODE_PUSHING_TO_PEER, ex));
+          }
+        })
+        .end(Buffer.buffer(Unpooled.wrappedBuffer(parts)));
+  }
+
+  private void pushSingle(final URI url, final PendingPush pendingPush) {
+    final AtomicBoolean completed = new AtomicBoolean();
+    httpClient
+        .post(url, "/push")
+        .putHeader("Content-Type", HttpContentType.CBOR.httpHeaderValue)
+        .handler(response -> response.bodyHandler(responseBody -> {
+          if (!completed.compareAndSet(false, true)) {
+            return;
+          }
+          peerHealth.recordSuccess(url);
+          if (response.statusCode() != 200) {
+            pendingPush.result.completeExceptionally(new OrionException(OrionErrorCode.NODE_PROPAGATING_TO_ALL_PEERS));
+          } else {
+            pendingPush.complete(responseBody.toString());
+          }
+        }))
+        .exceptionHandler(ex -> {
+          if (completed.compareAndSet(false, true)) {
+            peerHealth.recordFailure(url);
+            pendingPush.result.completeExceptionally(new OrionException(OrionErrorCode.NODE_PUSHING_TO_PEER, ex));
+          }
+        })
+        .end(pendingPush.payload);
+  }
+
+  private static void failAll(final List<PendingPush> items, final Throwable cause) {
+    items.forEach(item -> item.result.completeExceptionally(cause));
+  }
+
+  private static final class PendingPush {
+    private final Buffer payload;
+    private final String digest;
+    private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+    PendingPush(final Buffer payload, final String digest) {
+      this.payload = payload;
+      this.digest = digest;
+    }
+
+    void complete(final String acknowledgedDigest) {
+      if (digest.equals(acknowledgedDigest)) {
+        result.complete(true);
+      } else {
+        result.completeExceptionally(new OrionException(OrionErrorCode.NODE_PROPAGATING_TO_ALL_PEERS));
+      }
+    }
+  }
+
+  private static final class Batch {
+    private final List<PendingPush> items = new ArrayList<>();
+    private long bytes;
+    private long timerId;
+  }
+}
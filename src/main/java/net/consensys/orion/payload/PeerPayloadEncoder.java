@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.payload;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import net.consensys.orion.enclave.EncryptedPayload;
+import net.consensys.orion.http.server.HttpContentType;
+import net.consensys.orion.utils.Serializer;
+
+import java.util.List;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import org.apache.tuweni.crypto.sodium.Box;
+
+/**
+ * Encodes an encrypted payload as CBOR for each peer it is pushed to, sharing its cipher text between all encodings.
+ *
+ * <p>
+ * Each peer gets its own copy of the small part of the payload that differs between peers, that is its encrypted keys
+ * and the mapping of their owners, encoded as an indefinite length CBOR map left open. The cipher text entry and the
+ * map terminator are appended to it as a composite buffer wrapping the cipher text, which is never copied.
+ */
+final class PeerPayloadEncoder {
+
+  private static final byte CBOR_INDEFINITE_MAP = (byte) 0xbf;
+  private static final byte CBOR_BREAK = (byte) 0xff;
+  private static final byte[] BREAK = new byte[] {CBOR_BREAK};
+
+  private final EncryptedPayload encryptedPayload;
+  private final byte[] cipherTextEntryHeader;
+
+  PeerPayloadEncoder(final EncryptedPayload encryptedPayload) {
+    this.encryptedPayload = encryptedPayload;
+    this.cipherTextEntryHeader = cipherTextEntryHeader(encryptedPayload.cipherText().length);
+  }
+
+  /**
+   * Encode the payload for a peer, keeping only the encrypted keys of the given recipients.
+   *
+   * @param keys the public keys of the recipients hosted by the peer.
+   * @return the CBOR encoding of the payload stripped for these recipients.
+   */
+  Buffer encodeFor(final List<Box.PublicKey> keys) {
+    final EncryptedPayload stripped = encryptedPayload.stripFor(keys);
+    // the mapper omits null properties, leaving the cipher text out of the per-peer part
+    final EncryptedPayload withoutCipherText = new EncryptedPayload(
+        stripped.sender(),
+        stripped.nonce(),
+        stripped.encryptedKeys(),
+        null,
+        stripped.encryptedKeyOwners(),
+        stripped.privacyGroupId());
+    final byte[] peerPart = Serializer.serialize(HttpContentType.CBOR, withoutCipherText);
+    if (peerPart.length < 2 || peerPart[0] != CBOR_INDEFINITE_MAP || peerPart[peerPart.length - 1] != CBOR_BREAK) {
+      // not an open-ended map we can append to, encode the whole payload instead
+      return Buffer.buffer(Serializer.serialize(HttpContentType.CBOR, stripped));
+    }
+
+    return Buffer.buffer(
+        Unpooled.wrappedBuffer(
+            Unpooled.wrappedBuffer(peerPart, 0, peerPart.length - 1),
+            Unpooled.wrappedBuffer(cipherTextEntryHeader),
+            Unpooled.wrappedBuffer(encryptedPayload.cipherText()),
+            Unpooled.wrappedBuffer(BREAK)));
+  }
+
+  // the "cipherText" key as a CBOR text string, followed by the header of a CBOR byte string of the given length
+  private static byte[] cipherTextEntryHeader(final int length) {
+    final byte[] key = "cipherText".getBytes(US_ASCII);
+    final byte[] lengthHeader;
+    if (length < 24) {
+      lengthHeader = new byte[] {(byte) (0x40 | length)};
+    } else if (length < 0x100) {
+      lengthHeader = new byte[] {0x58, (byte) length};
+    } else if (length < 0x10000) {
+      lengthHeader = new byte[] {0x59, (byte) (length >>> 8), (byte) length};
+    } else {
+      lengthHeader =
+          new byte[] {0x5a, (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length};
+    }
+
+    final byte[] header = new byte[1 + key.length + lengthHeader.length];
+    header[0] = (byte) (0x60 | key.length);
+    System.arraycopy(key, 0, header, 1, key.length);
+    System.arraycopy(lengthHeader, 0, header, 1 + key.length, lengthHeader.length);
+    return header;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import net.consensys.orion.enclave.EncryptedKey;
+import net.consensys.orion.enclave.EncryptedPayload;
+
+import java.util.Optional;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.apache.tuweni.concurrent.AsyncResult;
+
+/**
+ * Keeps recently stored and retrieved payloads in memory in front of another payload storage, so payloads read
+ * repeatedly are neither fetched from disk nor deserialized again.
+ *
+ * <p>
+ * The cache is bounded by the approximate size in bytes of the payloads it holds, evicting the least recently used
+ * payloads first.
+ */
+public class CachingEncryptedPayloadStorage implements Storage<EncryptedPayload> {
+
+  // rough size of the payload object, its arrays and its owners map, on top of the bytes of the arrays
+  private static final int PAYLOAD_OVERHEAD = 256;
+  private static final int ENCRYPTED_KEY_OVERHEAD = 48;
+  private static final int OWNER_OVERHEAD = 96;
+
+  private final Storage<EncryptedPayload> storage;
+  private final Cache<String, EncryptedPayload> cache;
+
+  /**
+   * @param storage the storage holding the payloads.
+   * @param maximumSize the maximum size in bytes of the cached payloads.
+   */
+  public CachingEncryptedPayloadStorage(final Storage<EncryptedPayload> storage, final long maximumSize) {
+    this.storage = storage;
+    this.cache = CacheBuilder
+        .newBuilder()
+        .maximumWeight(maximumSize)
+        .weigher((String key, EncryptedPayload payload) -> weigh(payload))
+        .recordStats()
+        .build();
+  }
+
+  @Override
+  public AsyncResult<String> put(final EncryptedPayload data) {
+    return storage.put(data).thenApply(key -> {
+      cache.put(key, data);
+      return key;
+    });
+  }
+
+  @Override
+  public String generateDigest(final EncryptedPayload data) {
+    return storage.generateDigest(data);
+  }
+
+  @Override
+  public AsyncResult<Optional<EncryptedPayload>> get(final String key) {
+    final EncryptedPayload cached = cache.getIfPresent(key);
+    if (cached != null) {
+      return AsyncResult.completed(Optional.of(cached));
+    }
+    return storage.get(key).thenApply(maybePayload -> {
+      maybePayload.ifPresent(payload -> cache.put(key, payload));
+      return maybePayload;
+    });
+  }
+
+  @Override
+  public AsyncResult<Optional<EncryptedPayload>> update(final String key, final EncryptedPayload data) {
+    return storage.update(key, data).thenApply(maybePayload -> {
+      cache.invalidate(key);
+      return maybePayload;
+    });
+  }
+
+  /**
+   * @return the hit, miss and eviction counts of the cache.
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /**
+   * @return the approximate size in bytes of the cached payloads.
+   */
+  public long size() {
+    long size = 0;
+    for (final EncryptedPayload payload : cache.asMap().values()) {
+      size += weigh(payload);
+    }
+    return size;
+  }
+
+  static int weigh(final EncryptedPayload payload) {
+    long weight = PAYLOAD_OVERHEAD + (long) payload.cipherText().length + payload.nonce().length;
+    for (final EncryptedKey encryptedKey : payload.encryptedKeys()) {
+      weight += ENCRYPTED_KEY_OVERHEAD + encryptedKey.getEncoded().length;
+    }
+    if (payload.privacyGroupId() != null) {
+      weight += payload.privacyGroupId().length;
+    }
+    weight += (long) OWNER_OVERHEAD * payload.encryptedKeyOwners().size();
+    return (int) Math.min(weight, Integer.MAX_VALUE);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceException;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.concurrent.AsyncResult;
+import org.apache.tuweni.io.Base64;
+
+/**
+ * Updates values held in a SQL store, each in its own transaction.
+ *
+ * <p>
+ * The row being updated is locked for the duration of the transaction, so updates are not lost even when several
+ * nodes share the database. Keys are stored base64 encoded, as written by the SQL key-value store.
+ */
+public final class EntityManagerKeyValueUpdater implements KeyValueUpdater {
+
+  // inserts of the same new key race, and all but one fail; the retry then finds the row and locks it
+  private static final int MAX_ATTEMPTS = 3;
+
+  private final Supplier<EntityManager> entityManagerSupplier;
+
+  public EntityManagerKeyValueUpdater(final Supplier<EntityManager> entityManagerSupplier) {
+    this.entityManagerSupplier = entityManagerSupplier;
+  }
+
+  @Override
+  public AsyncResult<Bytes> update(final Bytes key, final Function<Optional<Bytes>, Bytes> updateFn) {
+    return AsyncResult.executeBlocking(() -> {
+      for (int attempt = 1;; attempt++) {
+        try {
+          return updateInTransaction(Base64.encode(key), updateFn);
+        } catch (final PersistenceException e) {
+          if (attempt >= MAX_ATTEMPTS) {
+            throw e;
+          }
+        }
+      }
+    });
+  }
+
+  private Bytes updateInTransaction(final String key, final Function<Optional<Bytes>, Bytes> updateFn) {
+    final EntityManager entityManager = entityManagerSupplier.get();
+    final EntityTransaction transaction = entityManager.getTransaction();
+    try {
+      transaction.begin();
+      Store store = entityManager.find(Store.class, key, LockModeType.PESSIMISTIC_WRITE);
+      final Bytes updated;
+      if (store == null) {
+        updated = updateFn.apply(Optional.empty());
+        store = new Store();
+        store.setKey(key);
+        store.setValue(updated.toArray());
+        entityManager.persist(store);
+      } else {
+        updated = updateFn.apply(Optional.of(Bytes.wrap(store.getValue())));
+        store.setValue(updated.toArray());
+      }
+      transaction.commit();
+      return updated;
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+      entityManager.close();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.tuweni.concurrent.AsyncResult;
+
+/**
+ * Keeps an in-memory index of the records held by another storage, so records are only read from it once.
+ *
+ * <p>
+ * Records are indexed when they are first read and whenever they are written, so all writes must go through this
+ * storage. Records handed out are shared, and must not be modified by callers. Records are never evicted or read
+ * again, so writes made by other nodes sharing the underlying store are never seen.
+ *
+ * <p>
+ * Each key has a generation, bumped whenever a write of it completes. Reads and writes only index what they saw if no
+ * other write of the key completed meanwhile, so a slow read cannot put back a record that was since replaced.
+ *
+ * @param <T> the type of the records
+ */
+public class IndexedStorage<T> implements Storage<T> {
+
+  private final Storage<T> storage;
+  private final Map<String, T> index = new ConcurrentHashMap<>();
+  private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+  public IndexedStorage(final Storage<T> storage) {
+    this.storage = storage;
+  }
+
+  @Override
+  public AsyncResult<String> put(final T data) {
+    return storage.put(data).thenApply(key -> {
+      written(key, Optional.of(data), generation(key));
+      return key;
+    });
+  }
+
+  @Override
+  public String generateDigest(final T data) {
+    return storage.generateDigest(data);
+  }
+
+  @Override
+  public AsyncResult<Optional<T>> get(final String key) {
+    final T indexed = index.get(key);
+    if (indexed != null) {
+      return AsyncResult.completed(Optional.of(indexed));
+    }
+    final long generation = generation(key);
+    return storage.get(key).thenApply(maybeData -> {
+      maybeData.ifPresent(data -> read(key, data, generation));
+      return maybeData;
+    });
+  }
+
+  @Override
+  public AsyncResult<Optional<T>> update(final String key, final T data) {
+    final long generation = generation(key);
+    return storage.update(key, data).thenApply(maybeData -> {
+      written(key, maybeData, generation);
+      return maybeData;
+    });
+  }
+
+  private long generation(final String key) {
+    return generations.getOrDefault(key, 0L);
+  }
+
+  private void read(final String key, final T data, final long generation) {
+    generations.compute(key, (k, current) -> {
+      if ((current == null ? 0L : current) == generation) {
+        index.putIfAbsent(key, data);
+      }
+      return current;
+    });
+  }
+
+  private void written(final String key, final Optional<T> maybeData, final long generation) {
+    generations.compute(key, (k, current) -> {
+      final long currentGeneration = current == null ? 0L : current;
+      // another write completed meanwhile, and may not be reflected in what this write saw
+      if (maybeData.isPresent() && currentGeneration == generation) {
+        index.put(key, maybeData.get());
+      } else {
+        index.remove(key);
+      }
+      return currentGeneration + 1;
+    });
+  }
+
+  /**
+   * @return the number of indexed records.
+   */
+  public int size() {
+    return index.size();
+  }
+}
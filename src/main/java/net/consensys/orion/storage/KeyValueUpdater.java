@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.concurrent.AsyncResult;
+
+/**
+ * Atomically replaces values held in a key-value store.
+ */
+public interface KeyValueUpdater {
+
+  /**
+   * Replaces the value held at a key with the result of applying a function to it, so that no concurrent update of
+   * the same key is lost.
+   *
+   * <p>
+   * The function may be applied more than once, and must not have side effects.
+   *
+   * @param key the key of the value to update
+   * @param updateFn function given the value currently held at the key, if any, returning the value to store
+   * @return the value stored.
+   */
+  AsyncResult<Bytes> update(Bytes key, Function<Optional<Bytes>, Bytes> updateFn);
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import net.consensys.orion.metrics.MetricsRegistry;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import io.prometheus.client.Histogram;
+import org.apache.tuweni.concurrent.AsyncResult;
+
+/**
+ * Times the reads and writes of another storage, labelled with the name of the storage and its backend.
+ *
+ * @param <T> the type of the records
+ */
+public class MeasuredStorage<T> implements Storage<T> {
+
+  private final Storage<T> storage;
+  private final String name;
+  private final String backend;
+  private final Histogram duration;
+
+  /**
+   * @param storage the storage to time.
+   * @param name the name of the storage, such as "payload".
+   * @param backend the type of key-value store backing the storage, such as "leveldb".
+   * @param metrics the registry to record the timings in.
+   */
+  public MeasuredStorage(
+      final Storage<T> storage,
+      final String name,
+      final String backend,
+      final MetricsRegistry metrics) {
+    this.storage = storage;
+    this.name = name;
+    this.backend = backend;
+    this.duration = metrics.histogram(
+        "orion_storage_operation_duration_seconds",
+        "Time taken to read or write a record, by storage, backend and operation, in seconds",
+        "storage",
+        "backend",
+        "operation");
+  }
+
+  @Override
+  public AsyncResult<String> put(final T data) {
+    return timed("put", () -> storage.put(data));
+  }
+
+  @Override
+  public String generateDigest(final T data) {
+    return storage.generateDigest(data);
+  }
+
+  @Override
+  public AsyncResult<Optional<T>> get(final String key) {
+    return timed("get", () -> storage.get(key));
+  }
+
+  @Override
+  public AsyncResult<Optional<T>> update(final String key, final T data) {
+    return timed("update", () -> storage.update(key, data));
+  }
+
+  private <R> AsyncResult<R> timed(final String operation, final Supplier<AsyncResult<R>> call) {
+    final long start = System.nanoTime();
+    return call.get().whenComplete(
+        (value, error) -> duration.labels(name, backend, operation).observe(MetricsRegistry.secondsSince(start)));
+  }
+}
@@ -22,11 +22,10 @@ import net.consensys.orion.http.server.HttpContentType;
 import net.consensys.orion.utils.Serializer;
 
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 import java.util.Optional;
 
 import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.concurrent.AsyncCompletion;
 import org.apache.tuweni.concurrent.AsyncResult;
 import org.apache.tuweni.crypto.sodium.Box;
 import org.apache.tuweni.kv.KeyValueStore;
@@ -36,18 +35,29 @@ public class QueryPrivacyGroupStorage implements Storage<QueryPrivacyGroupPayloa
 
   private final KeyValueStore<Bytes, Bytes> store;
   private final Enclave enclave;
+  private final StoredSet privacyGroupIds;
 
   public QueryPrivacyGroupStorage(final KeyValueStore<Bytes, Bytes> store, final Enclave enclave) {
+    this(store, enclave, new StripedKeyValueUpdater(store));
+  }
+
+  public QueryPrivacyGroupStorage(
+      final KeyValueStore<Bytes, Bytes> store,
+      final Enclave enclave,
+      final KeyValueUpdater updater) {
     this.store = store;
     this.enclave = enclave;
+    this.privacyGroupIds = new StoredSet(store, updater);
   }
 
   @Override
   public AsyncResult<String> put(final QueryPrivacyGroupPayload data) {
     final String key = generateDigest(data);
-    final Bytes keyBytes = Bytes.wrap(key.getBytes(UTF_8));
-    final Bytes dataBytes = Bytes.wrap(Serializer.serialize(HttpContentType.CBOR, data));
-    return store.putAsync(keyBytes, dataBytes).thenSupply(() -> key);
+    AsyncCompletion added = migrate(key);
+    for (final String privacyGroupId : data.privacyGroupId()) {
+      added = added.thenCompose(() -> AsyncResult.allOf(privacyGroupIds.add(key, privacyGroupId)));
+    }
+    return added.thenSupply(() -> key);
   }
 
   @Override
@@ -57,44 +67,59 @@ public class QueryPrivacyGroupStorage implements Storage<QueryPrivacyGroupPayloa
     return encodeBytes(enclave.generatePrivacyGroupId(publicKeys, BYTES, PrivacyGroupPayload.Type.PANTHEON));
   }
 
+  /**
+   * Gets the privacy groups of a set of members.
+   *
+   * <p>
+   * Members are not stored along with their privacy groups, so the addresses of the returned record are only set when
+   * it was stored in the legacy layout and has not been updated since.
+   */
   @Override
   public AsyncResult<Optional<QueryPrivacyGroupPayload>> get(final String key) {
-    final Bytes keyBytes = Bytes.wrap(key.getBytes(UTF_8));
-    return store.getAsync(keyBytes).thenApply(
-        maybeBytes -> Optional.ofNullable(maybeBytes).map(
-            bytes -> Serializer
-                .deserialize(HttpContentType.CBOR, QueryPrivacyGroupPayload.class, bytes.toArrayUnsafe())));
+    return privacyGroupIds.get(key).then(maybeIds -> {
+      if (maybeIds.isPresent()) {
+        return AsyncResult.completed(Optional.of(new QueryPrivacyGroupPayload(null, maybeIds.get())));
+      }
+      return getLegacy(key);
+    });
   }
 
+  /**
+   * Adds a privacy group to, or removes it from, the privacy groups of a set of members.
+   *
+   * <p>
+   * This reads and writes a constant number of records whatever the number of privacy groups, and does not read back
+   * the updated privacy groups.
+   *
+   * @return empty once the privacy group was added or removed.
+   */
   @Override
   public AsyncResult<Optional<QueryPrivacyGroupPayload>> update(final String key, final QueryPrivacyGroupPayload data) {
-    return get(key).thenApply((result) -> {
-      final List<String> listPrivacyGroupIds;
-      final QueryPrivacyGroupPayload queryPrivacyGroupPayload;
-      if (result.isPresent()) {
-        queryPrivacyGroupPayload = handleAlreadyPresentUpdate(data, result.get());
-      } else {
-        listPrivacyGroupIds = Collections.singletonList(data.privacyGroupToAppend());
-        queryPrivacyGroupPayload = new QueryPrivacyGroupPayload(data.addresses(), listPrivacyGroupIds);
+    return migrate(key).then(() -> {
+      if (data.isToDelete()) {
+        return privacyGroupIds.remove(key, data.privacyGroupToAppend());
       }
+      return privacyGroupIds.add(key, data.privacyGroupToAppend());
+    }).thenApply(changed -> Optional.empty());
+  }
 
-      put(queryPrivacyGroupPayload);
-      return Optional.of(queryPrivacyGroupPayload);
+  private AsyncResult<Optional<QueryPrivacyGroupPayload>> getLegacy(final String key) {
+    final Bytes keyBytes = Bytes.wrap(key.getBytes(UTF_8));
+    return store.getAsync(keyBytes).thenApply(
+        maybeBytes -> Optional.ofNullable(maybeBytes).map(QueryPrivacyGroupStorage::deserialize));
+  }
+
+  // privacy groups used to be stored as a single list per set of members, move them over before updating them
+  private AsyncCompletion migrate(final String key) {
+    return getLegacy(key).thenCompose(legacy -> {
+      if (legacy.isEmpty()) {
+        return AsyncCompletion.completed();
+      }
+      return privacyGroupIds.initialize(key, legacy.get().privacyGroupId());
     });
   }
 
-  private QueryPrivacyGroupPayload handleAlreadyPresentUpdate(
-      final QueryPrivacyGroupPayload data,
-      final QueryPrivacyGroupPayload result) {
-    final List<String> listPrivacyGroupIds;
-    final QueryPrivacyGroupPayload queryPrivacyGroupPayload;
-    if (data.isToDelete()) {
-      result.privacyGroupId().remove(data.privacyGroupToAppend());
-    } else if (!result.privacyGroupId().contains(data.privacyGroupToAppend())) {
-      result.privacyGroupId().add(data.privacyGroupToAppend());
-    }
-    listPrivacyGroupIds = result.privacyGroupId();
-    queryPrivacyGroupPayload = new QueryPrivacyGroupPayload(result.addresses(), listPrivacyGroupIds);
-    return queryPrivacyGroupPayload;
+  private static QueryPrivacyGroupPayload deserialize(final Bytes bytes) {
+    return Serializer.deserialize(HttpContentType.CBOR, QueryPrivacyGroupPayload.class, bytes.toArrayUnsafe());
   }
 }
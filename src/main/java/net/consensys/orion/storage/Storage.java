@@ -47,7 +47,7 @@ public interface Storage<T> {
    *
    * @param key should be base64 encoded UTF-8 string
    * @param data the data to update key with
-   * @return The updated data.
+   * @return The updated data, or empty if the storage does not read it back.
    */
   AsyncResult<Optional<T>> update(String key, T data);
 }
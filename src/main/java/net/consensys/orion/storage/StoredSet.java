@@ -0,0 +1,287 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.concurrent.AsyncCompletion;
+import org.apache.tuweni.concurrent.AsyncResult;
+import org.apache.tuweni.crypto.Hash;
+import org.apache.tuweni.kv.KeyValueStore;
+
+/**
+ * Sets of strings held in a key-value store, one record per element, so adding or removing an element reads and
+ * writes a constant number of records whatever the size of the set.
+ *
+ * <p>
+ * Each set holds a count of the slots it has handed out, and the head of a list of free slots. Adding an element
+ * takes a free slot, or the next one if none is free, and writes the element to it. A record per element then points
+ * to its slot, so membership checks and removals do not scan the set. Removing an element frees its slot, so reading
+ * a set reads as many slots as it ever held elements at once, not as many as were ever added.
+ *
+ * <p>
+ * Free slots hold the next free slot. The head of the list is replaced atomically along with a version bumped on each
+ * change, so a slot freed and taken again while another update was taking it is not handed out twice.
+ *
+ * <p>
+ * Record keys are digests of the set key, so they are as long as other keys in the store, and cannot clash with them.
+ */
+public final class StoredSet {
+
+  private static final Bytes REMOVED = Bytes.EMPTY;
+  // cannot start UTF-8 text
+  private static final byte FREE = (byte) 0xFF;
+  private static final long NO_SLOT = -1;
+
+  private final KeyValueStore<Bytes, Bytes> store;
+  private final KeyValueUpdater updater;
+
+  /**
+   * @param store the store holding the sets.
+   * @param updater the updater used to update records atomically, backed by the same store.
+   */
+  public StoredSet(final KeyValueStore<Bytes, Bytes> store, final KeyValueUpdater updater) {
+    this.store = store;
+    this.updater = updater;
+  }
+
+  /**
+   * Gets the elements of a set.
+   *
+   * @param setKey the key of the set
+   * @return the elements of the set, in the order of their slots, or empty if nothing was ever added to the set.
+   */
+  public AsyncResult<Optional<List<String>>> get(final String setKey) {
+    return store.getAsync(slotsKey(setKey)).then(slotsBytes -> {
+      if (slotsBytes == null) {
+        return AsyncResult.completed(Optional.empty());
+      }
+      final List<AsyncResult<Bytes>> slots = new ArrayList<>();
+      for (long slot = 0; slot < Slots.of(slotsBytes).count; slot++) {
+        slots.add(store.getAsync(slotKey(setKey, slot)));
+      }
+      return AsyncResult.combine(slots).thenApply(values -> {
+        // an element may briefly sit in two slots while concurrent additions settle
+        final Set<String> elements = new LinkedHashSet<>();
+        for (final Bytes value : values) {
+          if (isElement(value)) {
+            elements.add(new String(value.toArrayUnsafe(), UTF_8));
+          }
+        }
+        return Optional.of(new ArrayList<>(elements));
+      });
+    });
+  }
+
+  /**
+   * Adds an element to a set.
+   *
+   * @param setKey the key of the set
+   * @param element the element to add
+   * @return true if the element was added, false if it was already in the set.
+   */
+  public AsyncResult<Boolean> add(final String setKey, final String element) {
+    final Bytes elementKey = elementKey(setKey, element);
+    return store.getAsync(elementKey).then(existing -> {
+      if (isPresent(existing)) {
+        return AsyncResult.completed(false);
+      }
+      return takeSlot(setKey)
+          .then(
+              slot -> store
+                  .putAsync(slotKey(setKey, slot), Bytes.wrap(element.getBytes(UTF_8)))
+                  .then(
+                      () -> updater
+                          .update(elementKey, current -> current.filter(StoredSet::isPresent).orElse(slotBytes(slot))))
+                  .then(owner -> {
+                    if (owner.toLong() == slot) {
+                      return AsyncResult.completed(true);
+                    }
+                    // a concurrent addition of the same element won, release our slot
+                    return freeSlot(setKey, slot).thenSupply(() -> false);
+                  }));
+    });
+  }
+
+  /**
+   * Removes an element from a set.
+   *
+   * @param setKey the key of the set
+   * @param element the element to remove
+   * @return true if the element was removed, false if it was not in the set.
+   */
+  public AsyncResult<Boolean> remove(final String setKey, final String element) {
+    final AtomicReference<Bytes> removedSlot = new AtomicReference<>();
+    return updater.update(elementKey(setKey, element), current -> {
+      removedSlot.set(current.filter(StoredSet::isPresent).orElse(null));
+      return REMOVED;
+    }).then(ignored -> {
+      final Bytes slot = removedSlot.get();
+      if (slot == null) {
+        return AsyncResult.completed(false);
+      }
+      return freeSlot(setKey, slot.toLong()).thenSupply(() -> true);
+    });
+  }
+
+  /**
+   * Fills a set with elements, unless something was added to it already.
+   *
+   * <p>
+   * The set is only visible once all elements are written. Records already present are left untouched, so this may be
+   * run concurrently with itself, and with additions and removals once the set is visible.
+   *
+   * @param setKey the key of the set
+   * @param elements the elements of the set
+   * @return a completion that is done once the set is visible.
+   */
+  public AsyncCompletion initialize(final String setKey, final List<String> elements) {
+    return store.getAsync(slotsKey(setKey)).thenCompose(slots -> {
+      if (slots != null) {
+        return AsyncCompletion.completed();
+      }
+      return fill(setKey, elements);
+    });
+  }
+
+  private AsyncCompletion fill(final String setKey, final List<String> elements) {
+    final List<String> distinctElements = new ArrayList<>(new LinkedHashSet<>(elements));
+    final List<AsyncResult<Bytes>> writes = new ArrayList<>();
+    for (int slot = 0; slot < distinctElements.size(); slot++) {
+      final Bytes value = Bytes.wrap(distinctElements.get(slot).getBytes(UTF_8));
+      final Bytes slotBytes = slotBytes(slot);
+      writes.add(updater.update(slotKey(setKey, slot), current -> current.orElse(value)));
+      writes.add(updater.update(elementKey(setKey, distinctElements.get(slot)), current -> current.orElse(slotBytes)));
+    }
+    final Bytes slots = new Slots(distinctElements.size(), NO_SLOT, 0).toBytes();
+    return AsyncResult.allOf(writes).thenCompose(
+        () -> AsyncResult.allOf(updater.update(slotsKey(setKey), current -> current.orElse(slots))));
+  }
+
+  private AsyncResult<Long> takeSlot(final String setKey) {
+    final Bytes slotsKey = slotsKey(setKey);
+    return store.getAsync(slotsKey).then(slotsBytes -> {
+      final Slots slots = Slots.of(slotsBytes);
+      if (slots.free == NO_SLOT) {
+        return updater
+            .update(slotsKey, current -> Slots.of(current.orElse(null)).withNextSlot().toBytes())
+            .thenApply(updated -> Slots.of(updated).count - 1);
+      }
+      return store.getAsync(slotKey(setKey, slots.free)).then(head -> {
+        if (!isFree(head)) {
+          // taken since we read the head of the list
+          return takeSlot(setKey);
+        }
+        return replaceFree(slotsKey, slots, head.slice(1).toLong())
+            .then(taken -> taken ? AsyncResult.completed(slots.free) : takeSlot(setKey));
+      });
+    });
+  }
+
+  private AsyncCompletion freeSlot(final String setKey, final long slot) {
+    final Bytes slotsKey = slotsKey(setKey);
+    return store.getAsync(slotsKey).then(slotsBytes -> {
+      final Slots slots = Slots.of(slotsBytes);
+      final Bytes freeSlot = Bytes.concatenate(Bytes.of(FREE), slotBytes(slots.free));
+      return store.putAsync(slotKey(setKey, slot), freeSlot).then(() -> replaceFree(slotsKey, slots, slot));
+    }).thenCompose(freed -> freed ? AsyncCompletion.completed() : freeSlot(setKey, slot));
+  }
+
+  /**
+   * Replaces the head of the list of free slots, unless it changed since it was read.
+   */
+  private AsyncResult<Boolean> replaceFree(final Bytes slotsKey, final Slots expected, final long free) {
+    final AtomicBoolean replaced = new AtomicBoolean();
+    return updater.update(slotsKey, current -> {
+      final Slots slots = Slots.of(current.orElse(null));
+      replaced.set(slots.free == expected.free && slots.version == expected.version);
+      return replaced.get() ? slots.withFree(free).toBytes() : current.orElseGet(slots::toBytes);
+    }).thenApply(ignored -> replaced.get());
+  }
+
+  private static boolean isPresent(final Bytes value) {
+    return value != null && !value.isEmpty();
+  }
+
+  private static boolean isFree(final Bytes value) {
+    return isPresent(value) && value.get(0) == FREE;
+  }
+
+  private static boolean isElement(final Bytes value) {
+    return isPresent(value) && value.get(0) != FREE;
+  }
+
+  private static Bytes slotBytes(final long slot) {
+    return Bytes.ofUnsignedLong(slot);
+  }
+
+  private static Bytes slotsKey(final String setKey) {
+    return digest(setKey + "#");
+  }
+
+  private static Bytes slotKey(final String setKey, final long slot) {
+    return digest(setKey + "#" + slot);
+  }
+
+  private static Bytes elementKey(final String setKey, final String element) {
+    return digest(setKey + "@" + element);
+  }
+
+  private static Bytes digest(final String key) {
+    return Hash.sha2_512_256(Bytes.wrap(key.getBytes(UTF_8)));
+  }
+
+  /**
+   * The number of slots handed out by a set, the first of its free slots, and the version of its list of free slots.
+   */
+  private static final class Slots {
+
+    final long count;
+    final long free;
+    final long version;
+
+    Slots(final long count, final long free, final long version) {
+      this.count = count;
+      this.free = free;
+      this.version = version;
+    }
+
+    static Slots of(final Bytes bytes) {
+      if (bytes == null) {
+        return new Slots(0, NO_SLOT, 0);
+      }
+      return new Slots(bytes.slice(0, 8).toLong(), bytes.slice(8, 8).toLong(), bytes.slice(16, 8).toLong());
+    }
+
+    Slots withNextSlot() {
+      return new Slots(count + 1, free, version);
+    }
+
+    Slots withFree(final long slot) {
+      return new Slots(count, slot, version + 1);
+    }
+
+    Bytes toBytes() {
+      return Bytes.concatenate(Bytes.ofUnsignedLong(count), Bytes.ofUnsignedLong(free), Bytes.ofUnsignedLong(version));
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.concurrent.AsyncCompletion;
+import org.apache.tuweni.concurrent.AsyncResult;
+import org.apache.tuweni.concurrent.CompletableAsyncCompletion;
+import org.apache.tuweni.concurrent.CompletableAsyncResult;
+import org.apache.tuweni.kv.KeyValueStore;
+
+/**
+ * Runs updates of the same key one after the other, without blocking the calling thread.
+ *
+ * <p>
+ * Keys are spread over a fixed number of stripes, and updates queue behind the previous update of their stripe only,
+ * so updates of unrelated keys mostly run concurrently. This only orders updates made through the same instance.
+ */
+public final class StripedKeyValueUpdater implements KeyValueUpdater {
+
+  private static final int DEFAULT_STRIPES = 64;
+
+  private final KeyValueUpdater updater;
+  private final AtomicReferenceArray<AsyncCompletion> stripes;
+
+  /**
+   * Updates values by reading them from a store and writing them back.
+   *
+   * @param store the store holding the values.
+   */
+  public StripedKeyValueUpdater(final KeyValueStore<Bytes, Bytes> store) {
+    this(readModifyWrite(store));
+  }
+
+  /**
+   * @param updater the updater to run updates with, one at a time per key.
+   */
+  public StripedKeyValueUpdater(final KeyValueUpdater updater) {
+    this(updater, DEFAULT_STRIPES);
+  }
+
+  StripedKeyValueUpdater(final KeyValueUpdater updater, final int stripes) {
+    this.updater = updater;
+    this.stripes = new AtomicReferenceArray<>(stripes);
+    for (int i = 0; i < stripes; i++) {
+      this.stripes.set(i, AsyncCompletion.completed());
+    }
+  }
+
+  @Override
+  public AsyncResult<Bytes> update(final Bytes key, final Function<Optional<Bytes>, Bytes> updateFn) {
+    final CompletableAsyncResult<Bytes> result = AsyncResult.incomplete();
+    final CompletableAsyncCompletion done = AsyncCompletion.incomplete();
+    final AsyncCompletion previous = stripes.getAndSet(stripe(key), done);
+    previous.whenComplete(ignored -> {
+      AsyncResult<Bytes> update;
+      try {
+        update = updater.update(key, updateFn);
+      } catch (final RuntimeException e) {
+        update = AsyncResult.exceptional(e);
+      }
+      update.whenComplete((updated, exception) -> {
+        // complete the caller first, so its callbacks observe updates of the key in order
+        if (exception != null) {
+          result.completeExceptionally(exception);
+        } else {
+          result.complete(updated);
+        }
+        done.complete();
+      });
+    });
+    return result;
+  }
+
+  private int stripe(final Bytes key) {
+    return Math.floorMod(key.hashCode(), stripes.length());
+  }
+
+  private static KeyValueUpdater readModifyWrite(final KeyValueStore<Bytes, Bytes> store) {
+    return (key, updateFn) -> store.getAsync(key).then(current -> {
+      final Bytes updated = updateFn.apply(Optional.ofNullable(current));
+      return store.putAsync(key, updated).thenSupply(() -> updated);
+    });
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+
+/**
+ * Runs CPU intensive work, such as payload encryption, decryption and (de)serialization, on worker threads so it does
+ * not stall the Vert.x event loops.
+ *
+ * <p>
+ * Tasks are not ordered with respect to each other. The returned futures complete on the context of the caller.
+ */
+public final class CryptoWorkerPool {
+
+  private static final String POOL_NAME = "orion-crypto-worker";
+
+  private final Vertx vertx;
+  private final WorkerExecutor workerExecutor;
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  /**
+   * @param vertx the Vert.x instance.
+   * @param poolSize the number of threads dedicated to crypto work, or 0 to use the Vert.x worker pool.
+   */
+  public CryptoWorkerPool(final Vertx vertx, final int poolSize) {
+    this.vertx = vertx;
+    this.workerExecutor = poolSize > 0 ? vertx.createSharedWorkerExecutor(POOL_NAME, poolSize) : null;
+  }
+
+  /**
+   * Run a task on a worker thread.
+   *
+   * @param task the task to run.
+   * @param <T> the type of the task result.
+   * @return a future completed with the result of the task, or failed with the exception it threw.
+   */
+  public <T> Future<T> execute(final Callable<T> task) {
+    final Future<T> result = Future.future();
+    final Handler<Future<T>> blockingHandler = future -> {
+      pending.decrementAndGet();
+      inFlight.incrementAndGet();
+      try {
+        future.complete(task.call());
+      } catch (final Exception e) {
+        future.fail(e);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    };
+
+    pending.incrementAndGet();
+    if (workerExecutor != null) {
+      workerExecutor.executeBlocking(blockingHandler, false, result);
+    } else {
+      vertx.executeBlocking(blockingHandler, false, result);
+    }
+    return result;
+  }
+
+  /**
+   * @return the number of tasks waiting for a worker thread.
+   */
+  public int pending() {
+    return pending.get();
+  }
+
+  /**
+   * @return the number of tasks currently running.
+   */
+  public int inFlight() {
+    return inFlight.get();
+  }
+}
@@ -33,6 +33,7 @@ import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
 import java.security.spec.PKCS8EncodedKeySpec;
 
+import io.prometheus.client.Histogram;
 import io.vertx.core.net.SelfSignedCertificate;
 import org.apache.tuweni.io.IOConsumer;
 
@@ -40,6 +41,14 @@ public class TestUtils {
 
   private TestUtils() {}
 
+  /**
+   * @return the number of observations recorded by a histogram with the given label values.
+   */
+  public static long observations(final Histogram histogram, final String... labelValues) {
+    final double[] buckets = histogram.labels(labelValues).get().buckets;
+    return (long) buckets[buckets.length - 1];
+  }
+
   public static void configureJDKTrustStore(final SelfSignedCertificate clientCert, final Path tempDir)
       throws Exception {
     final KeyStore ks = KeyStore.getInstance("JKS");
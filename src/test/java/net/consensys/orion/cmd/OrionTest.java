@@ -26,13 +26,19 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Properties;
+import java.util.function.Supplier;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Verticle;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.impl.VertxInternal;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
 import org.apache.tuweni.junit.TempDirectory;
 import org.apache.tuweni.junit.TempDirectoryExtension;
 import org.junit.jupiter.api.Test;
@@ -133,15 +139,14 @@ class OrionTest {
   @Test
   void startupFails(@TempDirectory final Path tempDir) {
     final VertxInternal vertx = Mockito.mock(VertxInternal.class);
-    final HttpServer httpServer = Mockito.mock(HttpServer.class);
-    Mockito.when(vertx.createHttpServer(Mockito.any())).thenReturn(httpServer);
-    Mockito.when(httpServer.requestHandler(Mockito.any())).thenReturn(httpServer);
-    Mockito.when(httpServer.exceptionHandler(Mockito.any())).thenReturn(httpServer);
-    Mockito.when(httpServer.listen(Mockito.anyObject())).then(answer -> {
-      final Handler<AsyncResult<HttpServer>> handler = answer.getArgumentAt(0, Handler.class);
+    Mockito.doAnswer(answer -> {
+      final Handler<AsyncResult<String>> handler = answer.getArgumentAt(2, Handler.class);
       handler.handle(Future.failedFuture("Didn't work"));
-      return httpServer;
-    });
+      return null;
+    }).when(vertx).deployVerticle(
+        Mockito.any(Supplier.class),
+        Mockito.any(DeploymentOptions.class),
+        Mockito.any(Handler.class));
     Mockito.doAnswer(answer -> {
       Handler<AsyncResult<HttpServer>> handler = answer.getArgumentAt(1, Handler.class);
       handler.handle(Future.failedFuture("Didn't work"));
@@ -152,4 +157,54 @@ class OrionTest {
     final Config config = Config.load("workdir=\"" + tempDir.resolve("data") + "\"\ntls=\"off\"\n");
     assertThrows(OrionStartException.class, () -> orion.run(config, false));
   }
+
+  @Test
+  void metricsAreServedOnTheirOwnPort(@TempDirectory final Path tempDir) throws Exception {
+    final Path workDir = tempDir.resolve("data");
+    final Config config = Config.load(
+        "workdir=\"" + workDir + "\"\ntls=\"off\"\nnodeport=0\nclientport=0\nstorage=\"memory\"\n"
+            + "metrics=\"on\"\nmetricsport=0\n");
+    final Orion orion = new Orion();
+    orion.run(config, false);
+    try {
+      final Properties ports = new Properties();
+      try (InputStream in = Files.newInputStream(workDir.resolve("orion.ports"))) {
+        ports.load(in);
+      }
+      final String url = "http://127.0.0.1:" + ports.getProperty("http-metrics-port") + "/metrics";
+      final Request request = new Request.Builder().get().url(url).build();
+      try (Response response = new OkHttpClient().newCall(request).execute()) {
+        assertEquals(200, response.code());
+        final String body = response.body().string();
+        assertTrue(body.contains("# TYPE orion_http_requests_in_flight gauge"));
+        assertTrue(body.contains("orion_known_nodes "));
+      }
+    } finally {
+      orion.stop();
+    }
+  }
+
+  @Test
+  void serverInstancesShareTheirPort(@TempDirectory final Path tempDir) throws Exception {
+    final Config config = Config.load(
+        "workdir=\"" + tempDir.resolve("data") + "\"\ntls=\"off\"\nnodeport=0\nclientport=0\nstorage=\"memory\"\n"
+            + "nodeserverinstances=3\nclientserverinstances=2\neventloopthreads=4\nworkerthreads=4\n");
+    final Orion orion = new Orion();
+    orion.run(config, false);
+    try {
+      final OkHttpClient httpClient = new OkHttpClient();
+      for (final int port : new int[] {orion.nodePort(), orion.clientPort()}) {
+        for (int i = 0; i < 6; i++) {
+          final String url = "http://127.0.0.1:" + port + "/upcheck";
+          // a new connection each time, so connections are spread over the instances
+          final Request request = new Request.Builder().get().url(url).header("Connection", "close").build();
+          try (Response response = httpClient.newCall(request).execute()) {
+            assertEquals(200, response.code());
+          }
+        }
+      }
+    } finally {
+      orion.stop();
+    }
+  }
 }
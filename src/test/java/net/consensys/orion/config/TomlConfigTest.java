@@ -43,6 +43,52 @@ class TomlConfigTest {
     assertEquals("0.0.0.0", testConf.nodeNetworkInterface());
     assertEquals("memory", testConf.storage());
     assertEquals("mapdb:knownnodesdb", testConf.knownNodesStorage());
+    assertEquals(64, testConf.parallelKeyWrappingThreshold());
+    assertEquals(16, testConf.sharedKeyCacheSize());
+    assertEquals(4, testConf.cryptoWorkerPoolSize());
+    assertEquals(1048576, testConf.sendMaxBodySize());
+    assertEquals(33554432, testConf.nodeMaxBodySize());
+    assertEquals(2097152, testConf.partyInfoMaxBodySize());
+    assertEquals(16777216, testConf.clientMaxBodySize());
+    assertEquals(5, testConf.pushBatchWindow());
+    assertEquals(16, testConf.pushBatchMaxItems());
+    assertEquals(65536, testConf.pushBatchMaxBytes());
+    assertEquals("http2", testConf.nodeHttpVersion());
+    assertEquals(50, testConf.nodeHttp2MaxConcurrentStreams());
+    assertEquals(8, testConf.nodeClientMaxPoolSize());
+    assertEquals(128, testConf.nodeClientMaxWaitQueueSize());
+    assertEquals(30, testConf.nodeClientKeepAliveTimeout());
+    assertEquals(4, testConf.nodeClientPipeliningLimit());
+    assertEquals(2000, testConf.nodeClientConnectTimeout());
+    assertEquals(120, testConf.nodeClientIdleTimeout());
+    assertEquals(5000, testConf.nodeClientRequestTimeout());
+    assertEquals(250, testConf.discoveryMinRefreshInterval());
+    assertEquals(30000, testConf.discoveryMaxRefreshInterval());
+    assertEquals(10, testConf.discoveryJitter());
+    assertEquals(4, testConf.discoveryMaxConcurrentRequests());
+    assertEquals(5, testConf.peerFailureThreshold());
+    assertEquals(1000, testConf.peerRetryInterval());
+    assertEquals("async", testConf.deliveryMode());
+    assertEquals(5, testConf.deliveryMaxAttempts());
+    assertEquals(500, testConf.deliveryRetryInterval());
+    assertEquals(30000, testConf.deliveryMaxRetryInterval());
+    assertEquals("on", testConf.metrics());
+    assertEquals(9001, testConf.metricsPort());
+    assertEquals("0.0.0.0", testConf.metricsNetworkInterface());
+    assertEquals(50, testConf.eventLoopBlockThreshold());
+    assertEquals(1000, testConf.eventLoopBlockStackInterval());
+    assertEquals(3, testConf.nodeServerInstances());
+    assertEquals(2, testConf.clientServerInstances());
+    assertEquals(8, testConf.eventLoopThreads());
+    assertEquals(16, testConf.workerThreads());
+    assertEquals("off", testConf.nativeTransport());
+    assertEquals("off", testConf.tcpNoDelay());
+    assertEquals("on", testConf.tcpFastOpen());
+    assertEquals("on", testConf.tcpReusePort());
+    assertEquals(131072, testConf.tcpReceiveBufferSize());
+    assertEquals(262144, testConf.tcpSendBufferSize());
+    assertEquals(4096, testConf.tcpAcceptBacklog());
+    assertEquals(1048576, testConf.payloadCacheSize());
     assertEquals("off", testConf.tls());
     assertEquals("ca-or-tofu", testConf.tlsServerTrust());
     assertEquals("ca", testConf.tlsClientTrust());
@@ -116,6 +162,52 @@ class TomlConfigTest {
 
     assertEquals("leveldb", testConf.storage());
     assertEquals("memory", testConf.knownNodesStorage());
+    assertEquals(32, testConf.parallelKeyWrappingThreshold());
+    assertEquals(1024, testConf.sharedKeyCacheSize());
+    assertEquals(0, testConf.cryptoWorkerPoolSize());
+    assertEquals(33554432, testConf.sendMaxBodySize());
+    assertEquals(67108864, testConf.nodeMaxBodySize());
+    assertEquals(8388608, testConf.partyInfoMaxBodySize());
+    assertEquals(67108864, testConf.clientMaxBodySize());
+    assertEquals(0, testConf.pushBatchWindow());
+    assertEquals(64, testConf.pushBatchMaxItems());
+    assertEquals(4194304, testConf.pushBatchMaxBytes());
+    assertEquals("http1", testConf.nodeHttpVersion());
+    assertEquals(100, testConf.nodeHttp2MaxConcurrentStreams());
+    assertEquals(5, testConf.nodeClientMaxPoolSize());
+    assertEquals(32, testConf.nodeClientMaxWaitQueueSize());
+    assertEquals(60, testConf.nodeClientKeepAliveTimeout());
+    assertEquals(0, testConf.nodeClientPipeliningLimit());
+    assertEquals(1500, testConf.nodeClientConnectTimeout());
+    assertEquals(300, testConf.nodeClientIdleTimeout());
+    assertEquals(10000, testConf.nodeClientRequestTimeout());
+    assertEquals(500, testConf.discoveryMinRefreshInterval());
+    assertEquals(60000, testConf.discoveryMaxRefreshInterval());
+    assertEquals(20, testConf.discoveryJitter());
+    assertEquals(16, testConf.discoveryMaxConcurrentRequests());
+    assertEquals(3, testConf.peerFailureThreshold());
+    assertEquals(5000, testConf.peerRetryInterval());
+    assertEquals("sync", testConf.deliveryMode());
+    assertEquals(10, testConf.deliveryMaxAttempts());
+    assertEquals(1000, testConf.deliveryRetryInterval());
+    assertEquals(60000, testConf.deliveryMaxRetryInterval());
+    assertEquals("off", testConf.metrics());
+    assertEquals(8890, testConf.metricsPort());
+    assertEquals("127.0.0.1", testConf.metricsNetworkInterface());
+    assertEquals(200, testConf.eventLoopBlockThreshold());
+    assertEquals(60000, testConf.eventLoopBlockStackInterval());
+    assertEquals(1, testConf.nodeServerInstances());
+    assertEquals(1, testConf.clientServerInstances());
+    assertEquals(0, testConf.eventLoopThreads());
+    assertEquals(0, testConf.workerThreads());
+    assertEquals("on", testConf.nativeTransport());
+    assertEquals("on", testConf.tcpNoDelay());
+    assertEquals("off", testConf.tcpFastOpen());
+    assertEquals("off", testConf.tcpReusePort());
+    assertEquals(0, testConf.tcpReceiveBufferSize());
+    assertEquals(0, testConf.tcpSendBufferSize());
+    assertEquals(0, testConf.tcpAcceptBacklog());
+    assertEquals(33554432, testConf.payloadCacheSize());
     assertEquals("off", testConf.tls());
     assertEquals("tofu", testConf.tlsServerTrust());
     assertEquals("ca-or-tofu", testConf.tlsClientTrust());
@@ -175,4 +267,13 @@ class TomlConfigTest {
     assertThrows(ConfigException.class, () -> Config.load("storage=\"memoryX\""));
     assertThrows(ConfigException.class, () -> Config.load("storage=\"invalidStorage\""));
   }
+
+  @Test
+  void discoveryIntervalValidation() {
+    Config.load("discoveryminrefreshinterval=1000\ndiscoverymaxrefreshinterval=1000");
+    assertThrows(
+        ConfigException.class,
+        () -> Config.load("discoveryminrefreshinterval=2000\ndiscoverymaxrefreshinterval=1000"));
+    assertThrows(ConfigException.class, () -> Config.load("discoveryjitter=100"));
+  }
 }
@@ -14,13 +14,17 @@ package net.consensys.orion.enclave;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import net.consensys.orion.enclave.sodium.MemoryKeyStore;
+import net.consensys.orion.exception.OrionErrorCode;
 import net.consensys.orion.http.server.HttpContentType;
 import net.consensys.orion.utils.Serializer;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -48,6 +52,9 @@ class EncryptedPayloadTest {
         "fake group".getBytes(UTF_8));
     assertEquals(payload, Serializer.roundTrip(HttpContentType.JSON, EncryptedPayload.class, payload));
     assertEquals(payload, Serializer.roundTrip(HttpContentType.CBOR, EncryptedPayload.class, payload));
+    assertEquals(
+        encryptedKeysOwners,
+        Serializer.roundTrip(HttpContentType.CBOR, EncryptedPayload.class, payload).encryptedKeyOwners());
   }
 
   @Test
@@ -62,7 +69,11 @@ class EncryptedPayloadTest {
     final byte[] serialized = Serializer.serialize(HttpContentType.JSON, payload);
     final ObjectMapper mapper = new ObjectMapper();
     final JsonNode jsonNode = mapper.readTree(serialized);
-    jsonNode.fieldNames();
+    assertFalse(jsonNode.has("encryptedKeyOwners"));
+
+    final EncryptedPayload deserialized =
+        Serializer.deserialize(HttpContentType.JSON, EncryptedPayload.class, serialized);
+    assertTrue(deserialized.encryptedKeyOwners().isEmpty());
   }
 
   @Test
@@ -95,4 +106,44 @@ class EncryptedPayloadTest {
             Collectors.toList());
     assertTrue(strings.containsAll(Arrays.asList("Encrypted key1", "Encrypted key3")));
   }
+
+  @Test
+  void stripKeysKeepsOwnersOfRemainingKeys() {
+    final EncryptedKey encryptedKey1 = new EncryptedKey("Encrypted key1".getBytes(UTF_8));
+    final EncryptedKey encryptedKey2 = new EncryptedKey("Encrypted key2".getBytes(UTF_8));
+    final Box.PublicKey publicKey1 = Box.KeyPair.random().publicKey();
+    final Box.PublicKey publicKey2 = Box.KeyPair.random().publicKey();
+    final Map<Box.PublicKey, Integer> keyMap = new HashMap<>();
+    keyMap.put(publicKey1, 0);
+    keyMap.put(publicKey2, 1);
+
+    final EncryptedPayload payload = new EncryptedPayload(
+        Box.KeyPair.random().publicKey(),
+        "fake nonce".getBytes(UTF_8),
+        new EncryptedKey[] {encryptedKey1, encryptedKey2},
+        "fake ciphertext".getBytes(UTF_8),
+        keyMap,
+        "fake group".getBytes(UTF_8));
+
+    final EncryptedPayload strippedPayload = payload.stripFor(Collections.singletonList(publicKey2));
+
+    assertEquals(Collections.singletonMap(publicKey2, 0), strippedPayload.encryptedKeyOwners());
+    assertEquals(encryptedKey2, strippedPayload.encryptedKeys()[0]);
+  }
+
+  @Test
+  void stripKeysForUnknownKeyFails() {
+    final EncryptedPayload payload = new EncryptedPayload(
+        Box.KeyPair.random().publicKey(),
+        "fake nonce".getBytes(UTF_8),
+        new EncryptedKey[] {new EncryptedKey("Encrypted key1".getBytes(UTF_8))},
+        "fake ciphertext".getBytes(UTF_8),
+        Collections.singletonMap(Box.KeyPair.random().publicKey(), 0),
+        "fake group".getBytes(UTF_8));
+
+    final EnclaveException e = assertThrows(
+        EnclaveException.class,
+        () -> payload.stripFor(Collections.singletonList(Box.KeyPair.random().publicKey())));
+    assertEquals(OrionErrorCode.ENCLAVE_NOT_PAYLOAD_OWNER, e.code());
+  }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.enclave.sodium;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.apache.tuweni.crypto.sodium.Box;
+import org.junit.jupiter.api.Test;
+
+class SharedKeyCacheTest {
+
+  private final Box.KeyPair local = Box.KeyPair.random();
+  private final Box.KeyPair remote = Box.KeyPair.random();
+  private final Box.KeyPair other = Box.KeyPair.random();
+  private final Box.Nonce nonce = Box.Nonce.random();
+  private final byte[] message = "payload key".getBytes(UTF_8);
+
+  @Test
+  void reusesSharedKeyForSamePair() {
+    final SharedKeyCache cache = new SharedKeyCache(4);
+
+    final Box first = cache.apply(local.publicKey(), local.secretKey(), remote.publicKey(), box -> box);
+    final Box second = cache.apply(local.publicKey(), local.secretKey(), remote.publicKey(), box -> box);
+
+    assertSame(first, second);
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void precomputedKeyMatchesDirectEncryption() {
+    final SharedKeyCache cache = new SharedKeyCache(4);
+
+    final byte[] encrypted =
+        cache.apply(local.publicKey(), local.secretKey(), remote.publicKey(), box -> box.encrypt(message, nonce));
+
+    assertArrayEquals(message, Box.decrypt(encrypted, local.publicKey(), remote.secretKey(), nonce));
+    final byte[] decrypted =
+        cache.apply(remote.publicKey(), remote.secretKey(), local.publicKey(), box -> box.decrypt(encrypted, nonce));
+    assertArrayEquals(message, decrypted);
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedPair() {
+    final SharedKeyCache cache = new SharedKeyCache(1);
+
+    final Box first = cache.apply(local.publicKey(), local.secretKey(), remote.publicKey(), box -> box);
+    cache.apply(local.publicKey(), local.secretKey(), other.publicKey(), box -> box);
+    final Box recomputed = cache.apply(local.publicKey(), local.secretKey(), remote.publicKey(), box -> box);
+
+    assertNotSame(first, recomputed);
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void sharedKeyInUseSurvivesEviction() {
+    final SharedKeyCache cache = new SharedKeyCache(1);
+
+    final byte[] encrypted = cache.apply(local.publicKey(), local.secretKey(), remote.publicKey(), box -> {
+      // evicts the shared key currently in use
+      cache.apply(local.publicKey(), local.secretKey(), other.publicKey(), otherBox -> otherBox);
+      return box.encrypt(message, nonce);
+    });
+
+    assertArrayEquals(message, Box.decrypt(encrypted, local.publicKey(), remote.secretKey(), nonce));
+  }
+
+  @Test
+  void disabledCacheComputesSharedKeyOnEachUse() {
+    final SharedKeyCache cache = new SharedKeyCache(0);
+
+    final byte[] encrypted =
+        cache.apply(local.publicKey(), local.secretKey(), remote.publicKey(), box -> box.encrypt(message, nonce));
+
+    assertArrayEquals(message, Box.decrypt(encrypted, local.publicKey(), remote.secretKey(), nonce));
+    assertEquals(0, cache.size());
+  }
+}
@@ -23,6 +23,7 @@ import net.consensys.orion.enclave.EncryptedPayload;
 import net.consensys.orion.exception.OrionErrorCode;
 
 import java.security.Security;
+import java.util.Collections;
 
 import org.apache.tuweni.crypto.sodium.Box;
 import org.junit.jupiter.api.BeforeEach;
@@ -164,6 +165,57 @@ class SodiumEnclaveTest {
     assertNotEquals(encryptedPayload1.cipherText(), encryptedPayload2.cipherText());
   }
 
+  @Test
+  void parallelKeyWrappingKeepsRecipientOrder() {
+    final SodiumEnclave parallelEnclave = new SodiumEnclave(keyStore, 1, 8);
+    final Box.PublicKey senderKey = keyStore.generateKeyPair();
+    final Box.PublicKey[] recipientKeys = new Box.PublicKey[50];
+    for (int i = 0; i < recipientKeys.length; i++) {
+      recipientKeys[i] = keyStore.generateKeyPair();
+    }
+    final String plaintext = "hello to many";
+
+    final EncryptedPayload encryptedPayload =
+        parallelEnclave.encrypt(plaintext.getBytes(UTF_8), senderKey, recipientKeys, null);
+
+    assertEquals(recipientKeys.length + 1, encryptedPayload.encryptedKeys().length);
+    for (final Box.PublicKey recipientKey : recipientKeys) {
+      final EncryptedPayload stripped = encryptedPayload.stripFor(Collections.singletonList(recipientKey));
+      assertEquals(plaintext, decrypt(stripped, recipientKey));
+    }
+    assertEquals(plaintext, decrypt(encryptedPayload, senderKey));
+  }
+
+  @Test
+  void decryptPayloadWithoutEncryptedKeyOwners() {
+    final Box.PublicKey senderKey = keyStore.generateKeyPair();
+    final Box.PublicKey recipientKey1 = keyStore.generateKeyPair();
+    final Box.PublicKey recipientKey2 = keyStore.generateKeyPair();
+    final String plaintext = "hello from an older node";
+
+    final EncryptedPayload encryptedPayload = encrypt(plaintext, senderKey, recipientKey1, recipientKey2);
+    final EncryptedPayload payloadWithoutOwners = new EncryptedPayload(
+        encryptedPayload.sender(),
+        encryptedPayload.nonce(),
+        encryptedPayload.encryptedKeys(),
+        encryptedPayload.cipherText(),
+        encryptedPayload.privacyGroupId());
+
+    assertEquals(plaintext, decrypt(payloadWithoutOwners, recipientKey2));
+  }
+
+  @Test
+  void decryptFailsForIdentityWithoutEncryptedKey() {
+    final Box.PublicKey senderKey = keyStore.generateKeyPair();
+    final Box.PublicKey recipientKey = keyStore.generateKeyPair();
+    final Box.PublicKey otherKey = keyStore.generateKeyPair();
+
+    final EncryptedPayload encryptedPayload = encrypt("hello", senderKey, recipientKey);
+
+    final EnclaveException e = assertThrows(EnclaveException.class, () -> decrypt(encryptedPayload, otherKey));
+    assertEquals(OrionErrorCode.ENCLAVE_DECRYPT_WRONG_PRIVATE_KEY, e.code());
+  }
+
   private String decrypt(final EncryptedPayload encryptedPayload, final Box.PublicKey senderKey) {
     return new String(enclave.decrypt(encryptedPayload, senderKey), UTF_8);
   }
@@ -23,6 +23,10 @@ import net.consensys.orion.enclave.QueryPrivacyGroupPayload;
 import net.consensys.orion.exception.OrionErrorCode;
 import net.consensys.orion.helpers.StubEnclave;
 import net.consensys.orion.http.server.HttpContentType;
+import net.consensys.orion.metrics.BlockedEventLoopDetector;
+import net.consensys.orion.metrics.MetricsRegistry;
+import net.consensys.orion.network.NodeHttpClient;
+import net.consensys.orion.network.PeerHealth;
 import net.consensys.orion.network.PersistentNetworkNodes;
 import net.consensys.orion.payload.DistributePayloadManager;
 import net.consensys.orion.storage.EncryptedPayloadStorage;
@@ -32,6 +36,8 @@ import net.consensys.orion.storage.Sha512_256StorageKeyBuilder;
 import net.consensys.orion.storage.Storage;
 import net.consensys.orion.storage.StorageKeyBuilder;
 import net.consensys.orion.storage.StorageUtils;
+import net.consensys.orion.storage.StripedKeyValueUpdater;
+import net.consensys.orion.utils.CryptoWorkerPool;
 import net.consensys.orion.utils.Serializer;
 
 import java.io.IOException;
@@ -75,12 +81,14 @@ public abstract class HandlerTest {
 
   // these are re-built between tests
   protected PersistentNetworkNodes networkNodes;
+  protected PeerHealth peerHealth;
+  protected MetricsRegistry metrics;
   protected Config config;
   protected Enclave enclave;
 
   protected Box.PublicKey senderKey;
 
-  private Vertx vertx;
+  protected Vertx vertx;
   private Integer nodeHTTPServerPort;
   private HttpServer nodeHttpServer;
   private Integer clientHTTPServerPort;
@@ -91,6 +99,7 @@ public abstract class HandlerTest {
   protected Storage<QueryPrivacyGroupPayload> queryPrivacyGroupStorage;
   protected Storage<PrivacyGroupPayload> privacyGroupStorage;
   protected DistributePayloadManager distributePayloadManager;
+  private CryptoWorkerPool cryptoWorkerPool;
 
   @BeforeEach
   void setUp(@TempDirectory final Path tempDir) throws Exception {
@@ -116,24 +125,38 @@ public abstract class HandlerTest {
     payloadStorage = new EncryptedPayloadStorage(storage, keyBuilder);
     queryPrivacyGroupStorage = new QueryPrivacyGroupStorage(storage, enclave);
     privacyGroupStorage = new PrivacyGroupStorage(storage, enclave);
+    cryptoWorkerPool = new CryptoWorkerPool(vertx, 0);
+    final NodeHttpClient nodeHttpClient = NodeHttpClient.create(vertx, config);
+    peerHealth = new PeerHealth(config.peerFailureThreshold(), config.peerRetryInterval());
+    metrics = new MetricsRegistry();
     distributePayloadManager = new DistributePayloadManager(
         vertx,
         config,
+        nodeHttpClient,
+        peerHealth,
+        metrics,
         enclave,
         payloadStorage,
         privacyGroupStorage,
         queryPrivacyGroupStorage,
-        networkNodes);
+        networkNodes,
+        storage,
+        new StripedKeyValueUpdater(storage),
+        cryptoWorkerPool);
     final Router publicRouter = Router.router(vertx);
     final Router privateRouter = Router.router(vertx);
     Orion.configureRoutes(
-        vertx,
+        nodeHttpClient,
         networkNodes,
+        peerHealth,
+        metrics,
+        new BlockedEventLoopDetector(metrics, 0, 0),
         enclave,
         payloadStorage,
         privacyGroupStorage,
         queryPrivacyGroupStorage,
         distributePayloadManager,
+        cryptoWorkerPool,
         publicRouter,
         privateRouter,
         config);
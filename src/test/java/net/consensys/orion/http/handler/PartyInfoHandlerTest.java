@@ -19,11 +19,13 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 
 import net.consensys.orion.exception.OrionErrorCode;
 import net.consensys.orion.http.server.HttpContentType;
+import net.consensys.orion.network.PartyInfoVersion;
 import net.consensys.orion.network.ReadOnlyNetworkNodes;
 import net.consensys.orion.utils.Serializer;
 
 import java.net.URI;
 import java.util.Collections;
+import java.util.Map;
 
 import okhttp3.MediaType;
 import okhttp3.Request;
@@ -62,6 +64,58 @@ class PartyInfoHandlerTest extends HandlerTest {
     assertFalse(networkNodes.merge(partyInfoResponse));
   }
 
+  @Test
+  void callerWithKnownVersionOnlyGetsChanges() throws Exception {
+    networkNodes.addNode(
+        Collections
+            .singletonMap(Box.KeyPair.random().publicKey().bytes(), URI.create("http://127.0.0.1:9001/"))
+            .entrySet());
+    final PartyInfoVersion knownVersion = networkNodes.version();
+    final Box.PublicKey addedKey = Box.KeyPair.random().publicKey();
+    networkNodes.addNode(Collections.singletonMap(addedKey.bytes(), URI.create("http://127.0.0.1:9002/")).entrySet());
+
+    final Response resp = callPartyInfo(knownVersion.toString());
+    assertEquals(200, resp.code());
+    assertEquals("false", resp.header(PartyInfoVersion.FULL_HEADER));
+    assertEquals(networkNodes.version().toString(), resp.header(PartyInfoVersion.VERSION_HEADER));
+
+    final ReadOnlyNetworkNodes partyInfoResponse =
+        Serializer.deserialize(HttpContentType.CBOR, ReadOnlyNetworkNodes.class, resp.body().bytes());
+    assertEquals(
+        Collections.singletonMap(addedKey.bytes(), URI.create("http://127.0.0.1:9002/")).entrySet(),
+        partyInfoResponse.nodePKs());
+  }
+
+  @Test
+  void callerWithVersionFromAnotherEpochGetsFullPartyInfo() throws Exception {
+    networkNodes.addNode(
+        Collections
+            .singletonMap(Box.KeyPair.random().publicKey().bytes(), URI.create("http://127.0.0.1:9001/"))
+            .entrySet());
+    final PartyInfoVersion staleVersion =
+        new PartyInfoVersion(networkNodes.version().epoch() + 1, networkNodes.version().version());
+
+    final Response resp = callPartyInfo(staleVersion.toString());
+    assertEquals(200, resp.code());
+    assertEquals("true", resp.header(PartyInfoVersion.FULL_HEADER));
+
+    final ReadOnlyNetworkNodes partyInfoResponse =
+        Serializer.deserialize(HttpContentType.CBOR, ReadOnlyNetworkNodes.class, resp.body().bytes());
+    assertEquals(networkNodes.changesSince(0).entrySet(), partyInfoResponse.nodePKs());
+  }
+
+  private Response callPartyInfo(final String knownVersion) throws Exception {
+    final RequestBody partyInfoBody = RequestBody.create(
+        MediaType.parse(CBOR.httpHeaderValue),
+        Serializer.serialize(CBOR, new ReadOnlyNetworkNodes(URI.create("http://127.0.0.1:9003/"), Map.of())));
+    final Request request = new Request.Builder()
+        .post(partyInfoBody)
+        .header(PartyInfoVersion.KNOWN_VERSION_HEADER, knownVersion)
+        .url(nodeBaseUrl + "/partyinfo")
+        .build();
+    return httpClient.newCall(request).execute();
+  }
+
   @Test
   void roundTripSerialization() throws Exception {
     final ReadOnlyNetworkNodes networkNodes = new ReadOnlyNetworkNodes(
@@ -68,6 +68,30 @@ class PushHandlerTest extends HandlerTest {
     assertEquals(encryptedPayload, data.get());
   }
 
+  @Test
+  void batchOfPayloadsIsStored() throws Exception {
+    final EncryptedPayload[] encryptedPayloads = new EncryptedPayload[] {mockPayload(), mockPayload()};
+
+    final RequestBody body = RequestBody.create(
+        MediaType.parse(HttpContentType.CBOR.httpHeaderValue),
+        Serializer.serialize(HttpContentType.CBOR, encryptedPayloads));
+
+    final Request request = new Request.Builder().post(body).url(nodeBaseUrl + "/pushBatch").build();
+
+    final Response resp = httpClient.newCall(request).execute();
+
+    assertEquals(200, resp.code());
+    final String[] digests = Serializer.deserialize(HttpContentType.CBOR, String[].class, resp.body().bytes());
+    assertEquals(encryptedPayloads.length, digests.length);
+
+    // each digest is that of the payload at the same position
+    for (int i = 0; i < digests.length; i++) {
+      final Optional<EncryptedPayload> data = payloadStorage.get(digests[i]).get();
+      assertTrue(data.isPresent());
+      assertEquals(encryptedPayloads[i], data.get());
+    }
+  }
+
   @Test
   void roundTripSerialization() {
     final EncryptedPayload pushRequest = mockPayload();
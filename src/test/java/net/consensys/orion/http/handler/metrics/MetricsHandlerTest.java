@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.http.handler.metrics;
+
+import static net.consensys.orion.TestUtils.observations;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import net.consensys.orion.http.handler.HandlerTest;
+
+import java.util.concurrent.TimeUnit;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import io.prometheus.client.exporter.common.TextFormat;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.web.Router;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.tuweni.concurrent.AsyncResult;
+import org.apache.tuweni.concurrent.CompletableAsyncResult;
+import org.junit.jupiter.api.Test;
+
+class MetricsHandlerTest extends HandlerTest {
+
+  @Test
+  void requestsAreCountedByApiRouteAndStatus() throws Exception {
+    get(nodeBaseUrl + "/upcheck");
+    get(clientBaseUrl + "/upcheck");
+    get(clientBaseUrl + "/upcheck");
+    get(clientBaseUrl + "/unknown");
+
+    final Counter requests = metrics.counter("orion_http_requests_total", "", "api", "route", "method", "status");
+    await().atMost(10, TimeUnit.SECONDS).until(() -> requests.labels("client", "/upcheck", "GET", "200").get() == 2);
+    await().atMost(10, TimeUnit.SECONDS).until(() -> requests.labels("client", "other", "GET", "404").get() == 1);
+    assertEquals(1, requests.labels("node", "/upcheck", "GET", "200").get());
+    final Histogram duration = metrics.histogram("orion_http_request_duration_seconds", "", "api", "route", "method");
+    assertEquals(2, observations(duration, "client", "/upcheck", "GET"));
+  }
+
+  @Test
+  void nonstandardMethodsShareOneLabel() throws Exception {
+    for (final String method : new String[] {"PURGE", "FOO", "BAR"}) {
+      final Request request = new Request.Builder().method(method, null).url(clientBaseUrl + "/upcheck").build();
+      httpClient.newCall(request).execute().close();
+    }
+
+    final Counter requests = metrics.counter("orion_http_requests_total", "", "api", "route", "method", "status");
+    await().atMost(10, TimeUnit.SECONDS).until(() -> requests.labels("client", "other", "OTHER", "404").get() == 3);
+  }
+
+  @Test
+  void metricsAreServedInPrometheusFormat() throws Exception {
+    get(clientBaseUrl + "/upcheck");
+    final Router router = Router.router(vertx);
+    router.get("/metrics").handler(new MetricsHandler(metrics));
+    final CompletableAsyncResult<HttpServer> listening = AsyncResult.incomplete();
+    vertx.createHttpServer().requestHandler(router::accept).listen(0, result -> {
+      if (result.succeeded()) {
+        listening.complete(result.result());
+      } else {
+        listening.completeExceptionally(result.cause());
+      }
+    });
+    final HttpServer server = listening.get();
+
+    try {
+      await().atMost(10, TimeUnit.SECONDS).until(
+          () -> get("http://localhost:" + server.actualPort() + "/metrics").contains(
+              "orion_http_requests_total{api=\"client\",route=\"/upcheck\",method=\"GET\",status=\"200\",} 1.0"));
+      final Response response = httpClient
+          .newCall(new Request.Builder().get().url("http://localhost:" + server.actualPort() + "/metrics").build())
+          .execute();
+      assertEquals(TextFormat.CONTENT_TYPE_004, response.header("Content-Type"));
+      final String body = response.body().string();
+      assertTrue(body.contains("# TYPE orion_http_request_duration_seconds histogram"));
+      assertTrue(body.contains("orion_http_requests_in_flight{api=\"node\",} 0.0"));
+    } finally {
+      server.close();
+    }
+  }
+
+  private String get(final String url) throws Exception {
+    try (Response response = httpClient.newCall(new Request.Builder().get().url(url).build()).execute()) {
+      return response.body().string();
+    }
+  }
+}
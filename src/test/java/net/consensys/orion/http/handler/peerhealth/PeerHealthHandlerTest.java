@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.http.handler.peerhealth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import net.consensys.orion.http.handler.HandlerTest;
+
+import java.net.URI;
+import java.util.List;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.Test;
+
+class PeerHealthHandlerTest extends HandlerTest {
+
+  @Test
+  void shouldReturnEmptyListWhenNoPeerWasCalled() throws Exception {
+    final Request request = new Request.Builder().get().url(clientBaseUrl + "/peerhealth").build();
+    final Response response = httpClient.newCall(request).execute();
+
+    assertEquals(200, response.code());
+    assertTrue(readList(response).isEmpty());
+  }
+
+  @Test
+  void shouldReturnHealthOfCalledPeers() throws Exception {
+    final URI reachable = URI.create("http://127.0.0.1:9001/");
+    final URI unreachable = URI.create("http://127.0.0.1:9002/");
+    peerHealth.recordSuccess(reachable);
+    for (int i = 0; i < config.peerFailureThreshold(); i++) {
+      peerHealth.recordFailure(unreachable);
+    }
+
+    final Request request = new Request.Builder().get().url(clientBaseUrl + "/peerhealth").build();
+    final Response response = httpClient.newCall(request).execute();
+    final List<PeerHealthStatus> peers = readList(response);
+
+    assertEquals(2, peers.size());
+    assertEquals(reachable.toString(), peers.get(0).getNodeURI());
+    assertEquals("REACHABLE", peers.get(0).getState());
+    assertNotNull(peers.get(0).getLastSuccess());
+    assertNull(peers.get(0).getLastFailure());
+    assertEquals(unreachable.toString(), peers.get(1).getNodeURI());
+    assertEquals("UNREACHABLE", peers.get(1).getState());
+    assertEquals(config.peerFailureThreshold(), peers.get(1).getConsecutiveFailures());
+  }
+
+  @Test
+  void peerHealthMethodIsNotAvailableOnNodeApi() throws Exception {
+    final Request request = new Request.Builder().get().url(nodeBaseUrl + "/peerhealth").build();
+    final Response response = httpClient.newCall(request).execute();
+
+    assertEquals(404, response.code());
+  }
+
+  private List<PeerHealthStatus> readList(final Response response) throws java.io.IOException {
+    return new ObjectMapper().readValue(response.body().bytes(), new TypeReference<>() {});
+  }
+}
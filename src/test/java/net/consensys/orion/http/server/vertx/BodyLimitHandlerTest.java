@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.http.server.vertx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import net.consensys.orion.metrics.MetricsRegistry;
+
+import java.io.IOException;
+
+import io.prometheus.client.Counter;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import org.apache.tuweni.concurrent.AsyncResult;
+import org.apache.tuweni.concurrent.CompletableAsyncResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BodyLimitHandlerTest {
+
+  private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+
+  private final OkHttpClient httpClient = new OkHttpClient();
+  private final MetricsRegistry metrics = new MetricsRegistry();
+  private Counter rejectedRequests;
+  private Counter rejectedBytes;
+  private Vertx vertx;
+  private HttpServer server;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    vertx = Vertx.vertx();
+    final Router router = Router.router(vertx);
+    BodyLimitHandler.limitBody(router.post("/small"), metrics, "node", 16);
+    BodyLimitHandler.limitBody(router.post("/large"), metrics, "node", 4096);
+    BodyLimitHandler.limitBody(router.route(), metrics, "node", 1024).failureHandler(new HttpErrorHandler());
+    rejectedRequests = metrics.counter("orion_http_rejected_requests_total", "", "api", "route");
+    rejectedBytes = metrics.counter("orion_http_rejected_body_bytes_total", "", "api", "route");
+    router.post("/small").handler(BodyLimitHandlerTest::respondWithBodyLength);
+    router.post("/large").handler(BodyLimitHandlerTest::respondWithBodyLength);
+    router.post("/other").handler(BodyLimitHandlerTest::respondWithBodyLength);
+
+    final CompletableAsyncResult<HttpServer> listening = AsyncResult.incomplete();
+    vertx.createHttpServer().requestHandler(router::accept).listen(0, result -> {
+      if (result.succeeded()) {
+        listening.complete(result.result());
+      } else {
+        listening.completeExceptionally(result.cause());
+      }
+    });
+    server = listening.get();
+  }
+
+  @AfterEach
+  void tearDown() {
+    vertx.close();
+  }
+
+  @Test
+  void bodiesWithinTheLimitOfTheirRouteAreRead() throws Exception {
+    assertEquals("16", post("/small", RequestBody.create(OCTET_STREAM, new byte[16])));
+    assertEquals("2048", post("/large", RequestBody.create(OCTET_STREAM, new byte[2048])));
+    assertEquals("1024", post("/other", RequestBody.create(OCTET_STREAM, new byte[1024])));
+    assertEquals(0, rejectedRequests.labels("node", "/small").get());
+  }
+
+  @Test
+  void declaredLengthOverTheLimitIsRejected() throws Exception {
+    assertEquals("413", post("/small", RequestBody.create(OCTET_STREAM, new byte[32])));
+    assertEquals("413", post("/other", RequestBody.create(OCTET_STREAM, new byte[2048])));
+
+    assertEquals(1, rejectedRequests.labels("node", "/small").get());
+    assertEquals(32, rejectedBytes.labels("node", "/small").get());
+    assertEquals(1, rejectedRequests.labels("node", "other").get());
+    assertEquals(2048, rejectedBytes.labels("node", "other").get());
+  }
+
+  @Test
+  void streamedBodyOverTheLimitIsRejected() throws Exception {
+    final RequestBody streamed = new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return OCTET_STREAM;
+      }
+
+      @Override
+      public long contentLength() {
+        return -1;
+      }
+
+      @Override
+      public void writeTo(final BufferedSink sink) throws IOException {
+        sink.write(new byte[64]);
+      }
+    };
+
+    assertEquals("413", post("/small", streamed));
+
+    assertEquals(1, rejectedRequests.labels("node", "/small").get());
+    assertEquals(16, rejectedBytes.labels("node", "/small").get());
+  }
+
+  private String post(final String path, final RequestBody body) throws Exception {
+    final Request request =
+        new Request.Builder().post(body).url("http://localhost:" + server.actualPort() + path).build();
+    try (Response response = httpClient.newCall(request).execute()) {
+      return response.code() == 200 ? response.body().string() : Integer.toString(response.code());
+    }
+  }
+
+  private static void respondWithBodyLength(final RoutingContext routingContext) {
+    routingContext.response().end(Integer.toString(routingContext.getBody().length()));
+  }
+}
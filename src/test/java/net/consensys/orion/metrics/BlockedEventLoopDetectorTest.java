@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.metrics;
+
+import static net.consensys.orion.TestUtils.observations;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.VertxThread;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class BlockedEventLoopDetectorTest {
+
+  private static final String SITE = BlockedEventLoopDetectorTest.class.getName() + ".blockFor";
+
+  private final Vertx vertx = Vertx.vertx();
+  private final MetricsRegistry metrics = new MetricsRegistry();
+
+  @AfterEach
+  void tearDown() {
+    vertx.close();
+  }
+
+  @Test
+  void blockingTaskIsRecordedWithRouteAndCallSite() {
+    final BlockedEventLoopDetector detector = new BlockedEventLoopDetector(metrics, 50, 60_000);
+    detector.start(vertx);
+    try {
+      vertx.runOnContext(v -> {
+        final Supplier<String> previous = detector.enter(() -> "/send");
+        try {
+          blockFor(300);
+        } finally {
+          detector.exit(previous);
+        }
+      });
+
+      final Counter blocked = metrics.counter("orion_event_loop_blocked_total", "", "route", "site");
+      final Histogram duration = metrics.histogram("orion_event_loop_blocked_duration_seconds", "", "route", "site");
+      await().atMost(10, TimeUnit.SECONDS).until(() -> observations(duration, "/send", SITE) == 1);
+      assertEquals(1, blocked.labels("/send", SITE).get());
+    } finally {
+      detector.stop();
+    }
+  }
+
+  @Test
+  void blockingTaskOutsideRouteIsRecorded() {
+    final BlockedEventLoopDetector detector = new BlockedEventLoopDetector(metrics, 50, 60_000);
+    detector.start(vertx);
+    try {
+      vertx.runOnContext(v -> blockFor(300));
+
+      final Counter blocked = metrics.counter("orion_event_loop_blocked_total", "", "route", "site");
+      await().atMost(10, TimeUnit.SECONDS).until(() -> blocked.labels("none", SITE).get() == 1);
+    } finally {
+      detector.stop();
+    }
+  }
+
+  @Test
+  void shortTasksAreNotRecorded() throws Exception {
+    final BlockedEventLoopDetector detector = new BlockedEventLoopDetector(metrics, 500, 60_000);
+    detector.start(vertx);
+    try {
+      for (int i = 0; i < 10; i++) {
+        vertx.runOnContext(v -> blockFor(5));
+      }
+      Thread.sleep(1000);
+
+      final Counter blocked = metrics.counter("orion_event_loop_blocked_total", "", "route", "site");
+      assertEquals(0, blocked.labels("none", SITE).get());
+    } finally {
+      detector.stop();
+    }
+  }
+
+  @Test
+  void disabledDetectorRecordsNothing() throws Exception {
+    final BlockedEventLoopDetector detector = new BlockedEventLoopDetector(metrics, 0, 60_000);
+    detector.start(vertx);
+    try {
+      assertNull(detector.enter(() -> "/send"));
+      vertx.runOnContext(v -> blockFor(300));
+      Thread.sleep(1000);
+
+      final Counter blocked = metrics.counter("orion_event_loop_blocked_total", "", "route", "site");
+      assertEquals(0, blocked.labels("none", SITE).get());
+    } finally {
+      detector.stop();
+    }
+  }
+
+  // the detector relies on this internal Vert.x API, read from its own thread
+  @Test
+  void eventLoopThreadsExposeTheStartTimeOfTheirTask() throws Exception {
+    final AtomicReference<Thread> loop = new AtomicReference<>();
+    final CountDownLatch running = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final long before = System.nanoTime();
+    vertx.runOnContext(v -> {
+      loop.set(Thread.currentThread());
+      running.countDown();
+      try {
+        release.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    assertTrue(running.await(10, TimeUnit.SECONDS));
+
+    assertTrue(loop.get() instanceof VertxThread);
+    final VertxThread thread = (VertxThread) loop.get();
+    final long startTime = thread.startTime();
+    assertTrue(startTime >= before && startTime <= System.nanoTime(), "Start time " + startTime);
+    release.countDown();
+    await().atMost(10, TimeUnit.SECONDS).until(() -> thread.startTime() == 0);
+  }
+
+  @Test
+  void callSiteIsInnermostOrionFrame() {
+    final StackTraceElement[] stack = new StackTraceElement[] {
+        new StackTraceElement("java.lang.Thread", "sleep", "Thread.java", 1),
+        new StackTraceElement("net.consensys.orion.network.PersistentNetworkNodes", "uriForRecipient", null, 2),
+        new StackTraceElement("net.consensys.orion.http.handler.send.SendHandler", "handle", null, 3)};
+
+    assertEquals(
+        "net.consensys.orion.network.PersistentNetworkNodes.uriForRecipient",
+        BlockedEventLoopDetector.callSite(stack));
+  }
+
+  private static void blockFor(final long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
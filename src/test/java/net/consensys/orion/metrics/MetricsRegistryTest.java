@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+import org.junit.jupiter.api.Test;
+
+class MetricsRegistryTest {
+
+  private final MetricsRegistry metrics = new MetricsRegistry();
+
+  @Test
+  void counterIsRenderedPerLabelValues() {
+    final Counter counter = metrics.counter("requests_total", "Requests served", "route");
+    counter.labels("/send").inc();
+    counter.labels("/receive").inc(2);
+    counter.labels("/send").inc();
+
+    final String scrape = metrics.scrape();
+    assertTrue(scrape.contains("# HELP requests_total Requests served\n# TYPE requests_total counter\n"));
+    assertTrue(scrape.contains("requests_total{route=\"/receive\",} 2.0\n"));
+    assertTrue(scrape.contains("requests_total{route=\"/send\",} 2.0\n"));
+  }
+
+  @Test
+  void gaugeReportsCurrentValue() {
+    final int[] value = {1};
+    metrics.gauge("queued", "Queued items", () -> value[0]);
+    value[0] = 5;
+
+    assertTrue(metrics.scrape().contains("# TYPE queued gauge\nqueued 5.0\n"));
+  }
+
+  @Test
+  void counterReportsCurrentCountOfSupplier() {
+    final long[] hits = {1};
+    metrics.counter("cache_requests_total", "Cache requests", "result").setChild(
+        MetricsRegistry.countOf(() -> hits[0]),
+        "hit");
+    metrics.counter("cache_evictions_total", "Cache evictions", () -> 3);
+    hits[0] = 7;
+
+    final String scrape = metrics.scrape();
+    assertTrue(scrape.contains("cache_requests_total{result=\"hit\",} 7.0\n"));
+    assertTrue(scrape.contains("cache_evictions_total 3.0\n"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> metrics.counter("cache_evictions_total", "Cache evictions", "result"));
+  }
+
+  @Test
+  void histogramUsesLatencyBucketsByDefault() {
+    final Histogram histogram = metrics.histogram("latency_seconds", "Latency", "op");
+    histogram.labels("get").observe(0.0625);
+    histogram.labels("get").observe(2);
+
+    final String scrape = metrics.scrape();
+    assertTrue(scrape.contains("latency_seconds_bucket{op=\"get\",le=\"0.1\",} 1.0\n"));
+    assertTrue(scrape.contains("latency_seconds_bucket{op=\"get\",le=\"10.0\",} 2.0\n"));
+    assertTrue(scrape.contains("latency_seconds_count{op=\"get\",} 2.0\n"));
+    final double[] buckets = histogram.labels("get").get().buckets;
+    assertEquals(MetricsRegistry.LATENCY_BUCKETS.length + 1, buckets.length);
+  }
+
+  @Test
+  void registeringSameMetricAgainReturnsIt() {
+    final Counter counter = metrics.counter("requests_total", "Requests served", "route");
+
+    assertSame(counter, metrics.counter("requests_total", "Requests served", "route"));
+    assertThrows(IllegalArgumentException.class, () -> metrics.counter("requests_total", "Requests served"));
+    assertThrows(IllegalArgumentException.class, () -> metrics.gauge("requests_total", "Requests served", "route"));
+  }
+
+  @Test
+  void wrongNumberOfLabelValuesIsRejected() {
+    final Counter counter = metrics.counter("requests_total", "Requests served", "route", "status");
+
+    assertThrows(IllegalArgumentException.class, () -> counter.labels("/send"));
+  }
+}
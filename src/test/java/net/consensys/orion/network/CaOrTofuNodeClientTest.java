@@ -90,7 +90,7 @@ class CaOrTofuNodeClientTest {
         .requestHandler(dummyRouter::accept);
     startServer(tofuServer);
 
-    client = NodeHttpClientBuilder.build(vertx, config, 100);
+    client = NodeHttpClientBuilder.build(vertx, config);
   }
 
   private static void startServer(final HttpServer server) throws Exception {
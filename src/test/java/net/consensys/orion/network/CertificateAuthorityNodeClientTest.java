@@ -78,7 +78,7 @@ class CertificateAuthorityNodeClientTest {
       routingContext.response().end(Buffer.buffer(Serializer.serialize(HttpContentType.CBOR, payload)));
     });
 
-    client = NodeHttpClientBuilder.build(vertx, config, 100);
+    client = NodeHttpClientBuilder.build(vertx, config);
     caValidServer = vertx
         .createHttpServer(new HttpServerOptions().setSsl(true).setPemKeyCertOptions(serverCert.keyCertOptions()))
         .requestHandler(dummyRouter::accept);
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.network;
+
+import static net.consensys.orion.TestUtils.generateAndLoadConfiguration;
+import static net.consensys.orion.TestUtils.getFreePort;
+import static net.consensys.orion.TestUtils.writeClientCertToConfig;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import net.consensys.orion.config.Config;
+
+import java.nio.file.Path;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.Http2Settings;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.net.SelfSignedCertificate;
+import org.apache.tuweni.concurrent.AsyncCompletion;
+import org.apache.tuweni.concurrent.AsyncResult;
+import org.apache.tuweni.concurrent.CompletableAsyncCompletion;
+import org.apache.tuweni.concurrent.CompletableAsyncResult;
+import org.apache.tuweni.junit.TempDirectory;
+import org.apache.tuweni.junit.TempDirectoryExtension;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(TempDirectoryExtension.class)
+class Http2NodeClientTest {
+
+  private final static Vertx vertx = Vertx.vertx();
+  private static HttpServer http2Server;
+  private static HttpServer http1Server;
+  private static HttpServer clearTextServer;
+  private static HttpClient tlsClient;
+  private static HttpClient clearTextClient;
+
+  @BeforeAll
+  static void setUp(@TempDirectory final Path tempDir) throws Exception {
+    final SelfSignedCertificate clientCert = SelfSignedCertificate.create("localhost");
+    final Config tlsConfig = generateAndLoadConfiguration(tempDir, writer -> {
+      writer.write("tlsclienttrust='insecure-no-validation'\n");
+      writer.write("nodehttpversion='http2'\n");
+      writeClientCertToConfig(writer, clientCert);
+    });
+    tlsClient = NodeHttpClientBuilder.build(vertx, tlsConfig);
+    clearTextClient = NodeHttpClientBuilder.build(vertx, Config.load("tls='off'\nnodehttpversion='http2'\n"));
+
+    final SelfSignedCertificate serverCert = SelfSignedCertificate.create("localhost");
+    http2Server = startServer(
+        new HttpServerOptions()
+            .setSsl(true)
+            .setUseAlpn(true)
+            .setPemKeyCertOptions(serverCert.keyCertOptions())
+            .setInitialSettings(new Http2Settings().setMaxConcurrentStreams(10)));
+    http1Server = startServer(new HttpServerOptions().setSsl(true).setPemKeyCertOptions(serverCert.keyCertOptions()));
+    clearTextServer = startServer(new HttpServerOptions());
+  }
+
+  private static HttpServer startServer(final HttpServerOptions options) throws Exception {
+    final HttpServer server = vertx.createHttpServer(options).requestHandler(
+        request -> request.bodyHandler(body -> request.response().end(body)));
+    final CompletableAsyncCompletion completion = AsyncCompletion.incomplete();
+    server.listen(getFreePort(), result -> {
+      if (result.succeeded()) {
+        completion.complete();
+      } else {
+        completion.completeExceptionally(result.cause());
+      }
+    });
+    completion.join();
+    return server;
+  }
+
+  @Test
+  void negotiatesHttp2WithAlpn() throws Exception {
+    assertEquals(HttpVersion.HTTP_2, post(tlsClient, http2Server));
+  }
+
+  @Test
+  void fallsBackToHttp1WhenPeerDoesNotNegotiateHttp2() throws Exception {
+    assertEquals(HttpVersion.HTTP_1_1, post(tlsClient, http1Server));
+  }
+
+  @Test
+  void upgradesClearTextConnectionsToHttp2() throws Exception {
+    assertEquals(HttpVersion.HTTP_2, post(clearTextClient, clearTextServer));
+  }
+
+  private static HttpVersion post(final HttpClient client, final HttpServer server) throws Exception {
+    final CompletableAsyncResult<HttpVersion> version = AsyncResult.incomplete();
+    client
+        .post(server.actualPort(), "localhost", "/push", response -> response.bodyHandler(body -> {
+          if (response.statusCode() == 200 && "payload".equals(body.toString())) {
+            version.complete(response.version());
+          } else {
+            version.completeExceptionally(new AssertionError("unexpected response " + response.statusCode()));
+          }
+        }))
+        .exceptionHandler(version::completeExceptionally)
+        .end("payload");
+    return version.get();
+  }
+
+  @AfterAll
+  static void tearDown() {
+    vertx.close();
+  }
+}
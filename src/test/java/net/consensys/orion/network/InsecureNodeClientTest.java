@@ -71,7 +71,7 @@ class InsecureNodeClientTest {
     fooFingerprint = certificateHexFingerprint(Paths.get(serverCert.keyCertOptions().getCertPath()));
     Files.write(knownServersFile, Collections.singletonList("#First line"));
 
-    client = NodeHttpClientBuilder.build(vertx, config, 100);
+    client = NodeHttpClientBuilder.build(vertx, config);
 
     final Router dummyRouter = Router.router(vertx);
     final ReadOnlyNetworkNodes payload =
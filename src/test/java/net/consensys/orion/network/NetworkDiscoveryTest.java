@@ -13,12 +13,15 @@
 package net.consensys.orion.network;
 
 import static net.consensys.orion.http.server.HttpContentType.CBOR;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import net.consensys.orion.config.Config;
 import net.consensys.orion.helpers.FakePeer;
+import net.consensys.orion.metrics.MetricsRegistry;
 import net.consensys.orion.utils.Serializer;
 
 import java.net.URI;
@@ -27,10 +30,12 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import io.vertx.core.Verticle;
 import io.vertx.core.Vertx;
 import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
 import okhttp3.mockwebserver.SocketPolicy;
 import okio.Buffer;
 import org.apache.tuweni.bytes.Bytes;
@@ -48,11 +53,13 @@ class NetworkDiscoveryTest {
   private PersistentNetworkNodes networkNodes;
   private Config config;
   private KeyValueStore<Bytes, URI> store;
+  private NodeHttpClient httpClient;
 
   @BeforeEach
   void setUp() {
     vertx = Vertx.vertx();
     config = Config.load("tls='off'");
+    httpClient = NodeHttpClient.create(vertx, config);
     store = MapKeyValueStore.open(new ConcurrentHashMap<>());
     networkNodes = new PersistentNetworkNodes(config, new Box.PublicKey[] {Box.KeyPair.random().publicKey()}, store);
   }
@@ -75,7 +82,7 @@ class NetworkDiscoveryTest {
     // add peers
 
     // start network discovery
-    final NetworkDiscovery networkDiscovery = new NetworkDiscovery(networkNodes, config);
+    final NetworkDiscovery networkDiscovery = new NetworkDiscovery(networkNodes, config, httpClient);
     deployVerticle(networkDiscovery).join();
 
     assertEquals(0, networkDiscovery.discoverers().size());
@@ -94,7 +101,7 @@ class NetworkDiscoveryTest {
     networkNodes.addNode(Collections.singletonMap(fakePeer2.publicKey.bytes(), fakePeer.getURI()).entrySet());
 
     // start network discovery
-    final NetworkDiscovery networkDiscovery = new NetworkDiscovery(networkNodes, config);
+    final NetworkDiscovery networkDiscovery = new NetworkDiscovery(networkNodes, config, httpClient);
     assertEquals(0, networkDiscovery.discoverers().size());
     deployVerticle(networkDiscovery).join();
     assertEquals(4, networkDiscovery.discoverers().size());
@@ -113,7 +120,7 @@ class NetworkDiscoveryTest {
     networkNodes.addNode(Collections.singletonMap(fakePeer.publicKey.bytes(), fakePeer.getURI()).entrySet());
 
     // start network discovery
-    final NetworkDiscovery networkDiscovery = new NetworkDiscovery(networkNodes, config, 50, 10);
+    final NetworkDiscovery networkDiscovery = new NetworkDiscovery(networkNodes, config, httpClient, 50, 10);
     deployVerticle(networkDiscovery).join();
 
     // assert the discoverer started
@@ -130,6 +137,27 @@ class NetworkDiscoveryTest {
     assertTrue(discoverer.attempts >= 2, "Tried " + discoverer.attempts + " times");
   }
 
+  @Test
+  void timedOutPartyInfoCountsAsOneFailure() throws Exception {
+    final FakePeer fakePeer =
+        new FakePeer(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE), Box.KeyPair.random().publicKey());
+    for (int i = 0; i < 10; i++) {
+      fakePeer.addResponse(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+    }
+    networkNodes.addNode(Collections.singletonMap(fakePeer.publicKey.bytes(), fakePeer.getURI()).entrySet());
+    final PeerHealth peerHealth = new PeerHealth(0, 60_000);
+
+    final NetworkDiscovery networkDiscovery =
+        new NetworkDiscovery(networkNodes, config, httpClient, peerHealth, new MetricsRegistry(), 50, 500);
+    deployVerticle(networkDiscovery).join();
+    final NetworkDiscovery.Discoverer discoverer = networkDiscovery.discoverers().get(fakePeer.getURI());
+    await().atMost(10, TimeUnit.SECONDS).until(() -> discoverer.consecutiveFailures >= 2);
+    // the connection is closed after the timeout, which fails the request a second time
+    Thread.sleep(200);
+
+    assertEquals(discoverer.consecutiveFailures, peerHealth.status(fakePeer.getURI()).consecutiveFailures());
+  }
+
   @Test
   void networkDiscoveryWithMerge() throws Exception {
     // empty memory nodes, lets' say one peer is alone in his network
@@ -156,7 +184,7 @@ class NetworkDiscoveryTest {
     assertTrue(added);
     // start network discovery
     final Instant discoveryStart = Instant.now();
-    final NetworkDiscovery networkDiscovery = new NetworkDiscovery(networkNodes, config, 500, 500);
+    final NetworkDiscovery networkDiscovery = new NetworkDiscovery(networkNodes, config, httpClient, 500, 500);
     deployVerticle(networkDiscovery).join();
 
     // assert the discoverer started, we should only have 1 discoverer for knownPeer
@@ -194,6 +222,116 @@ class NetworkDiscoveryTest {
     assertTrue(unknownPeerDiscoverer.attempts >= 1);
   }
 
+  @Test
+  void nodesMergedFromCallersAreDiscoveredAndPassedOn() throws Exception {
+    final Config config = Config.load("tls=\"off\"\ndiscoveryjitter=0");
+    final Buffer peerBody = new Buffer();
+    peerBody.write(Serializer.serialize(CBOR, new ReadOnlyNetworkNodes(URI.create("http://localhost/"), Map.of())));
+    final FakePeer knownPeer = new FakePeer(Box.KeyPair.random().publicKey());
+    final FakePeer callerPeer = new FakePeer(Box.KeyPair.random().publicKey());
+    for (int i = 0; i < 5; i++) {
+      knownPeer.addResponse(new MockResponse().setBody(peerBody.clone()));
+      callerPeer.addResponse(new MockResponse().setBody(peerBody.clone()));
+    }
+    networkNodes.addNode(Collections.singletonMap(knownPeer.publicKey.bytes(), knownPeer.getURI()).entrySet());
+
+    final NetworkDiscovery networkDiscovery = new NetworkDiscovery(networkNodes, config, httpClient, 1000, 5000);
+    deployVerticle(networkDiscovery).join();
+    assertNotNull(knownPeer.server.takeRequest(5, TimeUnit.SECONDS));
+    final NetworkDiscovery.Discoverer knownPeerDiscoverer = networkDiscovery.discoverers().get(knownPeer.getURI());
+    await().atMost(5, TimeUnit.SECONDS).until(() -> !Instant.MIN.equals(knownPeerDiscoverer.lastUpdate));
+    Thread.sleep(100);
+
+    // the next call to knownPeer is due in 2 seconds, a node merged from a caller of our /partyinfo brings it forward
+    networkNodes.merge(
+        new ReadOnlyNetworkNodes(
+            URI.create("http://localhost/"),
+            Collections.singletonMap(callerPeer.publicKey.bytes(), callerPeer.getURI())));
+
+    await().atMost(1500, TimeUnit.MILLISECONDS).until(
+        () -> networkDiscovery.discoverers().containsKey(callerPeer.getURI()));
+    assertNotNull(knownPeer.server.takeRequest(1500, TimeUnit.MILLISECONDS));
+    assertNotNull(callerPeer.server.takeRequest(1500, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void networkDiscoveryOnlySendsChangesToVersionedPeer() throws Exception {
+    final Buffer peerBody = new Buffer();
+    peerBody.write(Serializer.serialize(CBOR, new ReadOnlyNetworkNodes(URI.create("http://localhost/"), Map.of())));
+    final FakePeer peer = new FakePeer(Box.KeyPair.random().publicKey());
+    for (int i = 0; i < 2; i++) {
+      peer.addResponse(
+          new MockResponse()
+              .setBody(peerBody.clone())
+              .addHeader(PartyInfoVersion.VERSION_HEADER, "42:" + i)
+              .addHeader(PartyInfoVersion.FULL_HEADER, String.valueOf(i == 0)));
+    }
+    networkNodes.addNode(Collections.singletonMap(peer.publicKey.bytes(), peer.getURI()).entrySet());
+
+    final NetworkDiscovery networkDiscovery = new NetworkDiscovery(networkNodes, config, httpClient, 50, 5000);
+    deployVerticle(networkDiscovery).join();
+
+    final RecordedRequest first = peer.server.takeRequest(5, TimeUnit.SECONDS);
+    assertNotNull(first);
+    assertNull(first.getHeader(PartyInfoVersion.KNOWN_VERSION_HEADER));
+    assertEquals(
+        1,
+        Serializer.deserialize(CBOR, ReadOnlyNetworkNodes.class, first.getBody().readByteArray()).nodeURIs().size());
+
+    final RecordedRequest second = peer.server.takeRequest(5, TimeUnit.SECONDS);
+    assertNotNull(second);
+    assertEquals("42:0", second.getHeader(PartyInfoVersion.KNOWN_VERSION_HEADER));
+    assertEquals(
+        0,
+        Serializer.deserialize(CBOR, ReadOnlyNetworkNodes.class, second.getBody().readByteArray()).nodeURIs().size());
+  }
+
+  @Test
+  void failingPeerBacksOffIndependently() throws Exception {
+    final Buffer peerBody = new Buffer();
+    peerBody.write(Serializer.serialize(CBOR, new ReadOnlyNetworkNodes(URI.create("http://localhost/"), Map.of())));
+    final FakePeer healthyPeer = new FakePeer(Box.KeyPair.random().publicKey());
+    final FakePeer failingPeer = new FakePeer(Box.KeyPair.random().publicKey());
+    for (int i = 0; i < 10; i++) {
+      healthyPeer.addResponse(new MockResponse().setBody(peerBody.clone()));
+      failingPeer.addResponse(new MockResponse().setResponseCode(500));
+    }
+    networkNodes.addNode(Collections.singletonMap(healthyPeer.publicKey.bytes(), healthyPeer.getURI()).entrySet());
+    networkNodes.addNode(Collections.singletonMap(failingPeer.publicKey.bytes(), failingPeer.getURI()).entrySet());
+
+    final NetworkDiscovery networkDiscovery = new NetworkDiscovery(networkNodes, config, httpClient, 50, 5000);
+    deployVerticle(networkDiscovery).join();
+    Thread.sleep(2000);
+
+    final NetworkDiscovery.Discoverer healthy = networkDiscovery.discoverers().get(healthyPeer.getURI());
+    assertTrue(healthy.attempts >= 2, "Tried " + healthy.attempts + " times");
+    assertEquals(0, healthy.consecutiveFailures);
+    final NetworkDiscovery.Discoverer failing = networkDiscovery.discoverers().get(failingPeer.getURI());
+    assertEquals(Instant.MIN, failing.lastUpdate);
+    assertTrue(failing.consecutiveFailures >= 2, "Failed " + failing.consecutiveFailures + " times");
+    assertEquals(failing.attempts, failing.consecutiveFailures);
+  }
+
+  @Test
+  void concurrentPartyInfoCallsAreCapped() throws Exception {
+    final Config config = Config.load("tls=\"off\"\ndiscoverymaxconcurrentrequests=1");
+    final FakePeer firstPeer =
+        new FakePeer(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE), Box.KeyPair.random().publicKey());
+    final FakePeer secondPeer =
+        new FakePeer(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE), Box.KeyPair.random().publicKey());
+    networkNodes.addNode(Collections.singletonMap(firstPeer.publicKey.bytes(), firstPeer.getURI()).entrySet());
+    networkNodes.addNode(Collections.singletonMap(secondPeer.publicKey.bytes(), secondPeer.getURI()).entrySet());
+
+    final NetworkDiscovery networkDiscovery = new NetworkDiscovery(networkNodes, config, httpClient, 50, 1500);
+    deployVerticle(networkDiscovery).join();
+
+    Thread.sleep(750);
+    assertEquals(1, firstPeer.server.getRequestCount() + secondPeer.server.getRequestCount());
+    Thread.sleep(2000);
+    assertTrue(firstPeer.server.getRequestCount() >= 1);
+    assertTrue(secondPeer.server.getRequestCount() >= 1);
+  }
+
   private AsyncCompletion deployVerticle(final Verticle verticle) {
     final CompletableAsyncCompletion completion = AsyncCompletion.incomplete();
     vertx.deployVerticle(verticle, result -> {
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+class PeerHealthTest {
+
+  private static final URI PEER = URI.create("http://127.0.0.1:9001/");
+
+  private final MutableClock clock = new MutableClock();
+
+  @Test
+  void unknownPeerIsReachable() {
+    final PeerHealth peerHealth = new PeerHealth(3, 1000, clock);
+
+    assertTrue(peerHealth.allowRequest(PEER));
+    assertNull(peerHealth.status(PEER));
+  }
+
+  @Test
+  void peerIsUnreachableAfterConsecutiveFailures() {
+    final PeerHealth peerHealth = new PeerHealth(3, 1000, clock);
+
+    peerHealth.recordFailure(PEER);
+    peerHealth.recordFailure(PEER);
+    peerHealth.recordSuccess(PEER);
+    peerHealth.recordFailure(PEER);
+    peerHealth.recordFailure(PEER);
+    assertTrue(peerHealth.allowRequest(PEER));
+
+    peerHealth.recordFailure(PEER);
+    assertFalse(peerHealth.allowRequest(PEER));
+    assertEquals(PeerHealth.State.UNREACHABLE, peerHealth.status(PEER).state());
+    assertEquals(3, peerHealth.status(PEER).consecutiveFailures());
+  }
+
+  @Test
+  void singleProbeIsAllowedAfterRetryInterval() {
+    final PeerHealth peerHealth = new PeerHealth(1, 1000, clock);
+    peerHealth.recordFailure(PEER);
+
+    clock.advance(Duration.ofMillis(999));
+    assertFalse(peerHealth.allowRequest(PEER));
+    clock.advance(Duration.ofMillis(1));
+    assertTrue(peerHealth.allowRequest(PEER));
+    assertEquals(PeerHealth.State.PROBING, peerHealth.status(PEER).state());
+    assertFalse(peerHealth.allowRequest(PEER));
+
+    peerHealth.recordFailure(PEER);
+    assertFalse(peerHealth.allowRequest(PEER));
+    clock.advance(Duration.ofMillis(1000));
+    assertTrue(peerHealth.allowRequest(PEER));
+
+    peerHealth.recordSuccess(PEER);
+    assertEquals(PeerHealth.State.REACHABLE, peerHealth.status(PEER).state());
+    assertTrue(peerHealth.allowRequest(PEER));
+    assertTrue(peerHealth.allowRequest(PEER));
+  }
+
+  @Test
+  void zeroThresholdAlwaysAllowsRequests() {
+    final PeerHealth peerHealth = new PeerHealth(0, 1000, clock);
+
+    for (int i = 0; i < 10; i++) {
+      peerHealth.recordFailure(PEER);
+    }
+
+    assertTrue(peerHealth.allowRequest(PEER));
+    assertEquals(10, peerHealth.status(PEER).consecutiveFailures());
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant instant = Instant.EPOCH;
+
+    void advance(final Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(final ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
@@ -13,6 +13,7 @@
 package net.consensys.orion.network;
 
 import static org.apache.tuweni.crypto.sodium.Box.KeyPair.random;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -24,6 +25,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.crypto.sodium.Box;
@@ -33,22 +35,19 @@ import org.junit.jupiter.api.Test;
 class PersistentNetworkNodesTest {
 
   @Test
-  void testTwoInstancesSameStore() {
+  void testChangesAreWrittenThroughToTheStore() throws Exception {
     Config config = Config.load("tls='off'");
     MapKeyValueStore<Bytes, URI> store = MapKeyValueStore.open(new ConcurrentHashMap<>());
-    PersistentNetworkNodes nodes1 = new PersistentNetworkNodes(config, new Box.PublicKey[0], store);
-    PersistentNetworkNodes nodes2 = new PersistentNetworkNodes(config, new Box.PublicKey[0], store);
+    PersistentNetworkNodes nodes = new PersistentNetworkNodes(config, new Box.PublicKey[0], store);
 
     Box.PublicKey pk = random().publicKey();
     boolean changed =
-        nodes1.addNode(Collections.singletonMap(pk.bytes(), URI.create("http://example:com:56666")).entrySet());
+        nodes.addNode(Collections.singletonMap(pk.bytes(), URI.create("http://example:com:56666")).entrySet());
     assertTrue(changed);
+    assertEquals(URI.create("http://example:com:56666"), nodes.uriForRecipient(pk));
 
-    Iterator<Map.Entry<Bytes, URI>> iter = nodes2.nodePKs().iterator();
-    assertTrue(iter.hasNext());
-    Map.Entry<Bytes, URI> entry = iter.next();
-    assertEquals(pk.bytes(), entry.getKey());
-    assertFalse(iter.hasNext());
+    await().atMost(5, TimeUnit.SECONDS).until(() -> store.getAsync(pk.bytes()).get() != null);
+    assertEquals(URI.create("http://example:com:56666"), store.getAsync(pk.bytes()).get());
   }
 
   @Test
@@ -61,6 +60,7 @@ class PersistentNetworkNodesTest {
     boolean changed =
         nodes1.addNode(Collections.singletonMap(pk.bytes(), URI.create("http://example:com:56666")).entrySet());
     assertTrue(changed);
+    await().atMost(5, TimeUnit.SECONDS).until(() -> store.getAsync(pk.bytes()).get() != null);
 
     PersistentNetworkNodes nodes2 = new PersistentNetworkNodes(config, new Box.PublicKey[0], store);
     Iterator<Map.Entry<Bytes, URI>> iter = nodes2.nodePKs().iterator();
@@ -85,4 +85,25 @@ class PersistentNetworkNodesTest {
     assertEquals(URI.create("http://example:com:56666"), nodes.uriForRecipient(pk));
 
   }
+
+  @Test
+  void changesSinceListsEntriesAddedAfterAVersion() {
+    Config config = Config.load("tls='off'");
+    MapKeyValueStore<Bytes, URI> store = MapKeyValueStore.open(new ConcurrentHashMap<>());
+    PersistentNetworkNodes nodes = new PersistentNetworkNodes(config, new Box.PublicKey[0], store);
+    Box.PublicKey first = random().publicKey();
+    Box.PublicKey second = random().publicKey();
+
+    nodes.addNode(Collections.singletonMap(first.bytes(), URI.create("http://first:56666")).entrySet());
+    PartyInfoVersion version = nodes.version();
+    nodes.addNode(Collections.singletonMap(second.bytes(), URI.create("http://second:56666")).entrySet());
+    nodes.addNode(Collections.singletonMap(first.bytes(), URI.create("http://evil:56666")).entrySet());
+
+    assertEquals(version.epoch(), nodes.version().epoch());
+    assertEquals(version.version() + 1, nodes.version().version());
+    assertEquals(
+        Collections.singletonMap(second.bytes(), URI.create("http://second:56666")),
+        nodes.changesSince(version.version()));
+    assertEquals(2, nodes.changesSince(0).size());
+  }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import net.consensys.orion.config.Config;
+
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpServerOptions;
+import org.junit.jupiter.api.Test;
+
+class TcpOptionHelpersTest {
+
+  @Test
+  void defaultsKeepTheVertxOptions() {
+    final Config config = Config.load("");
+    final HttpServerOptions options = new HttpServerOptions();
+
+    TcpOptionHelpers.applyServerTcpOptions(config, options);
+
+    assertEquals(new HttpServerOptions().toJson(), options.toJson());
+  }
+
+  @Test
+  void serverOptionsAreApplied() {
+    final Config config = Config.load(
+        "tcpnodelay=\"off\"\ntcpfastopen=\"on\"\ntcpreuseport=\"on\"\n"
+            + "tcpreceivebuffersize=131072\ntcpsendbuffersize=262144\ntcpacceptbacklog=4096\n");
+    final HttpServerOptions options = new HttpServerOptions();
+
+    TcpOptionHelpers.applyServerTcpOptions(config, options);
+
+    assertFalse(options.isTcpNoDelay());
+    assertTrue(options.isTcpFastOpen());
+    assertTrue(options.isReusePort());
+    assertEquals(131072, options.getReceiveBufferSize());
+    assertEquals(262144, options.getSendBufferSize());
+    assertEquals(4096, options.getAcceptBacklog());
+  }
+
+  @Test
+  void clientOptionsAreApplied() {
+    final Config config = Config.load("tcpfastopen=\"on\"\ntcpsendbuffersize=262144\n");
+    final HttpClientOptions options = new HttpClientOptions();
+
+    TcpOptionHelpers.applyClientTcpOptions(config, options);
+
+    assertTrue(options.isTcpNoDelay());
+    assertTrue(options.isTcpFastOpen());
+    assertFalse(options.isReusePort());
+    assertEquals(262144, options.getSendBufferSize());
+  }
+}
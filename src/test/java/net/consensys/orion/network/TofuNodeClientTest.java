@@ -86,7 +86,7 @@ class TofuNodeClientTest {
     dummyRouter.post("/partyinfo").handler(routingContext -> {
       routingContext.response().end(Buffer.buffer(Serializer.serialize(HttpContentType.CBOR, payload)));
     });
-    client = NodeHttpClientBuilder.build(vertx, config, 100);
+    client = NodeHttpClientBuilder.build(vertx, config);
     tofuServer = vertx
         .createHttpServer(new HttpServerOptions().setSsl(true).setPemKeyCertOptions(serverCert.keyCertOptions()))
         .requestHandler(dummyRouter::accept);
@@ -129,7 +129,7 @@ class TofuNodeClientTest {
         knownServersFile,
         ("localhost:" + tofuServer.actualPort() + " " + new StringBuilder(fooFingerprint).reverse().toString())
             .getBytes(UTF_8));
-    final HttpClient newClient = NodeHttpClientBuilder.build(vertx, config, 100);
+    final HttpClient newClient = NodeHttpClientBuilder.build(vertx, config);
 
     final CompletableAsyncResult<Integer> statusCode = AsyncResult.incomplete();
     newClient
@@ -80,7 +80,7 @@ class WhitelistNodeClientTest {
         knownServersFile,
         Arrays.asList("#First line", "localhost:" + whitelistedServer.actualPort() + " " + fingerprint));
 
-    client = NodeHttpClientBuilder.build(vertx, config, 100);
+    client = NodeHttpClientBuilder.build(vertx, config);
 
     final ReadOnlyNetworkNodes payload =
         new ReadOnlyNetworkNodes(URI.create("http://www.example.com"), Collections.emptyMap());
@@ -21,7 +21,11 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import net.consensys.orion.config.Config;
@@ -38,6 +42,9 @@ import net.consensys.orion.helpers.FakePeer;
 import net.consensys.orion.helpers.StubEnclave;
 import net.consensys.orion.http.handler.send.SendRequest;
 import net.consensys.orion.http.handler.send.SendResponse;
+import net.consensys.orion.metrics.MetricsRegistry;
+import net.consensys.orion.network.NodeHttpClient;
+import net.consensys.orion.network.PeerHealth;
 import net.consensys.orion.network.PersistentNetworkNodes;
 import net.consensys.orion.storage.EncryptedPayloadStorage;
 import net.consensys.orion.storage.PrivacyGroupStorage;
@@ -45,6 +52,8 @@ import net.consensys.orion.storage.QueryPrivacyGroupStorage;
 import net.consensys.orion.storage.Sha512_256StorageKeyBuilder;
 import net.consensys.orion.storage.Storage;
 import net.consensys.orion.storage.StorageKeyBuilder;
+import net.consensys.orion.storage.StripedKeyValueUpdater;
+import net.consensys.orion.utils.CryptoWorkerPool;
 import net.consensys.orion.utils.Serializer;
 
 import java.nio.file.Path;
@@ -60,6 +69,7 @@ import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.crypto.sodium.Box;
 import org.apache.tuweni.crypto.sodium.Box.PublicKey;
@@ -114,7 +124,9 @@ class DistributePayloadManagerTest {
         privacyGroupStorage,
         queryPrivacyGroupStorage,
         networkNodes,
-        vertx.createHttpClient());
+        payloadPusher(),
+        null,
+        new CryptoWorkerPool(vertx, 0));
   }
 
   @AfterEach
@@ -137,6 +149,30 @@ class DistributePayloadManagerTest {
     })));
   }
 
+  @Test
+  public void asyncDeliveryRespondsBeforePeerAcknowledges(final VertxTestContext testContext) throws Exception {
+    final FakePeer fakePeer =
+        new FakePeer(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE), memoryKeyStore);
+    networkNodes.addNode(Collections.singletonMap(fakePeer.publicKey.bytes(), fakePeer.getURI()).entrySet());
+    final PayloadPusher pusher = payloadPusher();
+    distributePayloadManager = new DistributePayloadManager(
+        enclave,
+        payloadStorage,
+        privacyGroupStorage,
+        queryPrivacyGroupStorage,
+        networkNodes,
+        pusher,
+        new PayloadOutbox(vertx, storage, new StripedKeyValueUpdater(storage), pusher, 10, 60_000, 60_000),
+        new CryptoWorkerPool(vertx, 0));
+
+    final SendRequest request = buildLegacyRequest(Collections.singletonList(fakePeer), "foo".getBytes(UTF_8));
+
+    distributePayloadManager.processSendRequest(request, testContext.succeeding(response -> testContext.verify(() -> {
+      assertThatPayloadWasStored(response);
+      testContext.completeNow();
+    })));
+  }
+
   @Test
   public void failsWhenBadDigestFromPeer(final VertxTestContext testContext) throws Exception {
     final FakePeer fakePeer = new FakePeer(new MockResponse().setBody("not the best digest"), memoryKeyStore);
@@ -161,6 +197,29 @@ class DistributePayloadManagerTest {
     })));
   }
 
+  @Test
+  public void repeatedLegacySendSkipsPrivacyGroupLookup(final VertxTestContext testContext) {
+    privacyGroupStorage = spy(privacyGroupStorage);
+    distributePayloadManager = new DistributePayloadManager(
+        enclave,
+        payloadStorage,
+        privacyGroupStorage,
+        queryPrivacyGroupStorage,
+        networkNodes,
+        payloadPusher(),
+        null,
+        new CryptoWorkerPool(vertx, 0));
+    final SendRequest request = buildLegacyRequest(Collections.emptyList(), "foo".getBytes(UTF_8));
+
+    distributePayloadManager.processSendRequest(request, testContext.succeeding(first -> {
+      distributePayloadManager.processSendRequest(request, testContext.succeeding(second -> testContext.verify(() -> {
+        verify(privacyGroupStorage, times(1)).generateDigest(any(PrivacyGroupPayload.class));
+        verify(privacyGroupStorage, times(1)).get(anyString());
+        testContext.completeNow();
+      })));
+    }));
+  }
+
   @Test
   public void sendRequestWithNoFromFailsIfEnclaveIsEmpty(final VertxTestContext testContext) {
     final SendRequest request = buildLegacyRequest(null, Collections.emptyList(), "foo".getBytes(UTF_8));
@@ -188,7 +247,9 @@ class DistributePayloadManagerTest {
         privacyGroupStorage,
         queryPrivacyGroupStorage,
         networkNodes,
-        Vertx.vertx().createHttpClient());
+        payloadPusher(),
+        null,
+        new CryptoWorkerPool(vertx, 0));
 
     distributePayloadManager.processSendRequest(request, testContext.succeeding(response -> testContext.verify(() -> {
       assertThatPayloadWasStored(response);
@@ -380,4 +441,15 @@ class DistributePayloadManagerTest {
     request.setPrivacyGroupId(privacyGroupId);
     return request;
   }
+
+  private PayloadPusher payloadPusher() {
+    return new PayloadPusher(
+        vertx,
+        new NodeHttpClient(vertx.createHttpClient(), 0),
+        new PeerHealth(3, 5000),
+        new MetricsRegistry(),
+        0,
+        1,
+        1);
+  }
 }
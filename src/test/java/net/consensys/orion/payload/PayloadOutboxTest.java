@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.payload;
+
+import static net.consensys.orion.http.server.HttpContentType.CBOR;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import net.consensys.orion.metrics.MetricsRegistry;
+import net.consensys.orion.network.NodeHttpClient;
+import net.consensys.orion.network.PeerHealth;
+import net.consensys.orion.storage.StripedKeyValueUpdater;
+import net.consensys.orion.utils.Serializer;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.kv.KeyValueStore;
+import org.apache.tuweni.kv.MapKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PayloadOutboxTest {
+
+  private final Map<Bytes, Bytes> map = new ConcurrentHashMap<>();
+  private final KeyValueStore<Bytes, Bytes> store = MapKeyValueStore.open(map);
+  private final List<String> received = new CopyOnWriteArrayList<>();
+  private final AtomicBoolean peerFails = new AtomicBoolean(false);
+  private Vertx vertx;
+  private MockWebServer server;
+  private URI peer;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    vertx = Vertx.vertx();
+    server = new MockWebServer();
+    // acknowledge each payload with its own content as digest, unless told to fail
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(final RecordedRequest request) {
+        final String content = Serializer.deserialize(CBOR, String.class, request.getBody().readByteArray());
+        if (peerFails.get()) {
+          return new MockResponse().setResponseCode(500);
+        }
+        received.add(content);
+        return new MockResponse().setBody(content);
+      }
+    });
+    server.start();
+    peer = server.url("/").uri();
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    server.shutdown();
+    vertx.close();
+  }
+
+  @Test
+  void payloadsAreDeliveredInOrder() throws Exception {
+    final PayloadOutbox outbox = outbox(3, 10);
+
+    for (final String content : Arrays.asList("a", "b", "c", "d")) {
+      outbox.add(peer, payload(content), content).join();
+    }
+
+    await().atMost(10, TimeUnit.SECONDS).until(() -> received.size() == 4);
+    assertEquals(Arrays.asList("a", "b", "c", "d"), received);
+    await().atMost(10, TimeUnit.SECONDS).until(() -> outbox.pending(peer).get() == 0);
+  }
+
+  @Test
+  void failedDeliveryIsRetried() throws Exception {
+    peerFails.set(true);
+    final PayloadOutbox outbox = outbox(10, 10);
+
+    outbox.add(peer, payload("a"), "a").join();
+    await().atMost(10, TimeUnit.SECONDS).until(() -> server.getRequestCount() >= 2);
+    peerFails.set(false);
+
+    await().atMost(10, TimeUnit.SECONDS).until(() -> received.size() == 1);
+    assertEquals("a", received.get(0));
+  }
+
+  @Test
+  void payloadIsDroppedAfterMaximumAttempts() throws Exception {
+    peerFails.set(true);
+    final PayloadOutbox outbox = outbox(2, 10);
+
+    outbox.add(peer, payload("a"), "a").join();
+    await().atMost(10, TimeUnit.SECONDS).until(() -> outbox.pending(peer).get() == 0);
+    peerFails.set(false);
+    outbox.add(peer, payload("b"), "b").join();
+
+    await().atMost(10, TimeUnit.SECONDS).until(() -> received.size() == 1);
+    assertEquals("b", received.get(0));
+    assertEquals(3, server.getRequestCount());
+  }
+
+  @Test
+  void queuedPayloadsAreDeliveredAfterRestart() throws Exception {
+    peerFails.set(true);
+    final PayloadOutbox outbox = outbox(10, 60_000);
+    outbox.add(peer, payload("a"), "a").join();
+    outbox.add(peer, payload("b"), "b").join();
+    await().atMost(10, TimeUnit.SECONDS).until(() -> server.getRequestCount() == 1);
+    peerFails.set(false);
+
+    final PayloadOutbox restartedOutbox = outbox(10, 60_000);
+    restartedOutbox.start().join();
+
+    await().atMost(10, TimeUnit.SECONDS).until(() -> received.size() == 2);
+    assertEquals(Arrays.asList("a", "b"), received);
+  }
+
+  private PayloadOutbox outbox(final int maxAttempts, final long retryInterval) {
+    final PayloadPusher pusher = new PayloadPusher(
+        vertx,
+        new NodeHttpClient(vertx.createHttpClient(), 0),
+        new PeerHealth(0, 1000),
+        new MetricsRegistry(),
+        0,
+        1,
+        Long.MAX_VALUE);
+    return new PayloadOutbox(
+        vertx,
+        store,
+        new StripedKeyValueUpdater(store),
+        pusher,
+        maxAttempts,
+        retryInterval,
+        retryInterval);
+  }
+
+  private static Buffer payload(final String content) {
+    return Buffer.buffer(Serializer.serialize(CBOR, content));
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.payload;
+
+import static net.consensys.orion.TestUtils.observations;
+import static net.consensys.orion.http.server.HttpContentType.CBOR;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import net.consensys.orion.exception.OrionErrorCode;
+import net.consensys.orion.exception.OrionException;
+import net.consensys.orion.metrics.MetricsRegistry;
+import net.consensys.orion.network.NodeHttpClient;
+import net.consensys.orion.network.PeerHealth;
+import net.consensys.orion.utils.Serializer;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import io.prometheus.client.Histogram;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PayloadPusherTest {
+
+  private Vertx vertx;
+  private NodeHttpClient httpClient;
+  private PeerHealth peerHealth;
+  private MetricsRegistry metrics;
+  private MockWebServer server;
+  private URI peer;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    vertx = Vertx.vertx();
+    httpClient = new NodeHttpClient(vertx.createHttpClient(), 0);
+    peerHealth = new PeerHealth(2, 60_000);
+    metrics = new MetricsRegistry();
+    server = new MockWebServer();
+    server.start();
+    peer = server.url("/").uri();
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    server.shutdown();
+    vertx.close();
+  }
+
+  @Test
+  void fullBatchIsPushedInSingleRequest() throws Exception {
+    // acknowledge each payload with its own content as digest
+    final List<String[]> batches = new CopyOnWriteArrayList<>();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(final RecordedRequest request) {
+        final String[] payloads = Serializer.deserialize(CBOR, String[].class, request.getBody().readByteArray());
+        batches.add(payloads);
+        return cborResponse(payloads);
+      }
+    });
+    final PayloadPusher pusher = new PayloadPusher(vertx, httpClient, peerHealth, metrics, 60_000, 2, Long.MAX_VALUE);
+
+    final CompletableFuture<Boolean> first = pusher.push(peer, payload("first"), "first");
+    final CompletableFuture<Boolean> second = pusher.push(peer, payload("second"), "second");
+
+    assertEquals(true, first.get(10, TimeUnit.SECONDS));
+    assertEquals(true, second.get(10, TimeUnit.SECONDS));
+    assertEquals(1, server.getRequestCount());
+    assertEquals("/pushBatch", server.takeRequest().getPath());
+    assertArrayEquals(new String[] {"first", "second"}, batches.get(0));
+  }
+
+  @Test
+  void batchIsPushedWhenWindowElapses() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(final RecordedRequest request) {
+        return echo(request);
+      }
+    });
+    final PayloadPusher pusher = new PayloadPusher(vertx, httpClient, peerHealth, metrics, 10, 64, Long.MAX_VALUE);
+
+    assertEquals(true, pusher.push(peer, payload("alone"), "alone").get(10, TimeUnit.SECONDS));
+    // a batch of one is pushed on its own
+    assertEquals("/push", server.takeRequest().getPath());
+  }
+
+  @Test
+  void fallsBackToSinglePushesWhenPeerDoesNotSupportBatches() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(final RecordedRequest request) {
+        if ("/pushBatch".equals(request.getPath())) {
+          return new MockResponse().setResponseCode(404);
+        }
+        return echo(request);
+      }
+    });
+    final PayloadPusher pusher = new PayloadPusher(vertx, httpClient, peerHealth, metrics, 60_000, 2, Long.MAX_VALUE);
+
+    final CompletableFuture<Boolean> first = pusher.push(peer, payload("first"), "first");
+    final CompletableFuture<Boolean> second = pusher.push(peer, payload("second"), "second");
+    assertEquals(true, first.get(10, TimeUnit.SECONDS));
+    assertEquals(true, second.get(10, TimeUnit.SECONDS));
+
+    // later payloads skip batching for that peer
+    assertEquals(true, pusher.push(peer, payload("third"), "third").get(10, TimeUnit.SECONDS));
+    assertEquals(4, server.getRequestCount());
+  }
+
+  @Test
+  void failsPayloadsWithUnexpectedDigest() {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(final RecordedRequest request) {
+        return cborResponse(new String[] {"a", "x"});
+      }
+    });
+    final PayloadPusher pusher = new PayloadPusher(vertx, httpClient, peerHealth, metrics, 60_000, 2, Long.MAX_VALUE);
+
+    final CompletableFuture<Boolean> first = pusher.push(peer, payload("a"), "a");
+    final CompletableFuture<Boolean> second = pusher.push(peer, payload("b"), "b");
+
+    assertEquals(true, first.join());
+    assertEquals(
+        OrionErrorCode.NODE_PROPAGATING_TO_ALL_PEERS,
+        ((OrionException) assertThrows(CompletionException.class, second::join).getCause()).code());
+  }
+
+  @Test
+  void pushToUnreachablePeerFailsImmediately() throws Exception {
+    peerHealth.recordFailure(peer);
+    peerHealth.recordFailure(peer);
+    final PayloadPusher pusher = new PayloadPusher(vertx, httpClient, peerHealth, metrics, 0, 1, Long.MAX_VALUE);
+
+    final CompletableFuture<Boolean> result = pusher.push(peer, payload("a"), "a");
+
+    assertEquals(
+        OrionErrorCode.NODE_PEER_UNREACHABLE,
+        ((OrionException) assertThrows(CompletionException.class, result::join).getCause()).code());
+    assertEquals(0, server.getRequestCount());
+    assertEquals(1, metrics.counter("orion_push_unreachable_total", "", "peer").labels(peer.toString()).get());
+  }
+
+  @Test
+  void pushDurationIsRecordedPerPeer() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(final RecordedRequest request) {
+        return echo(request);
+      }
+    });
+    final PayloadPusher pusher = new PayloadPusher(vertx, httpClient, peerHealth, metrics, 0, 1, Long.MAX_VALUE);
+
+    assertEquals(true, pusher.push(peer, payload("a"), "a").get(10, TimeUnit.SECONDS));
+
+    final Histogram pushDuration = metrics.histogram("orion_push_duration_seconds", "", "peer", "result");
+    await().atMost(10, TimeUnit.SECONDS).until(() -> observations(pushDuration, peer.toString(), "success") == 1);
+  }
+
+  @Test
+  void pushOutcomeIsRecordedInPeerHealth() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(final RecordedRequest request) {
+        return echo(request);
+      }
+    });
+    final PayloadPusher pusher = new PayloadPusher(vertx, httpClient, peerHealth, metrics, 0, 1, Long.MAX_VALUE);
+    peerHealth.recordFailure(peer);
+
+    assertEquals(true, pusher.push(peer, payload("a"), "a").get(10, TimeUnit.SECONDS));
+    assertEquals(0, peerHealth.status(peer).consecutiveFailures());
+
+    final URI closedPeer = URI.create("http://127.0.0.1:1/");
+    assertThrows(CompletionException.class, () -> pusher.push(closedPeer, payload("b"), "b").join());
+    assertEquals(1, peerHealth.status(closedPeer).consecutiveFailures());
+  }
+
+  @Test
+  void timedOutPushCountsAsOneFailure() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(final RecordedRequest request) {
+        return new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE);
+      }
+    });
+    final NodeHttpClient timingOutClient = new NodeHttpClient(vertx.createHttpClient(), 200);
+    final PeerHealth singlePeerHealth = new PeerHealth(0, 60_000);
+    final PayloadPusher pusher =
+        new PayloadPusher(vertx, timingOutClient, singlePeerHealth, metrics, 0, 1, Long.MAX_VALUE);
+    final PeerHealth batchPeerHealth = new PeerHealth(0, 60_000);
+    final PayloadPusher batchPusher =
+        new PayloadPusher(vertx, timingOutClient, batchPeerHealth, metrics, 60_000, 2, Long.MAX_VALUE);
+
+    assertThrows(CompletionException.class, () -> pusher.push(peer, payload("a"), "a").join());
+    final CompletableFuture<Boolean> first = batchPusher.push(peer, payload("b"), "b");
+    final CompletableFuture<Boolean> second = batchPusher.push(peer, payload("c"), "c");
+    assertThrows(CompletionException.class, first::join);
+    assertThrows(CompletionException.class, second::join);
+    // the connection is closed after the timeout, which fails the request a second time
+    Thread.sleep(500);
+
+    assertEquals(1, singlePeerHealth.status(peer).consecutiveFailures());
+    assertEquals(1, batchPeerHealth.status(peer).consecutiveFailures());
+  }
+
+  private static MockResponse echo(final RecordedRequest request) {
+    return new MockResponse().setBody(Serializer.deserialize(CBOR, String.class, request.getBody().readByteArray()));
+  }
+
+  private static MockResponse cborResponse(final String[] digests) {
+    return new MockResponse().setBody(new okio.Buffer().write(Serializer.serialize(CBOR, digests)));
+  }
+
+  private static Buffer payload(final String content) {
+    return Buffer.buffer(Serializer.serialize(CBOR, content));
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.payload;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import net.consensys.orion.enclave.EncryptedKey;
+import net.consensys.orion.enclave.EncryptedPayload;
+import net.consensys.orion.http.server.HttpContentType;
+import net.consensys.orion.utils.Serializer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.vertx.core.buffer.Buffer;
+import org.apache.tuweni.crypto.sodium.Box;
+import org.junit.jupiter.api.Test;
+
+class PeerPayloadEncoderTest {
+
+  private final Box.PublicKey recipient1 = Box.KeyPair.random().publicKey();
+  private final Box.PublicKey recipient2 = Box.KeyPair.random().publicKey();
+  private final Box.PublicKey recipient3 = Box.KeyPair.random().publicKey();
+
+  @Test
+  void encodingMatchesSerializedStrippedPayload() {
+    for (final int cipherTextLength : new int[] {0, 23, 24, 255, 256, 65535, 65536, 1 << 20}) {
+      final EncryptedPayload payload = payload(cipherTextLength);
+      final PeerPayloadEncoder encoder = new PeerPayloadEncoder(payload);
+
+      for (final List<Box.PublicKey> keys : Arrays
+          .asList(Collections.singletonList(recipient2), Arrays.asList(recipient1, recipient3))) {
+        final EncryptedPayload expected = payload.stripFor(keys);
+        final Buffer encoded = encoder.encodeFor(keys);
+        final EncryptedPayload decoded =
+            Serializer.deserialize(HttpContentType.CBOR, EncryptedPayload.class, encoded.getBytes());
+
+        // the cipher text is wrapped rather than copied into the encoding
+        assertTrue(isComposite(encoded.getByteBuf()));
+
+        assertEquals(expected, decoded);
+        assertArrayEquals(expected.privacyGroupId(), decoded.privacyGroupId());
+        assertEquals(expected.encryptedKeyOwners(), decoded.encryptedKeyOwners());
+      }
+    }
+  }
+
+  private static boolean isComposite(final ByteBuf byteBuf) {
+    for (ByteBuf buf = byteBuf; buf != null; buf = buf.unwrap()) {
+      if (buf instanceof CompositeByteBuf) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private EncryptedPayload payload(final int cipherTextLength) {
+    final byte[] cipherText = new byte[cipherTextLength];
+    new Random(cipherTextLength).nextBytes(cipherText);
+    final Map<Box.PublicKey, Integer> owners = new HashMap<>();
+    owners.put(recipient1, 0);
+    owners.put(recipient2, 1);
+    owners.put(recipient3, 2);
+    return new EncryptedPayload(
+        Box.KeyPair.random().publicKey(),
+        "fake nonce".getBytes(),
+        new EncryptedKey[] {
+            new EncryptedKey("key1".getBytes()),
+            new EncryptedKey("key2".getBytes()),
+            new EncryptedKey("key3".getBytes())},
+        cipherText,
+        owners,
+        "fake group".getBytes());
+  }
+}
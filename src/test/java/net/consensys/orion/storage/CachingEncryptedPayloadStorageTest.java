@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import net.consensys.orion.enclave.EncryptedKey;
+import net.consensys.orion.enclave.EncryptedPayload;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.crypto.sodium.Box;
+import org.apache.tuweni.kv.MapKeyValueStore;
+import org.junit.jupiter.api.Test;
+
+class CachingEncryptedPayloadStorageTest {
+
+  private final Map<Bytes, Bytes> map = new ConcurrentHashMap<>();
+  private final Storage<EncryptedPayload> payloadStorage =
+      new EncryptedPayloadStorage(MapKeyValueStore.open(map), new Sha512_256StorageKeyBuilder());
+
+  @Test
+  void storedPayloadIsServedFromMemory() throws Exception {
+    final CachingEncryptedPayloadStorage cachingStorage = new CachingEncryptedPayloadStorage(payloadStorage, 1 << 20);
+    final EncryptedPayload payload = payload(1024);
+
+    final String key = cachingStorage.put(payload).get();
+    map.clear();
+
+    assertEquals(Optional.of(payload), cachingStorage.get(key).get());
+    assertEquals(1, cachingStorage.stats().hitCount());
+  }
+
+  @Test
+  void retrievedPayloadIsCached() throws Exception {
+    final CachingEncryptedPayloadStorage cachingStorage = new CachingEncryptedPayloadStorage(payloadStorage, 1 << 20);
+    final EncryptedPayload payload = payload(1024);
+    final String key = payloadStorage.put(payload).get();
+
+    assertEquals(Optional.of(payload), cachingStorage.get(key).get());
+    map.clear();
+    assertEquals(Optional.of(payload), cachingStorage.get(key).get());
+
+    assertEquals(1, cachingStorage.stats().missCount());
+    assertEquals(1, cachingStorage.stats().hitCount());
+  }
+
+  @Test
+  void missingPayloadIsNotCached() throws Exception {
+    final CachingEncryptedPayloadStorage cachingStorage = new CachingEncryptedPayloadStorage(payloadStorage, 1 << 20);
+
+    assertEquals(Optional.empty(), cachingStorage.get("missing").get());
+    assertEquals(0, cachingStorage.size());
+  }
+
+  @Test
+  void cacheIsBoundedBySize() throws Exception {
+    final CachingEncryptedPayloadStorage cachingStorage = new CachingEncryptedPayloadStorage(payloadStorage, 16384);
+
+    for (int i = 0; i < 8; i++) {
+      cachingStorage.put(payload(4096)).get();
+    }
+
+    assertTrue(cachingStorage.size() <= 16384, "cached " + cachingStorage.size() + " bytes");
+    assertTrue(cachingStorage.stats().evictionCount() > 0);
+  }
+
+  private static EncryptedPayload payload(final int cipherTextLength) {
+    final Random random = new Random();
+    final byte[] cipherText = new byte[cipherTextLength];
+    random.nextBytes(cipherText);
+    final byte[] nonce = new byte[24];
+    random.nextBytes(nonce);
+    return new EncryptedPayload(
+        Box.KeyPair.random().publicKey(),
+        nonce,
+        new EncryptedKey[] {new EncryptedKey(new byte[72])},
+        cipherText,
+        null);
+  }
+}
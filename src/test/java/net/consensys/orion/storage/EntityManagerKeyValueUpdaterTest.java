@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.concurrent.AsyncResult;
+import org.apache.tuweni.io.Base64;
+import org.apache.tuweni.junit.TempDirectory;
+import org.apache.tuweni.junit.TempDirectoryExtension;
+import org.apache.tuweni.kv.EntityManagerKeyValueStore;
+import org.apache.tuweni.kv.KeyValueStore;
+import org.apache.tuweni.kv.ProxyKeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(TempDirectoryExtension.class)
+class EntityManagerKeyValueUpdaterTest {
+
+  private JpaEntityManagerProvider jpaEntityManagerProvider;
+  private KeyValueStore<Bytes, Bytes> storage;
+
+  @BeforeEach
+  void setup(@TempDirectory final Path tempDir) throws SQLException {
+    final String jdbcUrl = "jdbc:h2:" + tempDir.resolve("EntityManagerKeyValueUpdaterTest").toString();
+    try (final Connection conn = DriverManager.getConnection(jdbcUrl)) {
+      final Statement st = conn.createStatement();
+      st.executeUpdate("create table if not exists store(key char(60), value binary, primary key(key))");
+    }
+    jpaEntityManagerProvider = new JpaEntityManagerProvider(jdbcUrl);
+    storage = ProxyKeyValueStore.open(
+        EntityManagerKeyValueStore.open(jpaEntityManagerProvider::createEntityManager, Store.class, Store::getKey),
+        Base64::decode,
+        Base64::encode,
+        store -> Bytes.wrap(store.getValue()),
+        (key, value) -> {
+          Store store = new Store();
+          store.setKey(Base64.encode(key));
+          store.setValue(value.toArrayUnsafe());
+          return store;
+        });
+  }
+
+  @AfterEach
+  void tearDown() {
+    jpaEntityManagerProvider.close();
+  }
+
+  @Test
+  void updateIsReadThroughTheStore() throws Exception {
+    final KeyValueUpdater updater = new EntityManagerKeyValueUpdater(jpaEntityManagerProvider::createEntityManager);
+    final Bytes key = Bytes.of(1);
+    storage.putAsync(key, Bytes.ofUnsignedInt(41)).join();
+
+    assertEquals(Bytes.ofUnsignedInt(42), updater.update(key, EntityManagerKeyValueUpdaterTest::increment).get());
+    assertEquals(Bytes.ofUnsignedInt(42), storage.getAsync(key).get());
+  }
+
+  @Test
+  void concurrentUpdatesFromSeveralNodesAreNotLost() throws Exception {
+    // each updater stands for a node sharing the database, with nothing ordering their updates in memory
+    final KeyValueUpdater firstNode = new EntityManagerKeyValueUpdater(jpaEntityManagerProvider::createEntityManager);
+    final KeyValueUpdater secondNode = new EntityManagerKeyValueUpdater(jpaEntityManagerProvider::createEntityManager);
+    final Bytes key = Bytes.of(1);
+    storage.putAsync(key, Bytes.ofUnsignedInt(0)).join();
+
+    final List<AsyncResult<Bytes>> updates = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      updates.add(firstNode.update(key, EntityManagerKeyValueUpdaterTest::increment));
+      updates.add(secondNode.update(key, EntityManagerKeyValueUpdaterTest::increment));
+    }
+    AsyncResult.allOf(updates).join();
+
+    assertEquals(Bytes.ofUnsignedInt(40), storage.getAsync(key).get());
+  }
+
+  @Test
+  void missingKeyIsInserted() throws Exception {
+    final KeyValueUpdater updater = new EntityManagerKeyValueUpdater(jpaEntityManagerProvider::createEntityManager);
+    final Bytes key = Bytes.of(2);
+
+    updater.update(key, EntityManagerKeyValueUpdaterTest::increment).get();
+
+    assertEquals(Bytes.ofUnsignedInt(1), storage.getAsync(key).get());
+  }
+
+  private static Bytes increment(final Optional<Bytes> current) {
+    return Bytes.ofUnsignedInt(current.map(bytes -> bytes.toInt()).orElse(0) + 1);
+  }
+}
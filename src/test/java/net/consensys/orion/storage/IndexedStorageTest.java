@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import static org.apache.tuweni.io.Base64.encodeBytes;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import net.consensys.orion.enclave.Enclave;
+import net.consensys.orion.enclave.PrivacyGroupPayload;
+import net.consensys.orion.enclave.QueryPrivacyGroupPayload;
+import net.consensys.orion.enclave.sodium.MemoryKeyStore;
+import net.consensys.orion.enclave.sodium.SodiumEnclave;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.concurrent.AsyncResult;
+import org.apache.tuweni.concurrent.CompletableAsyncResult;
+import org.apache.tuweni.junit.BouncyCastleExtension;
+import org.apache.tuweni.kv.MapKeyValueStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(BouncyCastleExtension.class)
+class IndexedStorageTest {
+
+  private final Map<Bytes, Bytes> map = new ConcurrentHashMap<>();
+  private MemoryKeyStore memoryKeyStore;
+  private Storage<PrivacyGroupPayload> privacyGroupStorage;
+  private Storage<QueryPrivacyGroupPayload> queryPrivacyGroupStorage;
+
+  @BeforeEach
+  void setUp() {
+    memoryKeyStore = new MemoryKeyStore();
+    final Enclave enclave = new SodiumEnclave(memoryKeyStore);
+    privacyGroupStorage = new PrivacyGroupStorage(MapKeyValueStore.open(map), enclave);
+    queryPrivacyGroupStorage = new QueryPrivacyGroupStorage(MapKeyValueStore.open(map), enclave);
+  }
+
+  @Test
+  void storedRecordIsServedFromIndex() throws Exception {
+    final IndexedStorage<PrivacyGroupPayload> indexedStorage = new IndexedStorage<>(privacyGroupStorage);
+    final PrivacyGroupPayload payload = privacyGroup();
+
+    final String key = indexedStorage.put(payload).get();
+    map.clear();
+
+    assertEquals(Optional.of(payload), indexedStorage.get(key).get());
+  }
+
+  @Test
+  void recordIsIndexedOnFirstRead() throws Exception {
+    final IndexedStorage<PrivacyGroupPayload> indexedStorage = new IndexedStorage<>(privacyGroupStorage);
+    final PrivacyGroupPayload payload = privacyGroup();
+    final String key = privacyGroupStorage.put(payload).get();
+
+    assertEquals(Optional.of(payload), indexedStorage.get(key).get());
+    map.clear();
+
+    assertEquals(Optional.of(payload), indexedStorage.get(key).get());
+    assertEquals(1, indexedStorage.size());
+  }
+
+  @Test
+  void missingRecordIsNotIndexed() throws Exception {
+    final IndexedStorage<PrivacyGroupPayload> indexedStorage = new IndexedStorage<>(privacyGroupStorage);
+
+    assertEquals(Optional.empty(), indexedStorage.get("missing").get());
+    assertEquals(0, indexedStorage.size());
+  }
+
+  @Test
+  void updateReplacesIndexedRecord() throws Exception {
+    final IndexedStorage<QueryPrivacyGroupPayload> indexedStorage = new IndexedStorage<>(queryPrivacyGroupStorage);
+    final String[] addresses = privacyGroup().addresses();
+
+    final String key = indexedStorage.generateDigest(new QueryPrivacyGroupPayload(addresses, null));
+    indexedStorage.update(key, append(addresses, "group1")).get();
+    assertEquals(Collections.singletonList("group1"), indexedStorage.get(key).get().get().privacyGroupId());
+    indexedStorage.update(key, append(addresses, "group2")).get();
+
+    assertEquals(Arrays.asList("group1", "group2"), indexedStorage.get(key).get().get().privacyGroupId());
+  }
+
+  @Test
+  void concurrentUpdatesKeepAllPrivacyGroups() throws Exception {
+    final IndexedStorage<QueryPrivacyGroupPayload> indexedStorage = new IndexedStorage<>(queryPrivacyGroupStorage);
+    final String[] addresses = privacyGroup().addresses();
+    final String key = indexedStorage.generateDigest(new QueryPrivacyGroupPayload(addresses, null));
+
+    final List<AsyncResult<Optional<QueryPrivacyGroupPayload>>> updates = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      updates.add(indexedStorage.update(key, append(addresses, "group" + i)));
+    }
+    AsyncResult.allOf(updates).join();
+
+    assertEquals(50, indexedStorage.get(key).get().get().privacyGroupId().size());
+    assertEquals(50, queryPrivacyGroupStorage.get(key).get().get().privacyGroupId().size());
+  }
+
+  @Test
+  void readOverlappingAnUpdateIsNotIndexed() throws Exception {
+    final CompletableAsyncResult<Optional<QueryPrivacyGroupPayload>> heldRead = AsyncResult.incomplete();
+    final IndexedStorage<QueryPrivacyGroupPayload> indexedStorage = new IndexedStorage<>(new Storage<>() {
+      @Override
+      public AsyncResult<String> put(final QueryPrivacyGroupPayload data) {
+        return queryPrivacyGroupStorage.put(data);
+      }
+
+      @Override
+      public String generateDigest(final QueryPrivacyGroupPayload data) {
+        return queryPrivacyGroupStorage.generateDigest(data);
+      }
+
+      @Override
+      public AsyncResult<Optional<QueryPrivacyGroupPayload>> get(final String key) {
+        return queryPrivacyGroupStorage.get(key).then(current -> heldRead.thenApply(ignored -> current));
+      }
+
+      @Override
+      public AsyncResult<Optional<QueryPrivacyGroupPayload>> update(
+          final String key,
+          final QueryPrivacyGroupPayload data) {
+        return queryPrivacyGroupStorage.update(key, data);
+      }
+    });
+    final String[] addresses = privacyGroup().addresses();
+    final String key = indexedStorage.generateDigest(new QueryPrivacyGroupPayload(addresses, null));
+    queryPrivacyGroupStorage.update(key, append(addresses, "group1")).get();
+
+    // the read sees group1 only, and completes after group2 was added
+    final AsyncResult<Optional<QueryPrivacyGroupPayload>> staleRead = indexedStorage.get(key);
+    indexedStorage.update(key, append(addresses, "group2")).get();
+    heldRead.complete(Optional.empty());
+
+    assertEquals(Collections.singletonList("group1"), staleRead.get().get().privacyGroupId());
+    assertEquals(0, indexedStorage.size());
+    assertEquals(Arrays.asList("group1", "group2"), indexedStorage.get(key).get().get().privacyGroupId());
+  }
+
+  private static QueryPrivacyGroupPayload append(final String[] addresses, final String privacyGroupId) {
+    final QueryPrivacyGroupPayload payload = new QueryPrivacyGroupPayload(addresses, null);
+    payload.setPrivacyGroupToAppend(privacyGroupId);
+    return payload;
+  }
+
+  private PrivacyGroupPayload privacyGroup() {
+    return new PrivacyGroupPayload(
+        new String[] {
+            encodeBytes(memoryKeyStore.generateKeyPair().bytesArray()),
+            encodeBytes(memoryKeyStore.generateKeyPair().bytesArray())},
+        "name",
+        "description",
+        PrivacyGroupPayload.State.ACTIVE,
+        PrivacyGroupPayload.Type.PANTHEON,
+        new byte[20]);
+  }
+}
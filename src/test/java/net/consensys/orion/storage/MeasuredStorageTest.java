@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import static net.consensys.orion.TestUtils.observations;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import net.consensys.orion.enclave.EncryptedKey;
+import net.consensys.orion.enclave.EncryptedPayload;
+import net.consensys.orion.metrics.MetricsRegistry;
+
+import java.util.Optional;
+
+import io.prometheus.client.Histogram;
+import org.apache.tuweni.crypto.sodium.Box;
+import org.apache.tuweni.kv.MapKeyValueStore;
+import org.junit.jupiter.api.Test;
+
+class MeasuredStorageTest {
+
+  private final MetricsRegistry metrics = new MetricsRegistry();
+  private final Storage<EncryptedPayload> storage = new MeasuredStorage<>(
+      new EncryptedPayloadStorage(MapKeyValueStore.open(), new Sha512_256StorageKeyBuilder()),
+      "payload",
+      "memory",
+      metrics);
+
+  @Test
+  void readsAndWritesAreTimedPerStorageAndBackend() throws Exception {
+    final EncryptedPayload payload = new EncryptedPayload(
+        Box.KeyPair.random().publicKey(),
+        new byte[24],
+        new EncryptedKey[] {new EncryptedKey(new byte[72])},
+        new byte[] {1, 2, 3},
+        null);
+
+    final String key = storage.put(payload).get();
+    assertEquals(Optional.of(payload), storage.get(key).get());
+    assertEquals(Optional.empty(), storage.get("missing").get());
+
+    final Histogram duration =
+        metrics.histogram("orion_storage_operation_duration_seconds", "", "storage", "backend", "operation");
+    assertEquals(1, observations(duration, "payload", "memory", "put"));
+    assertEquals(2, observations(duration, "payload", "memory", "get"));
+  }
+}
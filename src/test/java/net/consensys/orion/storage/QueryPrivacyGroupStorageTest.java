@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.tuweni.io.Base64.encodeBytes;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import net.consensys.orion.enclave.QueryPrivacyGroupPayload;
+import net.consensys.orion.enclave.sodium.MemoryKeyStore;
+import net.consensys.orion.enclave.sodium.SodiumEnclave;
+import net.consensys.orion.http.server.HttpContentType;
+import net.consensys.orion.utils.Serializer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.junit.BouncyCastleExtension;
+import org.apache.tuweni.kv.MapKeyValueStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(BouncyCastleExtension.class)
+class QueryPrivacyGroupStorageTest {
+
+  private final Map<Bytes, Bytes> map = new ConcurrentHashMap<>();
+  private QueryPrivacyGroupStorage queryPrivacyGroupStorage;
+  private String[] addresses;
+
+  @BeforeEach
+  void setUp() {
+    final MemoryKeyStore memoryKeyStore = new MemoryKeyStore();
+    queryPrivacyGroupStorage =
+        new QueryPrivacyGroupStorage(MapKeyValueStore.open(map), new SodiumEnclave(memoryKeyStore));
+    addresses = new String[] {
+        encodeBytes(memoryKeyStore.generateKeyPair().bytesArray()),
+        encodeBytes(memoryKeyStore.generateKeyPair().bytesArray())};
+  }
+
+  @Test
+  void legacyRecordIsMigratedOnUpdate() throws Exception {
+    final String key = queryPrivacyGroupStorage.generateDigest(new QueryPrivacyGroupPayload(addresses, null));
+    final QueryPrivacyGroupPayload legacy = new QueryPrivacyGroupPayload(addresses, Arrays.asList("group1", "group2"));
+    map.put(Bytes.wrap(key.getBytes(UTF_8)), Bytes.wrap(Serializer.serialize(HttpContentType.CBOR, legacy)));
+
+    assertEquals(legacy.privacyGroupId(), queryPrivacyGroupStorage.get(key).get().get().privacyGroupId());
+
+    queryPrivacyGroupStorage.update(key, update("group3", false)).get();
+    queryPrivacyGroupStorage.update(key, update("group1", true)).get();
+
+    assertEquals(Arrays.asList("group2", "group3"), queryPrivacyGroupStorage.get(key).get().get().privacyGroupId());
+  }
+
+  @Test
+  void putAddsPrivacyGroups() throws Exception {
+    final String key =
+        queryPrivacyGroupStorage.put(new QueryPrivacyGroupPayload(addresses, Arrays.asList("group1", "group2"))).get();
+    queryPrivacyGroupStorage.update(key, update("group3", false)).get();
+
+    assertEquals(
+        Arrays.asList("group1", "group2", "group3"),
+        queryPrivacyGroupStorage.get(key).get().get().privacyGroupId());
+  }
+
+  private QueryPrivacyGroupPayload update(final String privacyGroupId, final boolean toDelete) {
+    final QueryPrivacyGroupPayload payload = new QueryPrivacyGroupPayload(addresses, null);
+    payload.setPrivacyGroupToAppend(privacyGroupId);
+    payload.setToDelete(toDelete);
+    return payload;
+  }
+}
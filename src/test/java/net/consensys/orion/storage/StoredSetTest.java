@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.concurrent.AsyncResult;
+import org.apache.tuweni.kv.KeyValueStore;
+import org.apache.tuweni.kv.MapKeyValueStore;
+import org.junit.jupiter.api.Test;
+
+class StoredSetTest {
+
+  private final Map<Bytes, Bytes> map = new ConcurrentHashMap<>();
+  private final KeyValueStore<Bytes, Bytes> store = MapKeyValueStore.open(map);
+  private final StoredSet storedSet = new StoredSet(store, new StripedKeyValueUpdater(store));
+
+  @Test
+  void missingSetIsEmpty() throws Exception {
+    assertEquals(Optional.empty(), storedSet.get("set").get());
+  }
+
+  @Test
+  void elementsAreKeptInOrderOnce() throws Exception {
+    assertTrue(storedSet.add("set", "a").get());
+    assertTrue(storedSet.add("set", "b").get());
+    assertFalse(storedSet.add("set", "a").get());
+
+    assertEquals(Optional.of(Arrays.asList("a", "b")), storedSet.get("set").get());
+  }
+
+  @Test
+  void removedElementsAreDropped() throws Exception {
+    storedSet.add("set", "a").get();
+    storedSet.add("set", "b").get();
+
+    assertTrue(storedSet.remove("set", "a").get());
+    assertFalse(storedSet.remove("set", "a").get());
+    assertEquals(Optional.of(Collections.singletonList("b")), storedSet.get("set").get());
+
+    assertTrue(storedSet.add("set", "a").get());
+    assertEquals(Optional.of(Arrays.asList("a", "b")), storedSet.get("set").get());
+  }
+
+  @Test
+  void slotsOfRemovedElementsAreReused() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      storedSet.add("set", "element" + i).get();
+    }
+    for (int i = 0; i < 5; i++) {
+      storedSet.remove("set", "element" + i).get();
+    }
+    final int records = map.size();
+
+    for (int i = 10; i < 15; i++) {
+      storedSet.add("set", "element" + i).get();
+    }
+
+    // one element record each, no new slot
+    assertEquals(records + 5, map.size());
+    assertEquals(10, storedSet.get("set").get().get().size());
+  }
+
+  @Test
+  void concurrentAdditionsAndRemovalsShareSlots() throws Exception {
+    for (int i = 0; i < 50; i++) {
+      storedSet.add("set", "element" + i).get();
+    }
+    final int records = map.size();
+
+    final List<AsyncResult<Boolean>> updates = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      updates.add(storedSet.remove("set", "element" + i));
+      updates.add(storedSet.add("set", "other" + i));
+    }
+    AsyncResult.allOf(updates).join();
+
+    final List<String> elements = storedSet.get("set").get().get();
+    assertEquals(50, elements.size());
+    assertTrue(elements.stream().allMatch(element -> element.startsWith("other")));
+    // at most the 50 new element records, and as many slots as elements held at once
+    assertTrue(map.size() <= records + 100, map.size() - records + " records added");
+  }
+
+  @Test
+  void updatesWriteAConstantNumberOfRecords() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      storedSet.add("set", "element" + i).get();
+    }
+    final int records = map.size();
+    final Bytes largest = map.values().stream().max((a, b) -> Integer.compare(a.size(), b.size())).get();
+
+    storedSet.add("set", "element100").get();
+
+    assertEquals(records + 2, map.size());
+    assertTrue(largest.size() <= 24, "largest record is " + largest.size() + " bytes");
+  }
+
+  @Test
+  void concurrentAdditionsAreKept() throws Exception {
+    final List<AsyncResult<Boolean>> additions = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      additions.add(storedSet.add("set", "element" + i));
+      additions.add(storedSet.add("set", "element" + i));
+    }
+    AsyncResult.allOf(additions).join();
+
+    final List<String> elements = storedSet.get("set").get().get();
+    assertEquals(50, elements.size());
+    assertEquals(50, new HashSet<>(elements).size());
+  }
+
+  @Test
+  void initializeOnlyFillsEmptySets() throws Exception {
+    storedSet.initialize("set", Arrays.asList("a", "b", "a")).join();
+    assertEquals(Optional.of(Arrays.asList("a", "b")), storedSet.get("set").get());
+
+    storedSet.remove("set", "a").get();
+    storedSet.initialize("set", Arrays.asList("a", "b")).join();
+
+    assertEquals(Optional.of(Collections.singletonList("b")), storedSet.get("set").get());
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.concurrent.AsyncResult;
+import org.apache.tuweni.kv.MapKeyValueStore;
+import org.junit.jupiter.api.Test;
+
+class StripedKeyValueUpdaterTest {
+
+  private final Map<Bytes, Bytes> map = new ConcurrentHashMap<>();
+  private final KeyValueUpdater updater = new StripedKeyValueUpdater(MapKeyValueStore.open(map));
+
+  @Test
+  void concurrentUpdatesAreNotLost() throws Exception {
+    final Bytes key = Bytes.of(1);
+    final List<AsyncResult<Bytes>> updates = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      updates.add(updater.update(key, StripedKeyValueUpdaterTest::increment));
+    }
+    AsyncResult.allOf(updates).join();
+
+    assertEquals(Bytes.ofUnsignedInt(200), map.get(key));
+  }
+
+  @Test
+  void updatesAreAppliedInOrder() throws Exception {
+    final Bytes key = Bytes.of(1);
+    final AsyncResult<Bytes> first = updater.update(key, current -> Bytes.of(1));
+    final AsyncResult<Bytes> second = updater.update(key, current -> Bytes.concatenate(current.get(), Bytes.of(2)));
+
+    assertEquals(Bytes.of(1), first.get());
+    assertEquals(Bytes.of(1, 2), second.get());
+  }
+
+  @Test
+  void failedUpdateDoesNotBlockTheKey() throws Exception {
+    final Bytes key = Bytes.of(1);
+    final AsyncResult<Bytes> failed = updater.update(key, current -> {
+      throw new IllegalStateException("failed");
+    });
+    final AsyncResult<Bytes> next = updater.update(key, StripedKeyValueUpdaterTest::increment);
+
+    assertThrows(CompletionException.class, failed::get);
+    assertEquals(Bytes.ofUnsignedInt(1), next.get());
+    assertEquals(Optional.of(Bytes.ofUnsignedInt(1)), Optional.ofNullable(map.get(key)));
+  }
+
+  private static Bytes increment(final Optional<Bytes> current) {
+    return Bytes.ofUnsignedInt(current.map(bytes -> bytes.toInt()).orElse(0) + 1);
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.consensys.orion.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import net.consensys.orion.exception.OrionErrorCode;
+import net.consensys.orion.exception.OrionException;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class CryptoWorkerPoolTest {
+
+  @Test
+  void runsTaskOnDedicatedWorkerThread(final Vertx vertx, final VertxTestContext testContext) {
+    final CryptoWorkerPool pool = new CryptoWorkerPool(vertx, 2);
+
+    pool.execute(() -> {
+      assertTrue(Context.isOnWorkerThread());
+      return Thread.currentThread().getName();
+    }).setHandler(testContext.succeeding(threadName -> testContext.verify(() -> {
+      assertTrue(threadName.startsWith("orion-crypto-worker"));
+      assertEquals(0, pool.pending());
+      assertEquals(0, pool.inFlight());
+      testContext.completeNow();
+    })));
+  }
+
+  @Test
+  void completesOnCallerContext(final Vertx vertx, final VertxTestContext testContext) {
+    final CryptoWorkerPool pool = new CryptoWorkerPool(vertx, 0);
+
+    vertx.runOnContext(v -> {
+      final Context callerContext = vertx.getOrCreateContext();
+      pool.execute(() -> 42).setHandler(testContext.succeeding(result -> testContext.verify(() -> {
+        assertEquals(42, result);
+        assertEquals(callerContext, vertx.getOrCreateContext());
+        assertFalse(Context.isOnWorkerThread());
+        testContext.completeNow();
+      })));
+    });
+  }
+
+  @Test
+  void failsWithTaskException(final Vertx vertx, final VertxTestContext testContext) {
+    final CryptoWorkerPool pool = new CryptoWorkerPool(vertx, 1);
+
+    pool.execute(() -> {
+      throw new OrionException(OrionErrorCode.INVALID_PAYLOAD);
+    }).setHandler(testContext.failing(cause -> testContext.verify(() -> {
+      assertEquals(OrionErrorCode.INVALID_PAYLOAD, ((OrionException) cause).code());
+      assertEquals(0, pool.inFlight());
+      testContext.completeNow();
+    })));
+  }
+}